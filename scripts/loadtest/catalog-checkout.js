@@ -0,0 +1,105 @@
+// k6 load test for the catalog, checkout and webhook endpoints.
+// Usage: k6 run -e SCENARIO=catalog|checkout|webhook [-e BASE_URL=http://localhost:8080] [-e VUS=200] [-e DURATION=2m] catalog-checkout.js
+// - catalog:  anonymous GET /api/courses (search page) + GET /api/courses/{slug}
+// - checkout: per-VU users (signed up in setup), cart add -> POST /api/checkout/cart, plus single-course POST /api/checkout
+// - webhook:  signed payment_intent.succeeded events to POST /api/webhooks/payment/stripe (inbox insert; the workers
+//             then look up the unknown intent). Needs -e WEBHOOK_SECRET equal to the app's STRIPE_WEBHOOK_SECRET.
+// Run the checkout scenario against stripe-mock (STRIPE_API_BASE), not Stripe test mode: its rate limit caps throughput first.
+import http from 'k6/http';
+import { check, fail } from 'k6';
+import crypto from 'k6/crypto';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const SCENARIO = __ENV.SCENARIO || 'catalog';
+const VUS = parseInt(__ENV.VUS || '200', 10);
+const DURATION = __ENV.DURATION || '2m';
+const USERS = parseInt(__ENV.USERS || '50', 10);
+const PASSWORD = 'LoadTest#2024';
+const WEBHOOK_SECRET = __ENV.WEBHOOK_SECRET || 'whsec_loadtest';
+
+// 409 (course already owned from an earlier run) is an expected answer, not a failed request
+http.setResponseCallback(http.expectedStatuses({ min: 200, max: 399 }, 409));
+
+export const options = {
+  scenarios: {
+    [SCENARIO]: {
+      executor: 'constant-vus',
+      vus: VUS,
+      duration: DURATION,
+      exec: SCENARIO,
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+export function setup() {
+  const res = http.get(`${BASE_URL}/api/courses?page=0&size=50`);
+  if (res.status !== 200) {
+    fail(`catalog not reachable: ${res.status}`);
+  }
+  const courses = res.json('content').map((c) => ({ id: c.id, slug: c.slug }));
+  if (courses.length === 0) {
+    fail('no active courses; run with the dev seed (db/seed-dev)');
+  }
+  const tokens = [];
+  if (SCENARIO === 'checkout') {
+    const json = { headers: { 'Content-Type': 'application/json' } };
+    for (let i = 0; i < USERS; i++) {
+      const body = JSON.stringify({ email: `loadtest-${i}@loadtest.example`, password: PASSWORD });
+      http.post(`${BASE_URL}/api/auth/signup`, body, json); // 409 on re-runs is fine
+      const login = http.post(`${BASE_URL}/api/auth/login`, body, json);
+      if (login.status !== 200) {
+        fail(`login failed for loadtest-${i}: ${login.status}`);
+      }
+      tokens.push(login.json('token'));
+    }
+  }
+  // event ids must be new on every run, the inbox drops ids it has seen
+  return { courses, tokens, runId: Date.now() };
+}
+
+export function catalog(data) {
+  const page = http.get(`${BASE_URL}/api/courses?page=${__ITER % 3}&size=12`, { tags: { name: 'GET /api/courses' } });
+  check(page, { 'search 200': (r) => r.status === 200 });
+  const course = data.courses[__ITER % data.courses.length];
+  const detail = http.get(`${BASE_URL}/api/courses/${course.slug}`, { tags: { name: 'GET /api/courses/{slug}' } });
+  check(detail, { 'detail 200': (r) => r.status === 200 });
+}
+
+export function checkout(data) {
+  const params = {
+    headers: { Authorization: `Bearer ${data.tokens[(__VU - 1) % data.tokens.length]}` },
+  };
+  const first = data.courses[(__VU + __ITER) % data.courses.length];
+  const second = data.courses[(__VU + __ITER + 1) % data.courses.length];
+
+  http.post(`${BASE_URL}/api/cart/clear`, null, { ...params, tags: { name: 'POST /api/cart/clear' } });
+  for (const course of [first, second]) {
+    http.post(`${BASE_URL}/api/cart/add?courseId=${course.id}`, null, { ...params, tags: { name: 'POST /api/cart/add' } });
+  }
+  const cart = http.post(`${BASE_URL}/api/checkout/cart`, null, { ...params, tags: { name: 'POST /api/checkout/cart' } });
+  check(cart, { 'cart checkout ok': (r) => r.status === 200 || r.status === 409 });
+
+  const single = http.post(`${BASE_URL}/api/checkout?courseId=${first.id}`, null, { ...params, tags: { name: 'POST /api/checkout' } });
+  check(single, { 'checkout ok': (r) => r.status === 200 || r.status === 409 });
+}
+
+export function webhook(data) {
+  const payload = JSON.stringify({
+    id: `evt_loadtest_${data.runId}_${__VU}_${__ITER}`,
+    object: 'event',
+    type: 'payment_intent.succeeded',
+    data: { object: { id: `pi_loadtest_${data.runId}_${__VU}_${__ITER}`, object: 'payment_intent' } },
+  });
+  // Stripe-Signature: t=<unix seconds>,v1=hex(HMAC-SHA256(secret, "<t>.<payload>"))
+  const t = Math.floor(Date.now() / 1000);
+  const signature = crypto.hmac('sha256', WEBHOOK_SECRET, `${t}.${payload}`, 'hex');
+  const res = http.post(`${BASE_URL}/api/webhooks/payment/stripe`, payload, {
+    headers: { 'Content-Type': 'application/json', 'Stripe-Signature': `t=${t},v1=${signature}` },
+    tags: { name: 'POST /api/webhooks/payment/stripe' },
+  });
+  check(res, { 'webhook 200': (r) => r.status === 200 });
+}
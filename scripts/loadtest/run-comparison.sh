@@ -0,0 +1,113 @@
+#!/usr/bin/env bash
+# Runs the load tests against the API in two configurations and prints throughput and p99 per configuration.
+# - COMPARE=threads (default): platform threads, then virtual threads; catalog and checkout scenarios.
+# - COMPARE=profile: current settings, then with the prod profile added (application-prod.yml: driver statement
+#   caching, open-in-view off, Hibernate tuning); catalog and webhook scenarios. Also reports how long the
+#   webhook inbox takes to drain after the webhook run.
+# Needs: a built jar (./mvnw package -DskipTests), MySQL from docker-compose with the dev seed, k6 and jq.
+# The checkout scenario should run against stripe-mock: docker run -p 12111:12111 stripe/stripe-mock
+set -euo pipefail
+
+cd "$(dirname "$0")"
+JAR=${JAR:-$(ls ../../target/*.jar | grep -v plain | head -n 1)}
+PORT=${PORT:-8080}
+VUS=${VUS:-200}
+DURATION=${DURATION:-2m}
+OUT=${OUT:-results}
+COMPARE=${COMPARE:-threads}
+export STRIPE_API_BASE=${STRIPE_API_BASE:-http://localhost:12111}
+export STRIPE_SECRET_KEY=${STRIPE_SECRET_KEY:-sk_test_123}   # stripe-mock accepts any test key
+export STRIPE_WEBHOOK_SECRET=${STRIPE_WEBHOOK_SECRET:-whsec_loadtest}   # the webhook scenario signs with it
+
+case "$COMPARE" in
+  threads)
+    MODES="platform virtual"
+    SCENARIOS=${SCENARIOS:-"catalog checkout"}
+    ;;
+  profile)
+    MODES="default prod"
+    SCENARIOS=${SCENARIOS:-"catalog webhook"}
+    ;;
+  *)
+    echo "COMPARE must be threads or profile" >&2
+    exit 1
+    ;;
+esac
+
+mkdir -p "$OUT"
+
+wait_for_health() {
+  for _ in $(seq 1 60); do
+    if curl -fs "http://localhost:$PORT/actuator/health" > /dev/null; then
+      return 0
+    fi
+    sleep 1
+  done
+  echo "API did not become healthy" >&2
+  return 1
+}
+
+# Seconds until the webhook inbox is empty again (webhook.inbox.depth gauge)
+wait_for_inbox_drain() {
+  local start=$SECONDS
+  for _ in $(seq 1 600); do
+    if curl -fs "http://localhost:$PORT/actuator/metrics/webhook.inbox.depth" \
+        | jq -e '.measurements[0].value == 0' > /dev/null; then
+      echo $((SECONDS - start))
+      return 0
+    fi
+    sleep 1
+  done
+  echo "timeout"
+}
+
+for mode in $MODES; do
+  virtual=${VIRTUAL_THREADS_ENABLED:-false}
+  profiles=${SPRING_PROFILES_ACTIVE:-}
+  case "$mode" in
+    platform) virtual=false ;;
+    virtual) virtual=true ;;
+    prod) profiles=${profiles:+$profiles,}prod ;;
+  esac
+  # tracePinnedThreads logs a stack whenever a virtual thread pins its carrier (JDK 21)
+  VIRTUAL_THREADS_ENABLED=$virtual SPRING_PROFILES_ACTIVE=$profiles \
+    java -Djdk.tracePinnedThreads=short -jar "$JAR" --server.port="$PORT" > "$OUT/app-$mode.log" 2>&1 &
+  app=$!
+  trap 'kill $app 2>/dev/null || true' EXIT
+  wait_for_health
+  for scenario in $SCENARIOS; do
+    # short warm-up so JIT, caches and statement caches are in the same state for both configurations
+    k6 run -q -e SCENARIO=$scenario -e VUS=20 -e DURATION=20s -e BASE_URL="http://localhost:$PORT" \
+      -e WEBHOOK_SECRET="$STRIPE_WEBHOOK_SECRET" catalog-checkout.js > /dev/null || true
+    if [ "$scenario" = webhook ]; then
+      wait_for_inbox_drain > /dev/null
+    fi
+    k6 run -q -e SCENARIO=$scenario -e VUS="$VUS" -e DURATION="$DURATION" -e BASE_URL="http://localhost:$PORT" \
+      -e WEBHOOK_SECRET="$STRIPE_WEBHOOK_SECRET" --summary-export "$OUT/$mode-$scenario.json" catalog-checkout.js || true
+    if [ "$scenario" = webhook ]; then
+      wait_for_inbox_drain > "$OUT/$mode-webhook-drain.txt"
+    fi
+  done
+  kill $app
+  wait $app 2>/dev/null || true
+  if grep -q "onPinned\|<== monitors" "$OUT/app-$mode.log"; then
+    echo "WARNING: pinned virtual threads reported, see $OUT/app-$mode.log" >&2
+  fi
+done
+
+printf '\n%-10s %-9s %12s %10s %10s %8s\n' scenario mode "req/s" "p95 ms" "p99 ms" "failed"
+for scenario in $SCENARIOS; do
+  for mode in $MODES; do
+    f="$OUT/$mode-$scenario.json"
+    [ -f "$f" ] || continue
+    jq -r --arg s "$scenario" --arg m "$mode" \
+      '[$s, $m, .metrics.http_reqs.rate, .metrics.http_req_duration["p(95)"], .metrics.http_req_duration["p(99)"], .metrics.http_req_failed.value]
+       | @tsv' "$f" | awk -F'\t' '{ printf "%-10s %-9s %12.1f %10.1f %10.1f %7.2f%%\n", $1, $2, $3, $4, $5, $6 * 100 }'
+  done
+done
+for mode in $MODES; do
+  f="$OUT/$mode-webhook-drain.txt"
+  if [ -f "$f" ]; then
+    printf 'webhook inbox drained %s s after the run (%s)\n' "$(cat "$f")" "$mode"
+  fi
+done
@@ -0,0 +1,49 @@
+package com.example.apibackend.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold vs warm access-token validation, as done by JwtAuthFilter on every authenticated request.
+ * - legacyRebuildParser: previous JwtUtil behaviour (new parser + key derived from the secret string per call).
+ * - coldVerify: pre-built key/parser, full HMAC check + Base64/JSON parse (first request with a token).
+ * - warmCached: validateToken on a token already in the verified-claims cache (every later request).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+    private String secret;
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() {
+        secret = Base64.getEncoder().encodeToString("benchmark-secret-benchmark-secret-0123456789".getBytes());
+        jwtUtil = new JwtUtil(secret, "learning-platform", 60, 10_000);
+        token = jwtUtil.createToken(42L, "student@example.com", "USER");
+        jwtUtil.validateToken(token); // prime the cache for warmCached
+    }
+
+    @Benchmark
+    public Claims legacyRebuildParser() {
+        return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims coldVerify() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public Claims warmCached() {
+        return jwtUtil.validateToken(token);
+    }
+}
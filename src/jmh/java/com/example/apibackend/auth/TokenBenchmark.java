@@ -0,0 +1,46 @@
+package com.example.apibackend.auth;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing/validation on the auth hot paths (throughput; run with -prof gc for alloc rate).
+ * - createAccessToken / validateAccessToken: JwtUtil, as used by login/refresh and JwtAuthFilter.
+ * - generateRefreshToken: OpaqueTokenGenerator, the opaque refresh/reset token AuthController issues.
+ * JwtValidationBenchmark has the cold vs cached validation breakdown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBenchmark {
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() {
+        String secret = Base64.getEncoder().encodeToString("benchmark-secret-benchmark-secret-0123456789".getBytes());
+        jwtUtil = new JwtUtil(secret, "learning-platform", 60, 10_000);
+        token = jwtUtil.createToken(42L, "student@example.com", "USER");
+    }
+
+    @Benchmark
+    public String createAccessToken() {
+        return jwtUtil.createToken(42L, "student@example.com", "USER");
+    }
+
+    @Benchmark
+    public Claims validateAccessToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return OpaqueTokenGenerator.generate();
+    }
+}
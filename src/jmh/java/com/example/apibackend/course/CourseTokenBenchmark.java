@@ -0,0 +1,24 @@
+package com.example.apibackend.course;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HMAC signing of demo/playback lesson tokens (MediaTokenSigner, as used by CourseController).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CourseTokenBenchmark {
+    private final String secret = "media-hmac-secret-for-benchmarks";
+    private final String payload = "1234:42:" + (System.currentTimeMillis() / 1000 + 600);
+
+    @Benchmark
+    public String signPlaybackToken() {
+        return MediaTokenSigner.sign(payload, secret);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.apibackend.course;
+
+import com.example.apibackend.instructor.Instructor;
+import com.example.apibackend.review.Review;
+import com.example.apibackend.review.ReviewDto;
+import com.example.apibackend.user.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity -> DTO mapping used by the catalog endpoints: one page of CourseSummaryDto (20 courses),
+ * CourseDetailDto, and a page of ReviewDto (5 recent reviews, as on the detail page).
+ * Entities are plain objects here, so this measures mapping cost only, no lazy loading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+    private final List<Course> coursePage = new ArrayList<>();
+    private final List<Review> recentReviews = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        Instructor instructor = new Instructor();
+        instructor.setName("Ada Lovelace");
+        instructor.setBio("Instructor bio");
+        for (long i = 1; i <= 20; i++) {
+            Course course = new Course();
+            ReflectionTestUtils.setField(course, "id", i);
+            course.setSlug("course-" + i);
+            course.setTitle("Course " + i);
+            course.setShortDescription("Short description " + i);
+            course.setDescription("Long description of course " + i);
+            course.setLevel("BEGINNER");
+            course.setPriceCents(4999);
+            course.setCurrency("USD");
+            course.setIsActive(true);
+            course.setInstructor(instructor);
+            ReflectionTestUtils.setField(course, "ratingSum", 9L);
+            ReflectionTestUtils.setField(course, "ratingCount", 2);
+            coursePage.add(course);
+        }
+        User reviewer = new User();
+        ReflectionTestUtils.setField(reviewer, "id", 7L);
+        reviewer.setEmail("reviewer@example.com");
+        for (int r = 1; r <= 5; r++) {
+            Review review = new Review();
+            review.setUser(reviewer);
+            review.setCourse(coursePage.get(0));
+            review.setRating(r);
+            review.setComment("Review " + r);
+            review.setCreatedAt(Instant.now());
+            recentReviews.add(review);
+        }
+    }
+
+    @Benchmark
+    public List<CourseSummaryDto> courseSummaryPage() {
+        List<CourseSummaryDto> out = new ArrayList<>(coursePage.size());
+        for (Course course : coursePage) {
+            out.add(CourseSummaryDto.fromEntity(course));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public CourseDetailDto courseDetail() {
+        return new CourseDetailDto(coursePage.get(0));
+    }
+
+    @Benchmark
+    public List<ReviewDto> recentReviews() {
+        List<ReviewDto> out = new ArrayList<>(recentReviews.size());
+        for (Review review : recentReviews) {
+            out.add(ReviewDto.fromEntity(review));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.apibackend.payment;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Gateway phase of a 10-item cart checkout (PaymentService.checkoutCartWithSinglePayment) against
+ * InMemoryPaymentGateway with a fixed per-call latency: the previous one-call-after-another loop versus
+ * the concurrent virtual-thread fan-out (PaymentService.createIntents).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartCheckoutBenchmark {
+    @Param({"10"})
+    public int cartItems;
+
+    @Param({"50"})
+    public int gatewayLatencyMillis;
+
+    private InMemoryPaymentGateway gateway;
+    private PaymentService service;
+    private List<PaymentGateway.IntentRequest> requests;
+
+    @Setup
+    public void setup() {
+        gateway = new InMemoryPaymentGateway(Duration.ofMillis(gatewayLatencyMillis));
+        service = new PaymentService(
+                Mockito.mock(PaymentRepository.class),
+                Mockito.mock(com.example.apibackend.course.CourseRepository.class),
+                Mockito.mock(com.example.apibackend.user.UserRepository.class),
+                Mockito.mock(com.example.apibackend.cart.CartRepository.class),
+                Mockito.mock(com.example.apibackend.enrollment.EnrollmentRepository.class),
+                Mockito.mock(PaymentItemRepository.class),
+                gateway,
+                Mockito.mock(JdbcTemplate.class),
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)),
+                new ClientSecretCipher("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA="));
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(15));
+        requests = IntStream.range(0, cartItems)
+                .mapToObj(i -> new PaymentGateway.IntentRequest(1999, "USD", "Course purchase: " + i,
+                        Map.of("paymentId", String.valueOf(i)), "payment-" + i))
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public List<PaymentGateway.Intent> serial() {
+        List<PaymentGateway.Intent> intents = new ArrayList<>(requests.size());
+        for (PaymentGateway.IntentRequest request : requests) {
+            intents.add(gateway.createIntent(request));
+        }
+        return intents;
+    }
+
+    @Benchmark
+    public List<PaymentGateway.Intent> concurrent() {
+        return service.createIntents(requests).intents();
+    }
+}
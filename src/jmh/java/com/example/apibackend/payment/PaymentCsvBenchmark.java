@@ -0,0 +1,44 @@
+package com.example.apibackend.payment;
+
+import com.example.apibackend.report.CsvWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row formatting of the admin payments CSV export (PaymentReportRow.writeCsv),
+ * written through CsvWriter to a discarding stream as the streamed export does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentCsvBenchmark {
+    private PaymentReportRow row;
+    private CsvWriter csv;
+
+    @Setup
+    public void setup() {
+        row = new PaymentReportRow(
+                123456L,
+                "student@example.com",
+                "spring-boot-fundamentals",
+                4999,
+                "USD",
+                Payment.PaymentStatus.SUCCESS,
+                "pi_3NkZ2eLkdIwHu7ix0abcdEFG",
+                Instant.parse("2025-01-15T10:15:30Z"));
+        csv = new CsvWriter(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public CsvWriter formatRow() throws IOException {
+        row.writeCsv(csv);
+        return csv;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.apibackend;
 
+import com.example.apibackend.payment.PaymentGatewayException;
+import com.example.apibackend.payment.PaymentGatewayUnavailableException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
@@ -57,6 +60,19 @@ public class ApiExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(baseBody(HttpStatus.CONFLICT, req, "Conflict", ex.getMessage()));
     }
 
+    // Gateway circuit open or bulkhead full: nothing was charged, the client may retry after the hint
+    @ExceptionHandler({PaymentGatewayUnavailableException.class})
+    public ResponseEntity<?> handleGatewayUnavailable(PaymentGatewayUnavailableException ex, HttpServletRequest req) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(ex.getRetryAfter().toSeconds(), 1)))
+                .body(baseBody(HttpStatus.SERVICE_UNAVAILABLE, req, "Service Unavailable", ex.getMessage()));
+    }
+
+    @ExceptionHandler({PaymentGatewayException.class})
+    public ResponseEntity<?> handleGatewayError(PaymentGatewayException ex, HttpServletRequest req) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(baseBody(HttpStatus.BAD_GATEWAY, req, "Bad Gateway", ex.getMessage()));
+    }
+
     @ExceptionHandler({AccessDeniedException.class})
     @ResponseStatus(HttpStatus.FORBIDDEN)
     public ResponseEntity<?> handleForbidden(Exception ex, HttpServletRequest req) {
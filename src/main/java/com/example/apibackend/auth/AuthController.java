@@ -20,7 +20,6 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.http.ResponseEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -35,13 +34,15 @@ public class AuthController {
     private final PasswordResetTokenRepository passwordResetTokenRepo;
     private final RefreshTokenRepository refreshTokenRepo;
     private final EmailService emailService;
+    private final PrincipalCache principalCache;
 
-    public AuthController(UserRepository userRepo, JwtUtil jwtUtil, PasswordResetTokenRepository passwordResetTokenRepo, RefreshTokenRepository refreshTokenRepo, EmailService emailService) {
+    public AuthController(UserRepository userRepo, JwtUtil jwtUtil, PasswordResetTokenRepository passwordResetTokenRepo, RefreshTokenRepository refreshTokenRepo, EmailService emailService, PrincipalCache principalCache) {
         this.userRepo = userRepo;
         this.jwtUtil = jwtUtil;
         this.passwordResetTokenRepo = passwordResetTokenRepo;
         this.refreshTokenRepo = refreshTokenRepo;
         this.emailService = emailService;
+        this.principalCache = principalCache;
     }
 
     /**
@@ -80,7 +81,7 @@ public class AuthController {
         }
         String token = jwtUtil.createToken(user.getId(), user.getEmail(), user.getRole());
         // Generate refresh token
-        String refreshToken = generateToken();
+        String refreshToken = OpaqueTokenGenerator.generate();
         Instant expiresAt = Instant.now().plusSeconds(7 * 24 * 60 * 60); // 7 days
         refreshTokenRepo.save(new RefreshToken(refreshToken, user.getId(), expiresAt));
         // Set refresh token as HTTP-only cookie
@@ -119,7 +120,7 @@ public class AuthController {
         if (user == null) return ResponseEntity.status(401).body("User not found");
         String newAccessToken = jwtUtil.createToken(user.getId(), user.getEmail(), user.getRole());
         // Optionally rotate refresh token
-        String newRefreshToken = generateToken();
+        String newRefreshToken = OpaqueTokenGenerator.generate();
         tokenEntity.setToken(newRefreshToken);
         tokenEntity.setExpiresAt(Instant.now().plusSeconds(7 * 24 * 60 * 60));
         refreshTokenRepo.save(tokenEntity);
@@ -151,7 +152,7 @@ public class AuthController {
             LocalDateTime now = LocalDateTime.now();
             long validTokens = passwordResetTokenRepo.countByUserIdAndUsedFalseAndExpiresAtAfter(user.getId(), now);
             if (validTokens == 0) {
-                String token = generateToken();
+                String token = OpaqueTokenGenerator.generate();
                 PasswordResetToken prt = new PasswordResetToken();
                 prt.setUser(user);
                 prt.setToken(token);
@@ -181,6 +182,7 @@ public class AuthController {
             User user = prt.getUser();
             user.setPasswordHash(passwordEncoder.encode(req.newPassword));
             userRepo.save(user);
+            principalCache.evict(user.getId());
             prt.setUsed(true);
             passwordResetTokenRepo.save(prt);
             log.info("[PasswordReset] Password reset for user {} via token {}", user.getEmail(), req.token);
@@ -211,16 +213,6 @@ public class AuthController {
         return ResponseEntity.ok().build();
     }
 
-    // Helper: generate a secure random token (32 bytes hex)
-    private String generateToken() {
-        SecureRandom random = new SecureRandom();
-        byte[] bytes = new byte[32];
-        random.nextBytes(bytes);
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) sb.append(String.format("%02x", b));
-        return sb.toString();
-    }
-
     public static class SignupRequest {
         @NotBlank public String email;
         @NotBlank public String password;
@@ -1,6 +1,5 @@
 package com.example.apibackend.auth;
 
-import com.example.apibackend.user.User;
 import com.example.apibackend.user.UserRepository;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
@@ -18,13 +17,17 @@ import java.util.List;
 /**
  * JWT authentication filter: reads Authorization: Bearer <token>, validates, and sets SecurityContext.
  * Stateless: no server-side session, all info is in the token.
+ * The principal is a UserPrincipal resolved through PrincipalCache, so steady-state traffic doesn't hit the users table.
+ * Soft-deleted users are never authenticated.
  */
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
-    public JwtAuthFilter(JwtUtil jwtUtil, UserRepository userRepository) {
+    private final PrincipalCache principalCache;
+    public JwtAuthFilter(JwtUtil jwtUtil, UserRepository userRepository, PrincipalCache principalCache) {
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -38,12 +41,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 String email = claims.getSubject();
                 String role = claims.get("role", String.class);
                 Long userId = claims.get("userId", Long.class);
-                // Load User entity from DB
-                User user = null;
+                // Resolve the active user (cached by id; legacy tokens without userId fall back to email)
+                UserPrincipal user = null;
                 if (userId != null) {
-                    user = userRepository.findById(userId).orElse(null);
+                    user = principalCache.find(userId).filter(p -> !p.deleted()).orElse(null);
                 } else if (email != null) {
-                    user = userRepository.findByEmail(email).orElse(null);
+                    user = userRepository.findByEmailAndDeletedAtIsNull(email).map(UserPrincipal::of).orElse(null);
                 }
                 if (user != null) {
                     var auth = new UsernamePasswordAuthenticationToken(
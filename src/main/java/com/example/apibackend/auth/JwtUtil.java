@@ -1,22 +1,55 @@
 package com.example.apibackend.auth;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.impl.TextCodec;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies access tokens (HS256).
+ * - The signing key is decoded once from security.jwt.secret (Base64, as jjwt's String overloads expect),
+ *   and a single pre-configured parser is reused; it keeps no per-parse state.
+ * - Verified claims are cached by SHA-256 digest of the token, so a bearer re-sent on every request is
+ *   verified once. Entries expire at the token's own exp and the cache is size-bounded.
+ * - Cached Claims are shared between requests: read them, never modify them.
+ */
 @Component
 public class JwtUtil {
-    @Value("${security.jwt.secret}")
-    private String secret;
-    @Value("${security.jwt.issuer}")
-    private String issuer;
-    @Value("${security.jwt.accessTokenTtlMinutes:15}")
-    private int ttlMinutes;
+    private final String issuer;
+    private final int ttlMinutes;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final Cache<String, Claims> verifiedClaims;
+
+    public JwtUtil(@Value("${security.jwt.secret}") String secret,
+                   @Value("${security.jwt.issuer}") String issuer,
+                   @Value("${security.jwt.accessTokenTtlMinutes:15}") int ttlMinutes,
+                   @Value("${security.jwt.claimsCacheSize:10000}") long claimsCacheSize) {
+        this.issuer = issuer;
+        this.ttlMinutes = ttlMinutes;
+        this.signingKey = new SecretKeySpec(TextCodec.BASE64.decode(secret), SignatureAlgorithm.HS256.getJcaName());
+        this.parser = Jwts.parser().setSigningKey(signingKey);
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new ExpireAtTokenExp())
+                .build();
+    }
 
     /**
      * Create a JWT token for the user. Keys and TTL are configured in application.yml.
@@ -30,18 +63,61 @@ public class JwtUtil {
                 .claim("role", role)
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + ttlMinutes * 60_000L))
-                .signWith(SignatureAlgorithm.HS256, secret)
+                .signWith(SignatureAlgorithm.HS256, signingKey)
                 .compact();
     }
 
     /**
      * Validate and parse JWT token. Throws if invalid or expired.
+     * Repeated calls with the same token are served from the verified-claims cache until the token expires.
      */
     public Claims validateToken(String token) throws JwtException {
-        return Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(token)
-                .getBody();
+        if (token == null || token.isEmpty()) {
+            return verify(token); // let jjwt raise its usual exception
+        }
+        String digest = digest(token);
+        Claims cached = verifiedClaims.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = verify(token);
+        // Tokens without exp are not cached: they would never age out on their own
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(digest, claims);
+        }
+        return claims;
     }
-}
 
+    // Full signature check + parse, bypassing the cache (also used by the JMH benchmark)
+    Claims verify(String token) throws JwtException {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Each entry lives until its token's exp claim (never longer), whatever else happens to the cache
+    private static final class ExpireAtTokenExp implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
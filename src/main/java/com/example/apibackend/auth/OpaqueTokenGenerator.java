@@ -0,0 +1,20 @@
+package com.example.apibackend.auth;
+
+import java.security.SecureRandom;
+
+/**
+ * Opaque random tokens for the refresh and password-reset flows (AuthController): 32 random bytes, hex encoded.
+ */
+public final class OpaqueTokenGenerator {
+    private OpaqueTokenGenerator() {
+    }
+
+    public static String generate() {
+        SecureRandom random = new SecureRandom();
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.apibackend.auth;
+
+import com.example.apibackend.config.CacheConfig;
+import com.example.apibackend.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Short-TTL cache of authenticated users keyed by id, so JwtAuthFilter doesn't query `users` on every request.
+ * - Values are UserPrincipal records (id, email, role, deleted flag), never the User entity: the cache can be
+ *   a shared Redis, and the password hash has no business there.
+ * - Soft-deleted users are cached with deleted = true and rejected by the filter; unknown ids are not cached.
+ * - Writers of a user row (profile update, password change/reset, soft delete, restore) must call evict().
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalCache {
+    private final UserRepository userRepository;
+
+    @Cacheable(cacheNames = CacheConfig.PRINCIPALS, key = "#userId", unless = "#result == null")
+    public Optional<UserPrincipal> find(Long userId) {
+        return userRepository.findById(userId).map(UserPrincipal::of);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#userId")
+    public void evict(Long userId) {
+        // eviction handled by @CacheEvict
+    }
+}
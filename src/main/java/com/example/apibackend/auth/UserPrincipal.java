@@ -0,0 +1,17 @@
+package com.example.apibackend.auth;
+
+import com.example.apibackend.user.User;
+
+import java.io.Serializable;
+
+/**
+ * Authenticated user as JwtAuthFilter puts it in the SecurityContext (inject with @AuthenticationPrincipal).
+ * Also what PrincipalCache stores in the shared cache, so it carries only what requests need:
+ * no password hash or other columns of the users row.
+ */
+public record UserPrincipal(Long id, String email, String role, boolean deleted) implements Serializable {
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole(), user.getDeletedAt() != null);
+    }
+}
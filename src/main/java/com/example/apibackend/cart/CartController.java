@@ -1,6 +1,6 @@
 package com.example.apibackend.cart;
 
-import com.example.apibackend.user.User;
+import com.example.apibackend.auth.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -18,9 +18,9 @@ public class CartController {
     @PostMapping("/add")
     public ResponseEntity<?> addCourseToCart(
             @RequestParam Long courseId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
-        cartService.addCourseToCart(user.getId(), courseId);
+        cartService.addCourseToCart(user.id(), courseId);
         return ResponseEntity.ok().body("Course added to cart");
     }
 
@@ -30,9 +30,9 @@ public class CartController {
     @DeleteMapping("/remove")
     public ResponseEntity<?> removeCourseFromCart(
             @RequestParam Long courseId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
-        cartService.removeCourseFromCart(user.getId(), courseId);
+        cartService.removeCourseFromCart(user.id(), courseId);
         return ResponseEntity.ok().body("Course removed from cart");
     }
 
@@ -41,8 +41,8 @@ public class CartController {
      * Gets all items in the user's cart.
      */
     @GetMapping
-    public ResponseEntity<?> getCartItems(@AuthenticationPrincipal User user) {
-        var items = cartService.getCartItems(user.getId());
+    public ResponseEntity<?> getCartItems(@AuthenticationPrincipal UserPrincipal user) {
+        var items = cartService.getCartItems(user.id());
         return ResponseEntity.ok(items);
     }
 
@@ -50,8 +50,8 @@ public class CartController {
      * Clears all items from the user's cart.
      */
     @PostMapping("/clear")
-    public ResponseEntity<?> clearCart(@AuthenticationPrincipal User user) {
-        cartService.clearCart(user.getId());
+    public ResponseEntity<?> clearCart(@AuthenticationPrincipal UserPrincipal user) {
+        cartService.clearCart(user.id());
         return ResponseEntity.ok().body("Cart cleared");
     }
 }
\ No newline at end of file
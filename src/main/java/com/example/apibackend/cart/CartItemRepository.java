@@ -10,12 +10,23 @@ import java.util.List;
 import java.util.Optional;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    List<CartItem> findByCartId(Long cartId);
     boolean existsByCartIdAndCourseId(Long cartId, Long courseId);
     Optional<CartItem> findByCartIdAndCourseId(Long cartId, Long courseId);
 
-    @Modifying(clearAutomatically = true)
+    // Cart view in one round trip: the user's items joined to their courses, in the order they were added
+    @Query("""
+            select new com.example.apibackend.cart.CartItemDto(c.id, c.title, c.priceCents, c.thumbnailUrl)
+            from CartItem ci
+            join ci.cart cart
+            join Course c on c.id = ci.courseId
+            where cart.userId = :userId
+            order by ci.id
+            """)
+    List<CartItemDto> findItemDtosByUserId(@Param("userId") Long userId);
+
+    // Empties the user's cart in one statement; returns the number of items removed
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Transactional
-    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
-    void deleteByCartId(@Param("cartId") Long cartId);
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN (SELECT cart.id FROM Cart cart WHERE cart.userId = :userId)")
+    int deleteByUserId(@Param("userId") Long userId);
 }
@@ -5,5 +5,7 @@ import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserId(Long userId);
+
+    boolean existsByUserId(Long userId);
 }
 
@@ -1,26 +1,38 @@
 package com.example.apibackend.cart;
 
 import com.example.apibackend.enrollment.EnrollmentRepository;
-import com.example.apibackend.course.CourseRepository;
 import com.example.apibackend.user.UserRepository;
 import com.example.apibackend.user.User;
-import com.example.apibackend.course.Course;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-@RequiredArgsConstructor
 public class CartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final EnrollmentRepository enrollmentRepository;
     private final UserRepository userRepository;
-    private final CourseRepository courseRepository;
+    private final Counter clearedItemsCounter;
     private static final Logger logger = LoggerFactory.getLogger(CartService.class);
 
+    public CartService(CartRepository cartRepository,
+                       CartItemRepository cartItemRepository,
+                       EnrollmentRepository enrollmentRepository,
+                       UserRepository userRepository,
+                       MeterRegistry meterRegistry) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.userRepository = userRepository;
+        this.clearedItemsCounter = Counter.builder("cart.items.cleared")
+                .description("Cart items removed by clearCart (checkout or explicit clear)")
+                .register(meterRegistry);
+    }
+
     /**
      * Adds a course to the user's cart, blocking if already enrolled or already in cart.
      */
@@ -70,47 +82,22 @@ public class CartService {
 
     /**
      * Returns all items in the user's cart as DTOs for frontend.
+     * One query: items joined to their courses and found through the cart's user_id (empty if there is no cart).
      */
     @Transactional(readOnly = true)
     public java.util.List<CartItemDto> getCartItems(Long userId) {
-        Cart cart = cartRepository.findByUserId(userId).orElse(null);
-        if (cart == null) {
-            return java.util.Collections.emptyList();
-        }
-        var cartItems = cartItemRepository.findByCartId(cart.getId());
-        java.util.List<CartItemDto> result = new java.util.ArrayList<>();
-        for (CartItem item : cartItems) {
-            Course course = courseRepository.findById(item.getCourseId()).orElse(null);
-            if (course != null) {
-                result.add(new CartItemDto(
-                    course.getId(),
-                    course.getTitle(),
-                    course.getPriceCents(),
-                    course.getThumbnailUrl() // can be null
-                ));
-            }
-        }
-        return result;
+        return cartItemRepository.findItemDtosByUserId(userId);
     }
 
     /**
      * Clears all items from the user's cart.
+     * Called on every successful payment webhook, so it is a single bulk DELETE found through the cart's
+     * user_id: no cart or item rows are loaded, and a user without a cart is a no-op.
      */
     @Transactional
     public void clearCart(Long userId) {
-        Cart cart = cartRepository.findByUserId(userId).orElse(null);
-        if (cart != null) {
-            logger.info("Before clear: cart items count = {}", cart.getItems() != null ? cart.getItems().size() : 0);
-            // Remove all items from the cart's items list and save the cart (triggers orphan removal)
-            if (cart.getItems() != null && !cart.getItems().isEmpty()) {
-                cart.getItems().clear();
-                cartRepository.save(cart);
-                logger.info("After clear: cart items count = {}", cart.getItems().size());
-            }
-            // Also run bulk delete for safety (in case items are not loaded in memory)
-            cartItemRepository.deleteByCartId(cart.getId());
-            logger.info("After bulk delete: cart items count = {}", cartItemRepository.findByCartId(cart.getId()).size());
-            logger.info("Cleared all items from cart for user {} (orphanRemoval + bulk delete)", userId);
-        }
+        int deleted = cartItemRepository.deleteByUserId(userId);
+        clearedItemsCounter.increment(deleted);
+        logger.info("Cleared {} items from cart for user {}", deleted, userId);
     }
 }
@@ -0,0 +1,176 @@
+package com.example.apibackend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the in-process caches of several instances consistent (app.cache.broadcast-invalidations).
+ * - Reads and writes stay local. evict()/clear() apply locally, then are published on a Redis pub/sub
+ *   channel; every other instance applies them to its own copy. An instance skips its own messages.
+ * - Messages are plain text: origin, cache name and a typed key (String slugs and Long ids, the keys that
+ *   are evicted one by one). Any other key type is broadcast as a clear of that cache.
+ * - Pub/sub is fire-and-forget: an instance that is disconnected when a message goes out misses it and
+ *   serves the entry until its TTL expires. A failed publish is logged, never thrown at the writer.
+ */
+public class BroadcastingCacheManager implements CacheManager, MessageListener, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(BroadcastingCacheManager.class);
+
+    private final CacheManager local;
+    private final String channel;
+    private final String origin = UUID.randomUUID().toString();
+    private final StringRedisTemplate publisher;
+    private final RedisMessageListenerContainer subscriber = new RedisMessageListenerContainer();
+    private final Map<String, BroadcastingCache> caches = new ConcurrentHashMap<>();
+
+    public BroadcastingCacheManager(CacheManager local, RedisConnectionFactory connectionFactory, String channel) {
+        this.local = local;
+        this.channel = channel;
+        this.publisher = new StringRedisTemplate(connectionFactory);
+        subscriber.setConnectionFactory(connectionFactory);
+        subscriber.addMessageListener(this, new ChannelTopic(channel));
+        subscriber.afterPropertiesSet();
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = local.getCache(name);
+        return cache == null ? null : caches.computeIfAbsent(name, n -> new BroadcastingCache(cache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return local.getCacheNames();
+    }
+
+    // "<origin> <cache> *" clears the cache, "<origin> <cache> S:<key>" / "L:<key>" evicts one String / Long key
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ", 3);
+        if (parts.length != 3 || origin.equals(parts[0])) {
+            return;
+        }
+        Cache cache = local.getCache(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        String key = parts[2];
+        if (key.startsWith("S:")) {
+            cache.evict(key.substring(2));
+        } else if (key.startsWith("L:")) {
+            cache.evict(Long.valueOf(key.substring(2)));
+        } else {
+            cache.clear();
+        }
+    }
+
+    private void publish(String cacheName, Object key) {
+        String encodedKey = switch (key) {
+            case String s -> "S:" + s;
+            case Long l -> "L:" + l;
+            case null, default -> "*";
+        };
+        try {
+            publisher.convertAndSend(channel, origin + " " + cacheName + " " + encodedKey);
+        } catch (RuntimeException e) {
+            log.warn("Could not broadcast invalidation of {} key {}; other instances keep it until TTL", cacheName, key, e);
+        }
+    }
+
+    @Override
+    public void start() {
+        subscriber.start();
+    }
+
+    @Override
+    public void stop() {
+        subscriber.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return subscriber.isRunning();
+    }
+
+    /**
+     * A local cache whose evictions are broadcast; everything else goes straight to the delegate.
+     */
+    public final class BroadcastingCache implements Cache {
+        private final Cache delegate;
+
+        BroadcastingCache(Cache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return delegate.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return delegate.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return delegate.get(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            delegate.put(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            delegate.evict(key);
+            publish(getName(), key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean evicted = delegate.evictIfPresent(key);
+            publish(getName(), key); // other instances may hold it even if this one didn't
+            return evicted;
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+            publish(getName(), null);
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean invalidated = delegate.invalidate();
+            publish(getName(), null);
+            return invalidated;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.apibackend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.format.support.DefaultFormattingConversionService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Caches for the catalog read path and the authenticated principal, behind Spring's CacheManager.
+ * app.cache.backend picks the implementation; callers (@Cacheable, CatalogCacheInvalidator) don't change:
+ * - local (default): in-process Caffeine caches, bounded (maximumSize) and TTL-evicted (expireAfterWrite).
+ *   With app.cache.broadcast-invalidations, evictions are also published over Redis pub/sub so every
+ *   instance drops its own copy (see BroadcastingCacheManager).
+ * - redis: one shared copy per entry in Redis, TTL taken from the same spec's expireAfterWrite. Size is
+ *   bounded by the Redis server (maxmemory + an LRU eviction policy).
+ * - Cache statistics are published either way (cache.gets, cache.evictions under /actuator/metrics).
+ * - Admin and review writes evict entries through CatalogCacheInvalidator; the TTL is only a safety net.
+ * - A failing cache (e.g. Redis unreachable) is logged and treated as a miss: requests fall through to the database.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig implements CachingConfigurer {
+    public static final String COURSE_DETAIL = "courseDetail";
+    public static final String COURSE_PREVIEW = "coursePreview";
+    public static final String COURSE_SEARCH = "courseSearch";
+    public static final String PRINCIPALS = "principals";
+
+    @Value("${app.cache.specs.course-detail:maximumSize=2000,expireAfterWrite=10m}")
+    private String courseDetailSpec;
+
+    @Value("${app.cache.specs.course-preview:maximumSize=2000,expireAfterWrite=10m}")
+    private String coursePreviewSpec;
+
+    // Course edits and review posts clear search pages (CatalogCacheInvalidator); the short TTL is only a safety net
+    // for writes that bypass it
+    @Value("${app.cache.specs.course-search:maximumSize=1000,expireAfterWrite=60s}")
+    private String courseSearchSpec;
+
+    // Short TTL bounds how long a role/soft-delete change made outside UserProfileController/AuthController stays invisible
+    @Value("${app.cache.specs.principals:maximumSize=10000,expireAfterWrite=60s}")
+    private String principalsSpec;
+
+    @Value("${app.cache.backend:local}")
+    private String backend;
+
+    @Value("${app.cache.broadcast-invalidations:false}")
+    private boolean broadcastInvalidations;
+
+    @Value("${app.cache.invalidation-channel:cache-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${app.cache.redis-key-prefix:lp:cache:}")
+    private String redisKeyPrefix;
+
+    @Bean
+    public CacheManager cacheManager(ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        return switch (backend) {
+            case "local" -> broadcastInvalidations
+                    ? new BroadcastingCacheManager(localCacheManager(), redisConnectionFactory.getObject(), invalidationChannel)
+                    : localCacheManager();
+            case "redis" -> redisCacheManager(redisConnectionFactory.getObject());
+            default -> throw new IllegalStateException("Unknown app.cache.backend '" + backend + "' (expected local or redis)");
+        };
+    }
+
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+
+    // Actuator only knows the concrete cache types; a broadcasting cache reports its Caffeine delegate's stats
+    @Bean
+    public CacheMeterBinderProvider<BroadcastingCacheManager.BroadcastingCache> broadcastingCacheMeterBinderProvider() {
+        return (cache, tags) -> cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache
+                ? new CaffeineCacheMetrics<>(nativeCache, cache.getName(), tags)
+                : null;
+    }
+
+    private CaffeineCacheManager localCacheManager() {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        // Only the caches registered below exist; a typo in a cache name fails instead of creating an unbounded cache
+        manager.setCacheNames(List.of());
+        specs().forEach((name, spec) -> manager.registerCustomCache(name, build(spec)));
+        return manager;
+    }
+
+    private RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+        // Values use JDK serialization (cached DTOs are Serializable records); absent results are never cached
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith(redisKeyPrefix)
+                .disableCachingNullValues()
+                .withConversionService(keyConversionService());
+        Map<String, RedisCacheConfiguration> caches = specs().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> defaults.entryTtl(ttlOf(entry.getValue()))));
+        return RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(caches)
+                .disableCreateOnMissingCache()
+                .enableStatistics()
+                .build();
+    }
+
+    private Map<String, String> specs() {
+        return Map.of(
+                COURSE_DETAIL, courseDetailSpec,
+                COURSE_PREVIEW, coursePreviewSpec,
+                COURSE_SEARCH, courseSearchSpec,
+                PRINCIPALS, principalsSpec);
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> build(String spec) {
+        return Caffeine.from(spec).recordStats().build();
+    }
+
+    // expireAfterWrite of a Caffeine spec ("10m", "60s"...); a spec without one would never expire, so it's rejected
+    static Duration ttlOf(String spec) {
+        for (String option : spec.split(",")) {
+            String[] keyValue = option.trim().split("=", 2);
+            if (keyValue.length == 2 && keyValue[0].trim().equals("expireAfterWrite")) {
+                return DurationStyle.SIMPLE.parse(keyValue[1].trim());
+            }
+        }
+        throw new IllegalStateException("Cache spec '" + spec + "' has no expireAfterWrite, required for the redis backend");
+    }
+
+    // Composite keys (the search cache's {q, level, ...} list) become strings with every element quoted,
+    // so a comma inside a search term can't make two different searches share a key
+    private static DefaultFormattingConversionService keyConversionService() {
+        DefaultFormattingConversionService conversionService = new DefaultFormattingConversionService();
+        RedisCacheConfiguration.registerDefaultConverters(conversionService);
+        conversionService.addConverter(List.class, String.class, list -> ((List<?>) list).stream()
+                .map(element -> element == null ? "null" : '"' + element.toString().replace("\\", "\\\\").replace("\"", "\\\"") + '"')
+                .collect(Collectors.joining(",", "[", "]")));
+        return conversionService;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.apibackend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import java.util.regex.Pattern;
+
+/**
+ * ETags for the catalog responses that have no cheap version of their own: search pages (GET /api/courses)
+ * and course previews (GET /api/courses/{slug}/preview).
+ * - ShallowEtagHeaderFilter hashes the body and answers a matching If-None-Match with 304, so returning
+ *   visitors save the bytes; the body itself usually comes from the catalog caches.
+ * - Course detail is not filtered: CourseController answers it from the content_version ETag before
+ *   assembling anything (see CourseVersion).
+ */
+@Configuration
+public class CatalogHttpCacheConfig {
+    private static final Pattern CATALOG_PAGES = Pattern.compile("/api/courses(/[^/]+/preview)?");
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> catalogEtagFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return !"GET".equals(request.getMethod())
+                        || !CATALOG_PAGES.matcher(request.getRequestURI().substring(request.getContextPath().length())).matches();
+            }
+        };
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/courses", "/api/courses/*");
+        registration.setName("catalogEtagFilter");
+        return registration;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.apibackend.config;
+
+import com.example.apibackend.payment.PaymentGateway;
+import com.example.apibackend.payment.PaymentGatewayException;
+import com.example.apibackend.payment.ResilientPaymentGateway;
+import com.example.apibackend.payment.StripePaymentGateway;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Wires the PaymentGateway bean: StripePaymentGateway wrapped in ResilientPaymentGateway.
+ * Limits come from app.payments.gateway.* (see application.yml); breaker state and bulkhead usage are
+ * exported as resilience4j_circuitbreaker_* / resilience4j_bulkhead_* metrics.
+ */
+@Configuration
+public class PaymentGatewayConfig {
+
+    @Bean
+    public PaymentGateway paymentGateway(MeterRegistry meterRegistry,
+                                         @Value("${app.payments.gateway.connect-timeout:2s}") Duration connectTimeout,
+                                         @Value("${app.payments.gateway.read-timeout:10s}") Duration readTimeout,
+                                         @Value("${app.payments.gateway.max-concurrent-calls:25}") int maxConcurrentCalls,
+                                         @Value("${app.payments.gateway.max-wait:100ms}") Duration maxWait,
+                                         @Value("${app.payments.gateway.failure-rate-threshold:50}") float failureRateThreshold,
+                                         @Value("${app.payments.gateway.slow-call-threshold:5s}") Duration slowCallThreshold,
+                                         @Value("${app.payments.gateway.sliding-window:20}") int slidingWindow,
+                                         @Value("${app.payments.gateway.open-wait:30s}") Duration openWait) {
+        CircuitBreakerRegistry breakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(slidingWindow)
+                .minimumNumberOfCalls(Math.max(slidingWindow / 2, 1))
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .waitDurationInOpenState(openWait)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .recordException(e -> !(e instanceof PaymentGatewayException gatewayError) || gatewayError.isProviderFailure())
+                .build());
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(breakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        return new ResilientPaymentGateway(
+                new StripePaymentGateway(connectTimeout, readTimeout),
+                breakers.circuitBreaker("stripe"),
+                bulkheads.bulkhead("stripe"),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.apibackend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Read-replica routing, on with app.datasource.replica.enabled. When off, Boot's single pool is used as before.
+ * The application DataSource becomes
+ *   LazyConnectionDataSourceProxy -> ReadReplicaRoutingDataSource -> primary / replica HikariCP pools.
+ * - primary: spring.datasource.* and spring.datasource.hikari.*, as without routing.
+ * - replica: app.datasource.replica.url/username/password, pool settings under app.datasource.replica.hikari.*.
+ * - The pools are beans for their lifecycle and property binding, but not autowire candidates: JPA, JdbcTemplate
+ *   and the db health check see only the routing DataSource, so a replica outage doesn't mark the app DOWN.
+ * - Each pool publishes hikaricp.* metrics tagged pool=primary / pool=replica.
+ * Flyway keeps its own connection to the primary (spring.flyway.url).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+    private final DataSourceProperties primaryProperties;
+
+    @Value("${app.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${app.datasource.replica.username}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replica.password}")
+    private String replicaPassword;
+
+    public ReadReplicaConfig(DataSourceProperties primaryProperties) {
+        this.primaryProperties = primaryProperties;
+    }
+
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource() {
+        HikariDataSource pool = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource pool = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        pool.setPoolName("replica");
+        return pool;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(MeterRegistry meterRegistry,
+                                               @Value("${app.datasource.replica.max-lag:2s}") Duration maxLag,
+                                               @Value("${app.datasource.replica.lag-check-interval:1s}") Duration checkInterval) {
+        return new ReplicaLagMonitor(replicaDataSource(), maxLag, checkInterval, meterRegistry);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        HikariDataSource primary = primaryDataSource();
+        HikariDataSource replica = replicaDataSource();
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, replica, lagMonitor, meterRegistry));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.apibackend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends read-only transactions to the read replica and everything else to the primary.
+ * - Replica work is read-only transactions declared in application code (@Transactional(readOnly = true) on a
+ *   service or controller method). Spring Data wraps inherited repository reads (findById, findAll...) in read-only
+ *   transactions of its own; those stay on the primary, so read-modify-write code outside a transaction never
+ *   reads a replica row that is older than what it then writes.
+ * - Must sit behind a LazyConnectionDataSourceProxy: the transaction manager asks for a connection before the
+ *   transaction's read-only flag is published, the proxy defers the checkout to the first statement.
+ * - While ReplicaLagMonitor reports the replica lagging or down, or when a replica checkout fails, the
+ *   connection comes from the primary instead.
+ * - Metrics: datasource.routing.connections{target=primary|replica|fallback}; fallback = replica work served by the primary.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+    private static final String SPRING_DATA_TRANSACTIONS = "org.springframework.data.";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbackConnections;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+        this.primaryConnections = counter(meterRegistry, "primary");
+        this.replicaConnections = counter(meterRegistry, "replica");
+        this.fallbackConnections = counter(meterRegistry, "fallback");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.routing.connections")
+                .description("Connections handed out by the read-replica routing DataSource")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!isReplicaWork()) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        if (lagMonitor.isUsable()) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                lagMonitor.markUnavailable(e);
+            }
+        }
+        fallbackConnections.increment();
+        return primary.getConnection();
+    }
+
+    // Explicit credentials are an account on the primary; such connections are never routed to the replica
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    static boolean isReplicaWork() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name == null || !name.startsWith(SPRING_DATA_TRANSACTIONS);
+    }
+}
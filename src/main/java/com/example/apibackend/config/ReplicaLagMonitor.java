@@ -0,0 +1,138 @@
+package com.example.apibackend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks how far the read replica is behind the primary; ReadReplicaRoutingDataSource only uses it while usable.
+ * - Polls SHOW REPLICA STATUS every app.datasource.replica.lag-check-interval, on a thread of its own: the shared
+ *   @Scheduled thread also runs the outbox/inbox pollers, and a slow batch there must not freeze the lag state.
+ *   The replica is usable while Seconds_Behind_Source is known and at most app.datasource.replica.max-lag.
+ * - Stopped replication (NULL lag), no replica status at all (not a replica, or replication was reset), a failed
+ *   check or a failed connection checkout make it unusable until the next successful check. It starts unusable:
+ *   reads stay on the primary until the first check passes.
+ * - A check result is only trusted for two intervals: if checks stop succeeding or hang, the replica becomes
+ *   unusable once the last successful one is older than that.
+ * - Metrics: datasource.replica.lag (seconds, NaN while unknown), datasource.replica.usable (1/0).
+ */
+public class ReplicaLagMonitor {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final Clock clock;
+    private final ScheduledExecutorService checks =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replica-lag-check").daemon().factory());
+    private volatile boolean usable;
+    private volatile Instant lastSuccessfulCheck = Instant.MIN;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaLagMonitor(DataSource replica, Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry) {
+        this(replica, maxLag, checkInterval, meterRegistry, Clock.systemUTC());
+    }
+
+    ReplicaLagMonitor(DataSource replica, Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry, Clock clock) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        this.clock = clock;
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Seconds the read replica is behind the primary, as of the last check")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, monitor -> monitor.isUsable() ? 1 : 0)
+                .description("1 while read-only transactions are routed to the replica")
+                .register(meterRegistry);
+    }
+
+    public boolean isUsable() {
+        return usable && !clock.instant().isAfter(lastSuccessfulCheck.plus(trustedFor()));
+    }
+
+    /**
+     * Worst-case staleness of a replica read while the replica counts as usable: max-lag, plus the lag
+     * the replica may build up while the last check result is still trusted.
+     */
+    public Duration maxStaleness() {
+        return maxLag.plus(trustedFor());
+    }
+
+    private Duration trustedFor() {
+        return checkInterval.multipliedBy(2);
+    }
+
+    @PostConstruct
+    void start() {
+        checks.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        checks.shutdownNow();
+    }
+
+    void check() {
+        Long lag;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery("SHOW REPLICA STATUS")) {
+            if (!status.next()) {
+                markUnusable(Double.NaN, "server reports no replica status");
+                return;
+            }
+            long seconds = status.getLong("Seconds_Behind_Source");
+            lag = status.wasNull() ? null : seconds;
+        } catch (SQLException e) {
+            markUnusable(Double.NaN, "lag check failed: " + e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            // a throwing task would cancel the schedule: keep checking
+            markUnusable(Double.NaN, "lag check failed: " + e);
+            return;
+        }
+        if (lag == null) {
+            markUnusable(Double.NaN, "replication is not running");
+        } else if (lag > maxLag.toSeconds()) {
+            markUnusable(lag, lag + "s behind, max " + maxLag.toSeconds() + "s");
+        } else {
+            lagSeconds = lag;
+            lastSuccessfulCheck = clock.instant();
+            if (!usable) {
+                log.info("Read replica usable again ({}s behind), routing read-only transactions to it", lag);
+            }
+            usable = true;
+        }
+    }
+
+    /**
+     * Called by the routing DataSource when a replica connection can't be checked out.
+     */
+    void markUnavailable(SQLException cause) {
+        markUnusable(Double.NaN, "connection checkout failed: " + cause.getMessage());
+    }
+
+    private void markUnusable(double lag, String reason) {
+        lagSeconds = lag;
+        if (usable) {
+            log.warn("Read replica unusable ({}), read-only transactions go to the primary", reason);
+        }
+        usable = false;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.apibackend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (e.g. RatingAggregateReconciler).
+ * Kept in its own config class so MVC slice tests don't start the scheduler.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,6 +2,7 @@ package com.example.apibackend.config;
 
 import com.example.apibackend.auth.JwtAuthFilter;
 import com.example.apibackend.auth.JwtUtil;
+import com.example.apibackend.auth.PrincipalCache;
 import com.example.apibackend.user.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -26,6 +27,9 @@ public class SecurityConfig {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Bean
     SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         return http
@@ -48,7 +52,7 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
                 // Register JwtAuthFilter with JwtAuth bean before UsernamePasswordAuthenticationFilter
-                .addFilterBefore(new JwtAuthFilter(jwtUtil, userRepository), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(new JwtAuthFilter(jwtUtil, userRepository, principalCache), UsernamePasswordAuthenticationFilter.class)
                 // enable basic auth if I decide to protect something quickly
                 .httpBasic(Customizer.withDefaults())
                 .build();
@@ -10,6 +10,7 @@ import org.springframework.context.annotation.Configuration;
  * StripeConfig initializes Stripe.apiKey from application config at startup.
  * Use only test mode keys in development. Never hardcode or commit production secrets.
  * For production, load secrets from environment variables or a secure vault.
+ * stripe.apiBase (optional) points the SDK at another API host, e.g. stripe-mock for load tests.
  */
 @Configuration
 @RequiredArgsConstructor
@@ -17,9 +18,15 @@ public class StripeConfig {
     @Value("${stripe.secretKey}")
     private String stripeSecretKey;
 
+    @Value("${stripe.apiBase:}")
+    private String stripeApiBase;
+
     @PostConstruct
     public void initStripe() {
         Stripe.apiKey = stripeSecretKey;
+        if (!stripeApiBase.isBlank()) {
+            Stripe.overrideApiBase(stripeApiBase);
+        }
     }
 }
 
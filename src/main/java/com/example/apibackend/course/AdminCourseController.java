@@ -27,13 +27,15 @@ public class AdminCourseController {
     private final CourseRepository courseRepo;
     private final EnrollmentRepository enrollmentRepo;
     private final PaymentRepository paymentRepo;
+    private final CatalogCacheInvalidator cacheInvalidator;
 
     private static final Logger logger = LoggerFactory.getLogger(AdminCourseController.class);
 
-    public AdminCourseController(CourseRepository courseRepo, EnrollmentRepository enrollmentRepo, PaymentRepository paymentRepo) {
+    public AdminCourseController(CourseRepository courseRepo, EnrollmentRepository enrollmentRepo, PaymentRepository paymentRepo, CatalogCacheInvalidator cacheInvalidator) {
         this.courseRepo = courseRepo;
         this.enrollmentRepo = enrollmentRepo;
         this.paymentRepo = paymentRepo;
+        this.cacheInvalidator = cacheInvalidator;
     }
 
     @GetMapping
@@ -74,6 +76,8 @@ public class AdminCourseController {
         course.setThumbnailUrl(req.thumbnailUrl);
         course.setIsActive(req.published);
         courseRepo.save(course);
+        // A published course can appear on any cached search page
+        cacheInvalidator.courseChanged(course.getSlug());
         logger.info("Course created successfully: id={}, slug={}", course.getId(), course.getSlug());
         // Return CourseDetailDto (assume constructor from Course)
         return ResponseEntity.status(201).body(new CourseDetailDto(course));
@@ -102,6 +106,7 @@ public class AdminCourseController {
             return ResponseEntity.notFound().build();
         }
         var course = courseOpt.get();
+        String previousSlug = course.getSlug();
         // Update editable fields
         if (req.getTitle() != null) course.setTitle(req.getTitle());
         if (req.getSlug() != null && !req.getSlug().equals(course.getSlug())) {
@@ -120,6 +125,9 @@ public class AdminCourseController {
         if (req.getPublished() != null) course.setIsActive(req.getPublished());
         // ...add more editable fields as needed...
         courseRepo.save(course);
+        // Evict under the old slug too in case it was renamed
+        cacheInvalidator.courseChanged(previousSlug);
+        if (!previousSlug.equals(course.getSlug())) cacheInvalidator.courseChanged(course.getSlug());
         logger.info("Course updated successfully: id={}, slug={}", course.getId(), course.getSlug());
         // Return updated CourseDetailDto
         return ResponseEntity.ok(new CourseDetailDto(course));
@@ -134,6 +142,7 @@ public class AdminCourseController {
         var course = courseOpt.get();
         course.setIsActive(true);
         courseRepo.save(course);
+        cacheInvalidator.courseChanged(course.getSlug());
         // Publish is explicit to avoid accidental exposure of incomplete courses
         return ResponseEntity.ok(new CourseDetailDto(course));
     }
@@ -147,6 +156,7 @@ public class AdminCourseController {
         var course = courseOpt.get();
         course.setIsActive(false);
         courseRepo.save(course);
+        cacheInvalidator.courseChanged(course.getSlug());
         return ResponseEntity.ok(new CourseDetailDto(course));
     }
 
@@ -157,6 +167,7 @@ public class AdminCourseController {
             return ResponseEntity.notFound().build();
         }
         courseRepo.deleteById(id);
+        cacheInvalidator.courseChanged(courseOpt.get().getSlug());
         return ResponseEntity.noContent().build();
     }
 
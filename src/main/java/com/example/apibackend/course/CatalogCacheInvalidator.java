@@ -0,0 +1,115 @@
+package com.example.apibackend.course;
+
+import com.example.apibackend.config.CacheConfig;
+import com.example.apibackend.config.ReplicaLagMonitor;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evicts catalog cache entries after admin and review writes.
+ * - Bumps the course's content_version in the writer's transaction, which changes the ETag and
+ *   Last-Modified of GET /api/courses/{slug} (see CourseVersion), so clients and CDNs revalidate.
+ * - Detail and preview entries are keyed by slug and evicted precisely.
+ * - Search pages can contain any course, so course/module/lesson and review changes clear the whole search cache.
+ * - Inside a transaction, eviction runs after commit so a concurrent reader can't re-cache the old row.
+ * - With read-replica routing, a miss right after the write can load the old row from a lagging replica and
+ *   re-cache it, so the evictions run a second time once the replica can have caught up.
+ * - With a remote cache backend an eviction can fail after the write committed; that is logged and the
+ *   entry ages out with its TTL instead of failing the request.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheInvalidator {
+    private static final Logger log = LoggerFactory.getLogger(CatalogCacheInvalidator.class);
+
+    private final CacheManager cacheManager;
+    private final CourseRepository courseRepository;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+
+    /**
+     * A course's own fields, visibility or structure (modules/lessons) changed.
+     */
+    public void courseChanged(String slug) {
+        courseRepository.bumpContentVersionBySlug(slug);
+        afterCommit(() -> {
+            evict(CacheConfig.COURSE_DETAIL, slug);
+            evict(CacheConfig.COURSE_PREVIEW, slug);
+            clear(CacheConfig.COURSE_SEARCH);
+        });
+    }
+
+    public void courseChanged(Long courseId) {
+        courseRepository.findSlugById(courseId).ifPresent(this::courseChanged);
+    }
+
+    /**
+     * Reviews of a course changed: the detail page shows them and its rating summary, search pages show the
+     * course's average rating. Preview lessons don't depend on reviews and stay cached.
+     */
+    public void reviewsChanged(Long courseId) {
+        courseRepository.bumpContentVersion(courseId);
+        courseRepository.findSlugById(courseId)
+                .ifPresent(slug -> afterCommit(() -> {
+                    evict(CacheConfig.COURSE_DETAIL, slug);
+                    clear(CacheConfig.COURSE_SEARCH);
+                }));
+    }
+
+    private void evict(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            try {
+                cache.evict(key);
+            } catch (RuntimeException e) {
+                log.warn("Could not evict {} from {}, it stays until its TTL", key, cacheName, e);
+            }
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            try {
+                cache.clear();
+            } catch (RuntimeException e) {
+                log.warn("Could not clear {}, entries stay until their TTL", cacheName, e);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable evictions = withReplicaReEviction(action);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictions.run();
+                }
+            });
+        } else {
+            evictions.run();
+        }
+    }
+
+    private Runnable withReplicaReEviction(Runnable action) {
+        ReplicaLagMonitor monitor = replicaLagMonitor.getIfAvailable();
+        if (monitor == null) {
+            return action;
+        }
+        long delayMillis = monitor.maxStaleness().toMillis();
+        return () -> {
+            action.run();
+            CompletableFuture.runAsync(action, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+        };
+    }
+}
@@ -85,6 +85,31 @@ public class Course {
     private com.example.apibackend.instructor.Instructor instructor;
     public com.example.apibackend.instructor.Instructor getInstructor() { return instructor; }
 
+    /**
+     * Denormalized review aggregates (V25). Only written through CourseRepository's atomic
+     * UPDATE statements, never by entity saves, so a stale Course can't overwrite them.
+     */
+    @Column(name = "rating_sum", nullable = false, insertable = false, updatable = false)
+    @org.hibernate.annotations.ColumnDefault("0")
+    private Long ratingSum = 0L;
+
+    @Column(name = "rating_count", nullable = false, insertable = false, updatable = false)
+    @org.hibernate.annotations.ColumnDefault("0")
+    private Integer ratingCount = 0;
+
+    /**
+     * Detail representation version (V32), bumped by CatalogCacheInvalidator with an atomic UPDATE;
+     * never written by entity saves. Drives the ETag of GET /api/courses/{slug}.
+     */
+    @Column(name = "content_version", nullable = false, insertable = false, updatable = false)
+    @org.hibernate.annotations.ColumnDefault("0")
+    private Long contentVersion = 0L;
+
+    // Average rating from the precomputed columns, 0.0 when the course has no reviews
+    public double averageRating() {
+        return ratingCount == null || ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
     // Fills shortDescription with long description if not set, compatible with legacy code as description was implemented first
     // Converts currency to uppercase before saving
     @PrePersist @PreUpdate
@@ -0,0 +1,131 @@
+package com.example.apibackend.course;
+
+import com.example.apibackend.config.CacheConfig;
+import com.example.apibackend.instructor.InstructorController.InstructorSummaryDto;
+import com.example.apibackend.lesson.LessonDto;
+import com.example.apibackend.lesson.LessonRepository;
+import com.example.apibackend.module.Module;
+import com.example.apibackend.module.ModuleDto;
+import com.example.apibackend.module.ModuleRepository;
+import com.example.apibackend.review.ReviewDto;
+import com.example.apibackend.review.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Read-side assembly for the public course catalog.
+ * The course detail page is built in a fixed number of queries, whatever the number of modules:
+ * course + instructor, modules, all lessons of the course, recent reviews + authors.
+ * The rating average/count come from the denormalized columns on the course row.
+ * Results are cached (see CacheConfig); writes evict them through CatalogCacheInvalidator.
+ * Unknown slugs are not cached, so a newly created course is visible immediately.
+ */
+@Service
+@RequiredArgsConstructor
+public class CourseCatalogService {
+    static final int RECENT_REVIEWS = 5;
+
+    private final CourseRepository courseRepository;
+    private final ModuleRepository moduleRepository;
+    private final LessonRepository lessonRepository;
+    private final ReviewRepository reviewRepository;
+
+    /**
+     * Returns the detail DTO for an active course, or empty if the slug is unknown/unpublished.
+     */
+    @Cacheable(cacheNames = CacheConfig.COURSE_DETAIL, key = "#slug", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<CourseDetailDto> findCourseDetail(String slug) {
+        return courseRepository.findWithInstructorBySlugAndIsActiveTrue(slug).map(this::toDetailDto);
+    }
+
+    /**
+     * Current version of an active course's detail representation, or empty if the slug is unknown/unpublished.
+     * One indexed lookup, never cached: it decides whether a conditional GET can be answered with 304.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CourseVersion> findCourseVersion(String slug) {
+        return courseRepository.findVersionBySlug(slug);
+    }
+
+    /**
+     * Demo (is_demo=true) lessons of an active course, or empty if the slug is unknown/unpublished.
+     */
+    @Cacheable(cacheNames = CacheConfig.COURSE_PREVIEW, key = "#slug", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<List<LessonDto>> findPreviewLessons(String slug) {
+        return courseRepository.findBySlugAndIsActiveTrue(slug).map(course -> {
+            List<Long> moduleIds = moduleRepository.findByCourseId(course.getId()).stream()
+                    .map(Module::getId)
+                    .collect(Collectors.toList());
+            if (moduleIds.isEmpty()) {
+                return List.<LessonDto>of();
+            }
+            return lessonRepository.findByModuleIdInAndIsDemoTrue(moduleIds).stream()
+                    .map(LessonDto::fromEntity)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * Public catalog search page; filtering, sorting and paging run in the database (CourseRepository.searchActive).
+     * The cache key covers every filter plus page/size/sort, so each distinct page is cached separately.
+     */
+    @Cacheable(cacheNames = CacheConfig.COURSE_SEARCH, key = "{#q, #level, #published, #minRating, #pageable}")
+    @Transactional(readOnly = true)
+    public CourseSearchPage search(String q, String level, Boolean published, Double minRating, Pageable pageable) {
+        return CourseSearchPage.from(
+                courseRepository.searchActive(q, level, published, minRating, pageable).map(CourseSummaryDto::fromEntity));
+    }
+
+    private CourseDetailDto toDetailDto(Course course) {
+        Long courseId = course.getId();
+        InstructorSummaryDto instructorDto = course.getInstructor() != null ? InstructorSummaryDto.fromEntity(course.getInstructor()) : null;
+        // Lessons are loaded once for the whole course and grouped by module id in memory
+        // (lesson.getModule().getId() reads the FK from the proxy, no extra query)
+        List<Module> modules = moduleRepository.findByCourseIdOrderByPositionAsc(courseId);
+        Map<Long, List<LessonDto>> lessonsByModule = lessonRepository.findAllByCourseId(courseId).stream()
+                .collect(Collectors.groupingBy(
+                        lesson -> lesson.getModule().getId(),
+                        Collectors.mapping(LessonDto::fromEntity, Collectors.toList())
+                ));
+        List<ModuleDto> moduleDtos = modules.stream()
+                .map(module -> new ModuleDto(
+                        module.getId(),
+                        module.getTitle(),
+                        module.getPosition(),
+                        lessonsByModule.getOrDefault(module.getId(), List.of())
+                ))
+                .collect(Collectors.toList());
+        List<ReviewDto> recentReviews = reviewRepository.findRecentWithUserByCourseId(courseId, PageRequest.of(0, RECENT_REVIEWS))
+                .stream()
+                .map(ReviewDto::fromEntity)
+                .collect(Collectors.toList());
+        return new CourseDetailDto(
+                courseId,
+                course.getTitle(),
+                course.getPriceCents(),
+                course.getSlug(),
+                course.getLevel(),
+                course.getDescription(),
+                course.getThumbnailUrl(),
+                Boolean.TRUE.equals(course.getIsActive()),
+                moduleDtos,
+                instructorDto,
+                course.averageRating(),
+                course.getRatingCount(),
+                recentReviews,
+                course.getContentVersion(),
+                course.getUpdatedAt()
+        );
+    }
+}
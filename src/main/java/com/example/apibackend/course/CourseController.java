@@ -8,10 +8,12 @@ import com.example.apibackend.lesson.LessonDto;
 import com.example.apibackend.module.ModuleDto;
 import com.example.apibackend.module.ModuleRepository;
 import com.example.apibackend.lesson.LessonRepository;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -22,23 +24,19 @@ import org.springframework.beans.factory.annotation.Value;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.Claims;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.util.Base64;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.nio.charset.StandardCharsets;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import com.example.apibackend.enrollment.EnrollmentRepository;
 import com.example.apibackend.enrollment.Enrollment;
-import com.example.apibackend.review.ReviewRepository;
 import com.example.apibackend.review.Review;
 import com.example.apibackend.review.ReviewDto;
-import com.example.apibackend.instructor.InstructorController.InstructorSummaryDto;
 
 /**
  * Public course catalog endpoints.
@@ -54,87 +52,65 @@ public class CourseController {
     private final ModuleRepository moduleRepo;
     private final LessonRepository lessonRepo;
     private final EnrollmentRepository enrollmentRepo;
-    private final ReviewRepository reviewRepo;
+    private final CourseCatalogService catalogService;
 
     // Constructor injection for all repositories
-    public CourseController(CourseRepository repo, ModuleRepository moduleRepo, LessonRepository lessonRepo, EnrollmentRepository enrollmentRepo, ReviewRepository reviewRepo) {
+    public CourseController(CourseRepository repo, ModuleRepository moduleRepo, LessonRepository lessonRepo, EnrollmentRepository enrollmentRepo, CourseCatalogService catalogService) {
         this.repo = repo;
         this.moduleRepo = moduleRepo;
         this.lessonRepo = lessonRepo;
         this.enrollmentRepo = enrollmentRepo;
-        this.reviewRepo = reviewRepo;
+        this.catalogService = catalogService;
     }
 
     /**
      * GET /api/courses/{slug}
-     * Fetches course, then loads modules and lessons via repositories (avoids N+1 and entity coupling).
-     * Maps to DTOs to avoid lazy loading issues and leaking internal fields.
+     * Course detail with modules, lessons, instructor and review summary.
+     * Assembled by CourseCatalogService in a constant number of queries (no per-module lesson lookups).
+     * Conditional GETs (If-None-Match / If-Modified-Since) are answered with 304 from the course's
+     * version row alone, before any DTO assembly; 200s carry the ETag/Last-Modified of the DTO served.
      */
 
     @GetMapping("/{slug}")
-    public ResponseEntity<CourseDetailDto> getCourseDetail(@PathVariable String slug) {
-        return repo.findBySlugAndIsActiveTrue(slug)
-                .map(course -> {
-                    // Fetch instructor summary
-                    Instructor instructor = course.getInstructor();
-                    InstructorController.InstructorSummaryDto instructorDto = instructor != null ? InstructorController.InstructorSummaryDto.fromEntity(instructor) : null;
-                    // Fetch all modules for this course, ordered by position
-                    List<Module> modules = moduleRepo.findByCourseIdOrderByPositionAsc(course.getId());
-                    List<ModuleDto> moduleDtos = modules.stream().map(module -> {
-                        List<Lesson> lessons = lessonRepo.findByModuleIdOrderByIdAsc(module.getId());
-                        List<LessonDto> lessonDtos = lessons.stream().map(lesson -> new LessonDto(
-                                lesson.getId(),
-                                lesson.getTitle(),
-                                lesson.getType().name(),
-                                lesson.getDurationSeconds(),
-                                lesson.isDemo(),
-                                lesson.getContentUrl()
-                        )).collect(Collectors.toList());
-                        return new ModuleDto(
-                                module.getId(),
-                                module.getTitle(),
-                                module.getPosition(),
-                                lessonDtos
-                        );
-                    }).collect(Collectors.toList());
-                    // Fetch reviews summary
-                    Double avgRating = reviewRepo.findAverageRatingByCourseId(course.getId());
-                    long reviewCount = reviewRepo.countByCourseId(course.getId());
-                    // Fetch 5 most recent reviews
-                    List<Review> recentReviews = reviewRepo.findTop5ByCourseIdOrderByCreatedAtDesc(course.getId());
-                    List<ReviewDto> recentReviewDtos = recentReviews.stream().map(ReviewDto::fromEntity).collect(Collectors.toList());
-                    // Assemble the course detail DTO
-                    return new CourseDetailDto(
-                            course.getId(),
-                            course.getTitle(),
-                            course.getPriceCents(),
-                            course.getSlug(),
-                            course.getLevel(),
-                            course.getDescription(),
-                            course.getThumbnailUrl(),
-                            Boolean.TRUE.equals(course.getIsActive()),
-                            moduleDtos,
-                            instructorDto,
-                            avgRating != null ? avgRating : 0.0,
-                            reviewCount,
-                            recentReviewDtos
-                    );
-                })
-                .map(ResponseEntity::ok)
+    public ResponseEntity<CourseDetailDto> getCourseDetail(@PathVariable String slug, @RequestHeader HttpHeaders requestHeaders) {
+        Optional<CourseVersion> current = catalogService.findCourseVersion(slug);
+        if (current.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (current.get().isNotModified(requestHeaders)) {
+            return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), current.get()).build();
+        }
+        // Validators come from the DTO itself: a cached detail not yet evicted after a write keeps its old ETag
+        return catalogService.findCourseDetail(slug)
+                .map(detail -> withValidators(ResponseEntity.ok(), CourseVersion.of(detail)).body(detail))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder response, CourseVersion version) {
+        response.eTag(version.etag()).cacheControl(catalogCacheControl());
+        if (version.updatedAt() != null) {
+            response.lastModified(version.updatedAt());
+        }
+        return response;
+    }
+
+    // Browsers revalidate (cheap 304s); a CDN in front may serve the same response for shared-max-age
+    private CacheControl catalogCacheControl() {
+        return CacheControl.maxAge(browserMaxAge).sMaxAge(sharedMaxAge).cachePublic();
+    }
+
     /**
      * GET /api/courses with pagination, sorting, and optional filters.
-     * Handles any combination of query params (page, size, sort, q, level, published).
+     * Handles any combination of query params (page, size, sort, q, level, published, minRating).
      * Returns a page of CourseSummaryDto, not JPA entities, for API safety and decoupling.
-     * If no pagination/filter params are provided, returns all active courses as a single page.
+     * Active filter, minRating, sort and paging all run in the database (CourseRepository.searchActive),
+     * so only the requested page and a COUNT query are fetched; pages are cached per filter/page/sort combination.
      *
      * Refactored: Removed strict param matching so partial params work (Spring will always call this method for /api/courses).
      */
 
     @GetMapping
-    public Map<String, Object> searchCourses(
+    public ResponseEntity<Map<String, Object>> searchCourses(
             @PageableDefault(size = 6)
             @SortDefault.SortDefaults({@SortDefault(sort = "title")}) Pageable pageable,
             @RequestParam(required = false) @Size(max = 100) String q,
@@ -142,46 +118,23 @@ public class CourseController {
             @RequestParam(required = false) Boolean published,
             @RequestParam(required = false) Double minRating
     ) {
-        Page<Course> page = repo.search(q, level, published, Pageable.unpaged());
-        // Only include active courses
-        List<Course> allActiveCourses = page.getContent().stream().filter(c -> c.getIsActive()).collect(Collectors.toList());
-        int totalActive = allActiveCourses.size();
-        // Now paginate the active courses manually
-        int pageNumber = pageable.getPageNumber();
-        int pageSize = pageable.getPageSize();
-        int fromIndex = Math.min(pageNumber * pageSize, totalActive);
-        int toIndex = Math.min(fromIndex + pageSize, totalActive);
-        List<Course> pagedActiveCourses = allActiveCourses.subList(fromIndex, toIndex);
-        Page<CourseSummaryDto> dtoPage = new org.springframework.data.domain.PageImpl<>(
-            pagedActiveCourses.stream().map(c -> {
-                Double avgRatingObj = reviewRepo.findAverageRatingByCourseId(c.getId());
-                double avgRating = avgRatingObj != null ? avgRatingObj : 0.0;
-                InstructorSummaryDto instructorSummary = c.getInstructor() != null ? InstructorSummaryDto.fromEntity(c.getInstructor()) : null;
-                return new CourseSummaryDto(
-                    c.getId(),
-                    c.getTitle(),
-                    c.getSlug(),
-                    c.getShortDescription(),
-                    c.getPriceCents(),
-                    c.getLevel(),
-                    c.getIsActive(),
-                    avgRating,
-                    c.getThumbnailUrl(),
-                    instructorSummary
-                );
-            }).collect(Collectors.toList()),
-            pageable,
-            totalActive
-        );
+        CourseSearchPage page = catalogService.search(q, level, published, minRating, pageable);
         Map<String, Object> response = new HashMap<>();
-        response.put("content", dtoPage.getContent());
-        response.put("page", dtoPage.getNumber());
-        response.put("size", dtoPage.getSize());
-        response.put("totalPages", dtoPage.getTotalPages());
-        response.put("totalElements", dtoPage.getTotalElements());
-        return response;
+        response.put("content", page.content());
+        response.put("page", page.page());
+        response.put("size", page.size());
+        response.put("totalPages", page.totalPages());
+        response.put("totalElements", page.totalElements());
+        // ETag for the page body is added by the catalog ShallowEtagHeaderFilter (CatalogHttpCacheConfig)
+        return ResponseEntity.ok().cacheControl(catalogCacheControl()).body(response);
     }
 
+    @Value("${app.catalog.http-cache.max-age:0s}")
+    private Duration browserMaxAge;
+
+    @Value("${app.catalog.http-cache.shared-max-age:60s}")
+    private Duration sharedMaxAge;
+
     @Value("${app.secret:defaultSecret}")
     private String appSecret;
 
@@ -213,7 +166,7 @@ public class CourseController {
         // Generate expiry (10 min from now)
         Instant expiresAt = Instant.now().plus(10, ChronoUnit.MINUTES);
         String payload = lessonId + ":" + expiresAt.getEpochSecond();
-        String token = signHmac(payload, appSecret);
+        String token = MediaTokenSigner.sign(payload, appSecret);
         // Never expose raw media URLs! Instead, issue a token for secure access.
         // In production, use a CDN/S3 signed URL here.
         return ResponseEntity.ok(new DemoTokenResponse(token, expiresAt.toString()));
@@ -259,24 +212,12 @@ public class CourseController {
         // Generate short-lived token (HMAC stub)
         Instant expiresAt = Instant.now().plus(10, ChronoUnit.MINUTES);
         String payload = lessonId + ":" + userId + ":" + expiresAt.getEpochSecond();
-        String playbackToken = signHmac(payload, mediaHmacSecret);
+        String playbackToken = MediaTokenSigner.sign(payload, mediaHmacSecret);
         // Never expose raw media URLs! Instead, issue a token for secure access.
         // In production, use a CDN/S3 signed URL here.
         return ResponseEntity.ok(new DemoTokenResponse(playbackToken, expiresAt.toString()));
     }
 
-    // HMAC signing helper
-    private String signHmac(String data, String secret) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] hmac = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac) + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(data.getBytes(StandardCharsets.UTF_8));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to sign token", e);
-        }
-    }
-
     // Helper to extract userId from JWT
     private Long extractUserIdFromJwt(String token) {
         try {
@@ -314,23 +255,8 @@ public class CourseController {
      */
     @GetMapping("/{slug}/preview")
     public ResponseEntity<List<LessonDto>> getCoursePreview(@PathVariable String slug) {
-        var course = repo.findBySlugAndIsActiveTrue(slug).orElse(null);
-        if (course == null) return ResponseEntity.notFound().build();
-        // Fetch all modules for this course
-        List<Module> modules = moduleRepo.findByCourseId(course.getId());
-        List<Long> moduleIds = new java.util.ArrayList<>();
-        for (Module m : modules) moduleIds.add(m.getId());
-        // Fetch demo lessons for these modules
-        List<Lesson> demoLessons = moduleIds.isEmpty() ? java.util.Collections.emptyList() : lessonRepo.findByModuleIdInAndIsDemoTrue(moduleIds);
-        List<LessonDto> dtos = new java.util.ArrayList<>();
-        for (Lesson lesson : demoLessons) dtos.add(new LessonDto(
-            lesson.getId(),
-            lesson.getTitle(),
-            lesson.getType().name(),
-            lesson.getDurationSeconds(),
-            lesson.isDemo(),
-                lesson.getContentUrl()
-        ));
-        return ResponseEntity.ok(dtos);
+        return catalogService.findPreviewLessons(slug)
+                .map(lessons -> ResponseEntity.ok().cacheControl(catalogCacheControl()).body(lessons))
+                .orElse(ResponseEntity.notFound().build());
     }
 }
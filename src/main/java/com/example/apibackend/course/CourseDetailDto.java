@@ -1,10 +1,19 @@
 package com.example.apibackend.course;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.io.Serializable;
+import java.time.Instant;
 import java.util.List;
 import com.example.apibackend.module.ModuleDto;
 import com.example.apibackend.instructor.InstructorController.InstructorSummaryDto;
 import com.example.apibackend.review.ReviewDto;
 
+/**
+ * Public course detail. version/updatedAt identify the representation, so a cached DTO always
+ * carries the validators it was built with (see CourseVersion). They reach clients only as the
+ * ETag/Last-Modified headers, not in the JSON body.
+ */
 public record CourseDetailDto(
         Long id,
         String title,
@@ -18,8 +27,10 @@ public record CourseDetailDto(
         InstructorSummaryDto instructor,
         double avgRating,
         long reviewCount,
-        List<ReviewDto> recentReviews
-) {
+        List<ReviewDto> recentReviews,
+        @JsonIgnore long version,      // content_version the DTO was built from; the response ETag is derived from it
+        @JsonIgnore Instant updatedAt  // Last-Modified
+) implements Serializable {
     public CourseDetailDto(Course course) {
         this(course.getId(),
             course.getTitle(),
@@ -33,7 +44,9 @@ public record CourseDetailDto(
             null,
             0.0,
             0L,
-            List.of() // No reviews for admin create response
+            List.of(), // No reviews for admin create response
+            course.getContentVersion() != null ? course.getContentVersion() : 0L,
+            course.getUpdatedAt()
         );
     }
 }
@@ -16,6 +16,10 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     // Derived query method: SELECT * FROM courses WHERE slug=? AND is_active=1 LIMIT 1
     Optional<Course> findBySlugAndIsActiveTrue(String slug);
 
+    // Same lookup with the instructor fetched in the same SELECT (course detail page)
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = "instructor")
+    Optional<Course> findWithInstructorBySlugAndIsActiveTrue(String slug);
+
     /**
      * Custom search for courses with optional filters and pagination.
      * Uses JPQL to support case-insensitive search on title/description and exact match on level.
@@ -34,8 +38,101 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
         org.springframework.data.domain.Pageable pageable
     );
 
+    /**
+     * Public catalog search: only active courses, with optional text/level/rating filters.
+     * Sorting and paging come from the Pageable, so only one page of rows (plus a COUNT) leaves the database.
+     * minRating compares against the denormalized rating_sum/rating_count columns (no reviews subquery);
+     * unrated courses never match a minRating filter.
+     */
+    @org.springframework.data.jpa.repository.Query(value = """
+        SELECT c FROM Course c
+        WHERE c.isActive = true
+          AND (:published IS NULL OR c.isActive = :published)
+          AND (:q IS NULL OR LOWER(c.title) LIKE LOWER(CONCAT('%', :q, '%')) OR LOWER(c.description) LIKE LOWER(CONCAT('%', :q, '%')))
+          AND (:level IS NULL OR c.level = :level)
+          AND (:minRating IS NULL OR (c.ratingCount > 0 AND 1.0 * c.ratingSum / c.ratingCount >= :minRating))
+    """, countQuery = """
+        SELECT COUNT(c) FROM Course c
+        WHERE c.isActive = true
+          AND (:published IS NULL OR c.isActive = :published)
+          AND (:q IS NULL OR LOWER(c.title) LIKE LOWER(CONCAT('%', :q, '%')) OR LOWER(c.description) LIKE LOWER(CONCAT('%', :q, '%')))
+          AND (:level IS NULL OR c.level = :level)
+          AND (:minRating IS NULL OR (c.ratingCount > 0 AND 1.0 * c.ratingSum / c.ratingCount >= :minRating))
+    """)
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = "instructor")
+    org.springframework.data.domain.Page<Course> searchActive(
+        @org.springframework.data.repository.query.Param("q") String q,
+        @org.springframework.data.repository.query.Param("level") String level,
+        @org.springframework.data.repository.query.Param("published") Boolean published,
+        @org.springframework.data.repository.query.Param("minRating") Double minRating,
+        org.springframework.data.domain.Pageable pageable
+    );
+
+    // Slug only, for cache eviction after module/lesson/review writes
+    @org.springframework.data.jpa.repository.Query("SELECT c.slug FROM Course c WHERE c.id = :id")
+    Optional<String> findSlugById(@org.springframework.data.repository.query.Param("id") Long id);
+
+    // Conditional GET check for the detail page: id, content version and updated_at of an active course
+    @org.springframework.data.jpa.repository.Query("""
+        SELECT new com.example.apibackend.course.CourseVersion(c.id, c.contentVersion, c.updatedAt)
+        FROM Course c WHERE c.slug = :slug AND c.isActive = true
+    """)
+    Optional<CourseVersion> findVersionBySlug(@org.springframework.data.repository.query.Param("slug") String slug);
+
+    // New detail representation: bump content_version so ETag changes (updated_at follows through its
+    // ON UPDATE CURRENT_TIMESTAMP, which moves Last-Modified).
+    // Runs in the caller's transaction, or its own when called outside one.
+    @org.springframework.transaction.annotation.Transactional
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query("UPDATE Course c SET c.contentVersion = c.contentVersion + 1 WHERE c.slug = :slug")
+    int bumpContentVersionBySlug(@org.springframework.data.repository.query.Param("slug") String slug);
+
+    @org.springframework.transaction.annotation.Transactional
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query("UPDATE Course c SET c.contentVersion = c.contentVersion + 1 WHERE c.id = :id")
+    int bumpContentVersion(@org.springframework.data.repository.query.Param("id") Long id);
+
     boolean existsBySlug(@NotBlank @Size(max = 255) String slug);
 
+    // Courses in a user's cart, in the order they were added: one joined SELECT instead of cart + items + a lookup per item
+    @org.springframework.data.jpa.repository.Query("""
+        SELECT c FROM CartItem ci
+        JOIN ci.cart cart
+        JOIN Course c ON c.id = ci.courseId
+        WHERE cart.userId = :userId
+        ORDER BY ci.id
+    """)
+    List<Course> findInCartOfUser(@org.springframework.data.repository.query.Param("userId") Long userId);
+
     // Returns all courses taught by a given instructor
     List<Course> findByInstructorId(Long instructorId);
+
+    // Atomic aggregate maintenance for review writes (no read-modify-write race between concurrent reviews)
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query("UPDATE Course c SET c.ratingSum = c.ratingSum + :rating, c.ratingCount = c.ratingCount + 1 WHERE c.id = :courseId")
+    int addRating(@org.springframework.data.repository.query.Param("courseId") Long courseId, @org.springframework.data.repository.query.Param("rating") long rating);
+
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query("UPDATE Course c SET c.ratingSum = c.ratingSum - :rating, c.ratingCount = c.ratingCount - 1 WHERE c.id = :courseId AND c.ratingCount > 0")
+    int removeRating(@org.springframework.data.repository.query.Param("courseId") Long courseId, @org.springframework.data.repository.query.Param("rating") long rating);
+
+    /**
+     * Recomputes rating_sum/rating_count from the reviews table for every course whose stored values drifted.
+     * Returns the number of corrected courses.
+     */
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query(value = """
+        UPDATE courses c
+        LEFT JOIN (
+            SELECT course_id, SUM(rating) AS rating_sum, COUNT(*) AS rating_count
+            FROM reviews
+            GROUP BY course_id
+        ) r ON r.course_id = c.id
+        SET c.rating_sum = COALESCE(r.rating_sum, 0),
+            c.rating_count = COALESCE(r.rating_count, 0),
+            c.content_version = c.content_version + 1
+        WHERE c.rating_sum <> COALESCE(r.rating_sum, 0)
+           OR c.rating_count <> COALESCE(r.rating_count, 0)
+    """, nativeQuery = true)
+    int reconcileRatingAggregates();
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.apibackend.course;
+
+import org.springframework.data.domain.Page;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of public catalog search results.
+ * Plain record (not a Spring Data Page) so it can be cached and serialized as-is.
+ */
+public record CourseSearchPage(
+        List<CourseSummaryDto> content,
+        int page,
+        int size,
+        int totalPages,
+        long totalElements
+) implements Serializable {
+    public static CourseSearchPage from(Page<CourseSummaryDto> page) {
+        return new CourseSearchPage(
+                page.getContent(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalPages(),
+                page.getTotalElements()
+        );
+    }
+}
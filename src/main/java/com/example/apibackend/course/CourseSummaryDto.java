@@ -2,6 +2,8 @@ package com.example.apibackend.course;
 
 import com.example.apibackend.instructor.InstructorController.InstructorSummaryDto;
 
+import java.io.Serializable;
+
 /**
  * DTO for paged course summaries in API responses.
  * Only exposes safe, necessary fields for the client.
@@ -17,4 +19,20 @@ public record CourseSummaryDto(
     double averageRating,
     String thumbnailUrl,
     InstructorSummaryDto instructor
-) {}
\ No newline at end of file
+) implements Serializable {
+    // averageRating comes from the denormalized courses.rating_sum/rating_count, no review query
+    public static CourseSummaryDto fromEntity(Course c) {
+        return new CourseSummaryDto(
+            c.getId(),
+            c.getTitle(),
+            c.getSlug(),
+            c.getShortDescription(),
+            c.getPriceCents(),
+            c.getLevel(),
+            c.getIsActive(),
+            c.averageRating(),
+            c.getThumbnailUrl(),
+            c.getInstructor() != null ? InstructorSummaryDto.fromEntity(c.getInstructor()) : null
+        );
+    }
+}
\ No newline at end of file
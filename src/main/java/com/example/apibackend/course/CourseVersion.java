@@ -0,0 +1,40 @@
+package com.example.apibackend.course;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Change marker of a course's public detail representation: the content_version counter (V32) plus the
+ * row's updated_at. Read with one indexed lookup, before any DTO assembly, to answer conditional GETs.
+ */
+public record CourseVersion(Long id, long version, Instant updatedAt) {
+
+    static CourseVersion of(CourseDetailDto detail) {
+        return new CourseVersion(detail.id(), detail.version(), detail.updatedAt());
+    }
+
+    // Strong validator: the version changes with every write that changes the detail JSON
+    public String etag() {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * True if the client's cached copy is current. If-None-Match decides when present (weak comparison,
+     * as RFC 9110 prescribes for it); If-Modified-Since is only consulted without it.
+     */
+    public boolean isNotModified(HttpHeaders requestHeaders) {
+        var ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String etag = etag();
+            return ifNoneMatch.stream()
+                    .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                    .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        // HTTP dates have second precision
+        return ifModifiedSince >= 0 && updatedAt != null
+                && updatedAt.truncatedTo(ChronoUnit.SECONDS).toEpochMilli() <= ifModifiedSince;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.apibackend.course;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * HMAC-SHA256 signing of demo/playback lesson tokens: base64url(hmac) + "." + base64url(payload).
+ */
+public final class MediaTokenSigner {
+    private MediaTokenSigner() {
+    }
+
+    public static String sign(String data, String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] hmac = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac) + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(data.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to sign token", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.apibackend.course;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Nightly safety net for the denormalized courses.rating_sum/rating_count columns.
+ * Review writes keep them in sync atomically; this only repairs drift from manual SQL,
+ * restored backups or bugs, with a single grouped UPDATE that touches drifted rows only.
+ */
+@Component
+@RequiredArgsConstructor
+public class RatingAggregateReconciler {
+    private static final Logger log = LoggerFactory.getLogger(RatingAggregateReconciler.class);
+
+    private final CourseRepository courseRepository;
+
+    @Scheduled(cron = "${app.ratings.reconcile-cron:0 30 3 * * *}")
+    @Transactional
+    public int reconcile() {
+        int corrected = courseRepository.reconcileRatingAggregates();
+        if (corrected > 0) {
+            log.warn("Corrected rating aggregates for {} course(s)", corrected);
+        }
+        return corrected;
+    }
+}
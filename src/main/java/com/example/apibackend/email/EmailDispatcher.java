@@ -0,0 +1,245 @@
+package com.example.apibackend.email;
+
+import com.example.apibackend.queue.LeasedQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the emails queued in email_outbox by EmailService.
+ * - EmailService wakes the dispatcher after the enqueuing transaction commits; a scheduled poll is the
+ *   safety net (crashes, retries that became due, wakeups dropped while a drain was already queued).
+ * - Each drain claims a batch through LeasedQueue (SELECT ... FOR UPDATE SKIP LOCKED, then SENDING with
+ *   a lease), so several instances can run side by side. Receipt items of a payment are claimed together even across batch
+ *   boundaries.
+ * - Claimed rows are coalesced per (recipient, kind, payment): a cart payment yields one receipt listing
+ *   all its courses. Messages go to the transport on a bounded worker pool, outside any transaction,
+ *   so provider latency never holds database locks.
+ * - A failed send puts the rows back to PENDING with exponential backoff, and to FAILED after max-attempts.
+ * - Metrics: email.outbox.depth (queued + in flight), email.outbox.messages{outcome=sent|retry|failed}.
+ */
+@Component
+public class EmailDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(EmailDispatcher.class);
+    private static final Set<OutboxEmail.Status> UNSENT = Set.of(OutboxEmail.Status.PENDING, OutboxEmail.Status.SENDING);
+
+    private final OutboxEmailRepository outbox;
+    private final EmailTransport transport;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+    private final ExecutorService senders;
+    private final ThreadPoolExecutor wakeups;
+    private final LeasedQueue queue;
+
+    private final AtomicLong depth = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+
+    public EmailDispatcher(OutboxEmailRepository outbox,
+                           EmailTransport transport,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.email.workers:2}") int workerCount,
+                           @Value("${app.email.batch-size:100}") int batchSize,
+                           @Value("${app.email.max-attempts:8}") int maxAttempts,
+                           @Value("${app.email.lease:5m}") Duration lease,
+                           @Value("${app.email.base-backoff:30s}") Duration baseBackoff) {
+        this(outbox, transport, new TransactionTemplate(transactionManager), meterRegistry, Clock.systemUTC(),
+                workerCount, batchSize, maxAttempts, lease, baseBackoff);
+    }
+
+    EmailDispatcher(OutboxEmailRepository outbox,
+                    EmailTransport transport,
+                    TransactionTemplate tx,
+                    MeterRegistry meterRegistry,
+                    Clock clock,
+                    int workerCount, int batchSize, int maxAttempts, Duration lease, Duration baseBackoff) {
+        this.outbox = outbox;
+        this.transport = transport;
+        this.tx = tx;
+        this.clock = clock;
+        this.senders = Executors.newFixedThreadPool(workerCount, Thread.ofPlatform().name("email-sender-", 0).daemon().factory());
+        // One drain at a time per instance, plus at most one queued: further wakeups are redundant and dropped
+        this.wakeups = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                Thread.ofPlatform().name("email-dispatch").daemon().factory(), new ThreadPoolExecutor.DiscardPolicy());
+        this.queue = new LeasedQueue(outbox, batchSize, maxAttempts, lease, baseBackoff);
+        Gauge.builder("email.outbox.depth", depth, AtomicLong::get)
+                .description("Emails queued but not yet sent")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("email.outbox.messages").tag("outcome", "sent").register(meterRegistry);
+        this.retryCounter = Counter.builder("email.outbox.messages").tag("outcome", "retry").register(meterRegistry);
+        this.failedCounter = Counter.builder("email.outbox.messages").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Asks for a drain soon, without blocking the caller. Called by EmailService after commit.
+     */
+    public void wakeUp() {
+        wakeups.execute(this::drainQuietly);
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.poll-delay:10s}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Claims and sends batches until the outbox has nothing claimable, then refreshes the depth gauge.
+     */
+    public void drain() {
+        List<OutboxEmail> batch;
+        do {
+            batch = claimBatch();
+            List<CompletableFuture<Void>> running = new ArrayList<>();
+            for (List<OutboxEmail> group : coalesce(batch)) {
+                running.add(CompletableFuture.runAsync(() -> send(group), senders));
+            }
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+        } while (batch.size() >= queue.batchSize());
+        depth.set(outbox.countByStatusIn(UNSENT));
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.error("Email outbox drain failed, next poll will retry", e);
+        }
+    }
+
+    List<OutboxEmail> claimBatch() {
+        return tx.execute(status -> {
+            Instant now = clock.instant();
+            Set<Long> ids = new LinkedHashSet<>(queue.lockBatch(now));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            List<Long> paymentIds = outbox.findPaymentIds(ids);
+            if (!paymentIds.isEmpty()) {
+                ids.addAll(outbox.lockClaimableReceiptItems(paymentIds, now));
+            }
+            queue.claim(ids, now);
+            return outbox.findAllById(ids).stream().sorted(Comparator.comparing(OutboxEmail::getId)).toList();
+        });
+    }
+
+    // One group per message: same recipient, kind and payment (null for confirmations), in claim order
+    static Collection<List<OutboxEmail>> coalesce(List<OutboxEmail> rows) {
+        Map<List<Object>, List<OutboxEmail>> groups = new LinkedHashMap<>();
+        for (OutboxEmail row : rows) {
+            List<Object> key = Arrays.asList(row.getRecipient(), row.getKind(), row.getPaymentId());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+        }
+        return groups.values();
+    }
+
+    void send(List<OutboxEmail> group) {
+        List<Long> ids = group.stream().map(OutboxEmail::getId).toList();
+        try {
+            transport.send(render(group));
+        } catch (RuntimeException e) {
+            recordFailure(ids, e);
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> outbox.markSent(ids, clock.instant()));
+            sentCounter.increment();
+        } catch (RuntimeException e) {
+            // the lease expires and the message may be sent twice; better than losing it
+            log.error("Email to {} was sent but rows {} could not be marked SENT", group.get(0).getRecipient(), ids, e);
+        }
+    }
+
+    private void recordFailure(List<Long> ids, RuntimeException cause) {
+        try {
+            tx.executeWithoutResult(status -> {
+                Instant now = clock.instant();
+                boolean gaveUp = false;
+                for (OutboxEmail row : outbox.findAllById(ids)) {
+                    gaveUp |= queue.recordFailure(row, cause, now);
+                }
+                if (gaveUp) {
+                    failedCounter.increment();
+                    log.error("Email rows {} failed {} times, giving up", ids, queue.maxAttempts(), cause);
+                } else {
+                    retryCounter.increment();
+                    log.warn("Email rows {} failed to send, will retry: {}", ids, cause.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            // the lease expires and the rows are retried anyway
+            log.error("Could not record failure of email rows {}", ids, e);
+        }
+    }
+
+    static EmailMessage render(List<OutboxEmail> group) {
+        OutboxEmail first = group.get(0);
+        List<String> titles = group.stream().map(OutboxEmail::getCourseTitle).filter(Objects::nonNull).distinct().toList();
+        StringBuilder body = new StringBuilder();
+        if (first.getKind() == OutboxEmail.Kind.PAYMENT_RECEIPT) {
+            body.append("Thank you for your purchase.\n\n");
+            appendCourses(body, titles);
+            if (first.getAmountCents() != null) {
+                body.append("\nTotal: ")
+                        .append(String.format(Locale.ROOT, "%d.%02d", first.getAmountCents() / 100, first.getAmountCents() % 100))
+                        .append(' ').append(first.getCurrency()).append('\n');
+            }
+            return new EmailMessage(first.getRecipient(), "Your receipt for payment #" + first.getPaymentId(), body.toString());
+        }
+        String subject = switch (titles.size()) {
+            case 0 -> "Enrollment confirmation";
+            case 1 -> "You're enrolled in " + titles.get(0);
+            default -> "You're enrolled in " + titles.size() + " courses";
+        };
+        body.append("Your enrollment is active.\n\n");
+        appendCourses(body, titles);
+        return new EmailMessage(first.getRecipient(), subject, body.toString());
+    }
+
+    private static void appendCourses(StringBuilder body, List<String> titles) {
+        if (titles.isEmpty()) {
+            return;
+        }
+        body.append("Courses:\n");
+        for (String title : titles) {
+            body.append("- ").append(title).append('\n');
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        wakeups.shutdown();
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.apibackend.email;
+
+/**
+ * A rendered email, ready to hand to an EmailTransport.
+ */
+public record EmailMessage(String to, String subject, String body) {
+}
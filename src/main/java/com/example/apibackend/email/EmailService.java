@@ -8,40 +8,62 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Queues outbound emails; EmailDispatcher renders and sends them.
+ * - Each call inserts an email_outbox row in the caller's transaction, so an email exists if and only if
+ *   the business change that triggered it committed (a rolled-back webhook sends nothing).
+ * - The dispatcher is woken after commit; no provider call ever happens while the caller holds DB locks.
+ * - Items of one cart payment are coalesced by the dispatcher into a single receipt.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
     private static final Logger log = LoggerFactory.getLogger(EmailService.class);
 
+    private final OutboxEmailRepository outbox;
+    private final EmailDispatcher dispatcher;
+
     // Config flag to enable/disable emails in dev
     @Value("${email.enabled:true}")
     private boolean emailEnabled;
 
     /**
-     * Sends a payment receipt email to the user (stub: logs for now).
-     * In production, integrate SES/SendGrid here.
+     * Queues a payment receipt for the user; one receipt is sent per payment, listing every course.
      */
     public void sendPaymentReceipt(User user, Course course, Payment payment) {
         if (!emailEnabled) {
             log.info("[EmailService] Email disabled by config. Skipping payment receipt for user {}", user.getEmail());
             return;
         }
-        // Stub: log the email event. Replace with SES/SendGrid integration in production.
-        log.info("[EmailService] Sent payment receipt to {} for course {} (paymentId={})", user.getEmail(), course.getTitle(), payment.getId());
+        enqueue(OutboxEmail.paymentReceipt(user.getEmail(), payment.getId(), course != null ? course.getTitle() : null,
+                payment.getAmountCents(), payment.getCurrency()));
     }
 
     /**
-     * Sends an enrollment confirmation email to the user (stub: logs for now).
-     * In production, integrate SES/SendGrid here.
+     * Queues an enrollment confirmation for the user; confirmations drained together are sent as one email.
      */
     public void sendEnrollmentConfirmation(User user, Course course) {
         if (!emailEnabled) {
             log.info("[EmailService] Email disabled by config. Skipping enrollment confirmation for user {}", user.getEmail());
             return;
         }
-        // Stub: log the email event. Replace with SES/SendGrid integration in production.
-        log.info("[EmailService] Sent enrollment confirmation to {} for course {}", user.getEmail(), course.getTitle());
+        enqueue(OutboxEmail.enrollmentConfirmation(user.getEmail(), course != null ? course.getTitle() : null));
     }
-}
 
+    private void enqueue(OutboxEmail email) {
+        outbox.save(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wakeUp();
+                }
+            });
+        } else {
+            dispatcher.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.apibackend.email;
+
+/**
+ * Delivers a rendered message to the provider (SES/SendGrid/SMTP).
+ * Called by EmailDispatcher outside any transaction; throw to have the message retried with backoff.
+ */
+public interface EmailTransport {
+    void send(EmailMessage message);
+}
@@ -0,0 +1,19 @@
+package com.example.apibackend.email;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default transport until a real provider is wired in: logs each message instead of sending it.
+ * Swap this class for the SES/SendGrid integration in production.
+ */
+@Component
+public class LoggingEmailTransport implements EmailTransport {
+    private static final Logger log = LoggerFactory.getLogger(LoggingEmailTransport.class);
+
+    @Override
+    public void send(EmailMessage message) {
+        log.info("[EmailService] Sent \"{}\" to {}", message.subject(), message.to());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.apibackend.email;
+
+import com.example.apibackend.queue.LeasedRow;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One queued email item in the email_outbox table (V28).
+ * Rows are inserted by EmailService inside the caller's transaction and moved through
+ * PENDING -> SENDING -> SENT (or FAILED) by EmailDispatcher. Several rows with the same
+ * (recipient, kind, paymentId) are sent as one message, e.g. one receipt for a whole cart payment.
+ */
+@Getter
+@Entity
+@Table(name = "email_outbox")
+public class OutboxEmail implements LeasedRow {
+    public enum Kind { PAYMENT_RECEIPT, ENROLLMENT_CONFIRMATION }
+
+    public enum Status { PENDING, SENDING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 255)
+    private String recipient;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Kind kind;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "course_title", length = 255)
+    private String courseTitle;
+
+    @Column(name = "amount_cents")
+    private Integer amountCents;
+
+    @Column(length = 3, columnDefinition = "CHAR(3)")
+    private String currency;
+
+    @Setter
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Setter
+    @Column(nullable = false)
+    private int attempts;
+
+    @Setter
+    @Column(name = "last_error", length = 512)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
+
+    @Setter
+    @Column(name = "next_attempt_at", nullable = false, insertable = false)
+    private Instant nextAttemptAt;
+
+    @Setter
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    protected OutboxEmail() {
+    }
+
+    private OutboxEmail(String recipient, Kind kind, Long paymentId, String courseTitle, Integer amountCents, String currency) {
+        this.recipient = recipient;
+        this.kind = kind;
+        this.paymentId = paymentId;
+        this.courseTitle = courseTitle;
+        this.amountCents = amountCents;
+        this.currency = currency;
+    }
+
+    static OutboxEmail paymentReceipt(String recipient, Long paymentId, String courseTitle, Integer amountCents, String currency) {
+        return new OutboxEmail(recipient, Kind.PAYMENT_RECEIPT, paymentId, courseTitle, amountCents, currency);
+    }
+
+    static OutboxEmail enrollmentConfirmation(String recipient, String courseTitle) {
+        return new OutboxEmail(recipient, Kind.ENROLLMENT_CONFIRMATION, null, courseTitle, null, null);
+    }
+
+    @Override
+    public void retryAt(Instant nextAttemptAt) {
+        this.status = Status.PENDING;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    @Override
+    public void giveUp() {
+        this.status = Status.FAILED;
+    }
+}
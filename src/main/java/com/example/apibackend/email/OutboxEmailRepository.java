@@ -0,0 +1,63 @@
+package com.example.apibackend.email;
+
+import com.example.apibackend.queue.LeasedRowRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long>, LeasedRowRepository {
+
+    // Claimable: PENDING, or SENDING whose lease expired after a crash (see LeasedRowRepository)
+    @Override
+    @Query(value = """
+            SELECT id FROM email_outbox
+            WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Long> lockClaimable(@Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * Locks the other claimable receipt items of the given payments, so a cart receipt split across
+     * two batches is still sent as one message.
+     */
+    @Query(value = """
+            SELECT id FROM email_outbox
+            WHERE payment_id IN (:paymentIds) AND kind = 'PAYMENT_RECEIPT'
+              AND status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Long> lockClaimableReceiptItems(@Param("paymentIds") Collection<Long> paymentIds, @Param("now") Instant now);
+
+    @Query("select e.paymentId from OutboxEmail e where e.id in :ids and e.paymentId is not null")
+    List<Long> findPaymentIds(@Param("ids") Collection<Long> ids);
+
+    @Override
+    @Modifying
+    @Query("""
+            UPDATE OutboxEmail e
+            SET e.status = com.example.apibackend.email.OutboxEmail.Status.SENDING,
+                e.nextAttemptAt = :leaseUntil,
+                e.attempts = e.attempts + 1
+            WHERE e.id IN :ids
+            """)
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseUntil") Instant leaseUntil);
+
+    @Modifying
+    @Query("""
+            UPDATE OutboxEmail e
+            SET e.status = com.example.apibackend.email.OutboxEmail.Status.SENT, e.sentAt = :sentAt, e.lastError = null
+            WHERE e.id IN :ids AND e.status = com.example.apibackend.email.OutboxEmail.Status.SENDING
+            """)
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    long countByStatusIn(Collection<OutboxEmail.Status> statuses);
+}
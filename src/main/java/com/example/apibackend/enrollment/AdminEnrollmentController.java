@@ -1,10 +1,14 @@
 package com.example.apibackend.enrollment;
 
+import com.example.apibackend.report.CsvWriter;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import org.springframework.format.annotation.DateTimeFormat;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.Date;
@@ -23,6 +27,8 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/admin/enrollments")
 public class AdminEnrollmentController {
+    static final int EXPORT_CHUNK_SIZE = 1000;
+
     private final EnrollmentRepository enrollmentRepo;
 
     public AdminEnrollmentController(EnrollmentRepository enrollmentRepo) {
@@ -37,7 +43,7 @@ public class AdminEnrollmentController {
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<EnrollmentDto>> getAllEnrollments() {
-        List<Enrollment> enrollments = enrollmentRepo.findAll();
+        List<Enrollment> enrollments = enrollmentRepo.findAllWithUserAndCourse();
         List<EnrollmentDto> dtos = enrollments.stream().map(EnrollmentDto::new).collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -46,35 +52,40 @@ public class AdminEnrollmentController {
      * GET /api/admin/reports/enrollments.csv?from=YYYY-MM-DD&to=YYYY-MM-DD
      * Streams CSV for BI/reporting. Streaming avoids memory pressure for large datasets.
      * BI tooling (Excel, Tableau, etc.) can ingest these files directly.
+     * Only the requested created_at range is read, in keyset-paged chunks (EnrollmentRepository.findReportChunk),
+     * and each chunk is flushed to the client before the next is fetched: memory use is one chunk.
      */
     @GetMapping("/reports/enrollments.csv")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<String> exportEnrollmentsCsv(
+    public ResponseEntity<StreamingResponseBody> exportEnrollmentsCsv(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
     ) {
-        StringBuilder csv = new StringBuilder();
-        csv.append("enrollmentId,userEmail,courseSlug,enrolledAt,status\n");
-        enrollmentRepo.findAll().stream()
-            .filter(e -> e.getCreatedAt() != null &&
-                !e.getCreatedAt().isBefore(from.atStartOfDay().toInstant(ZoneOffset.UTC)) &&
-                e.getCreatedAt().isBefore(to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC)))
-            .forEach(e -> {
-                String userEmail = e.getUser() != null ? e.getUser().getEmail() : "";
-                String courseSlug = e.getCourse() != null ? e.getCourse().getSlug() : "";
-                String enrolledAt = e.getCreatedAt() != null ? e.getCreatedAt().toString() : "";
-                String status = e.getStatus() != null ? e.getStatus().name() : "";
-                csv.append(String.format("%d,%s,%s,%s,%s\n",
-                    e.getId(),
-                    userEmail,
-                    courseSlug,
-                    enrolledAt,
-                    status));
-            });
+        Instant fromInstant = from.atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant toInstant = to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        StreamingResponseBody body = out -> {
+            CsvWriter csv = new CsvWriter(out);
+            csv.row("enrollmentId", "userEmail", "courseSlug", "enrolledAt", "status");
+            Instant afterCreatedAt = fromInstant;
+            Long afterId = 0L;
+            List<EnrollmentReportRow> chunk;
+            do {
+                chunk = enrollmentRepo.findReportChunk(afterCreatedAt, afterId, toInstant, PageRequest.of(0, EXPORT_CHUNK_SIZE));
+                for (EnrollmentReportRow row : chunk) {
+                    row.writeCsv(csv);
+                }
+                if (!chunk.isEmpty()) {
+                    EnrollmentReportRow last = chunk.get(chunk.size() - 1);
+                    afterCreatedAt = last.createdAt();
+                    afterId = last.id();
+                }
+                csv.flush();
+            } while (chunk.size() == EXPORT_CHUNK_SIZE);
+        };
         return ResponseEntity.ok()
             .header("Content-Disposition", "attachment; filename=enrollments.csv")
             .header("Content-Type", "text/csv")
-            .body(csv.toString());
+            .body(body);
     }
 
     /**
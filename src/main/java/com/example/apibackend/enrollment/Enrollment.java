@@ -17,7 +17,8 @@ import java.time.Instant;
 @Entity
 @Table(
         name = "enrollments",
-        uniqueConstraints = @UniqueConstraint(name="uq_enroll", columnNames={"user_id","course_id"})
+        uniqueConstraints = @UniqueConstraint(name="uq_enroll", columnNames={"user_id","course_id"}),
+        indexes = @Index(name = "idx_enrollments_created_at", columnList = "created_at, id") // V26
 )
 public class Enrollment {
     public static enum EnrollmentStatus { PENDING, ACTIVE, CANCELED }
@@ -1,6 +1,6 @@
 package com.example.apibackend.enrollment;
 
-import com.example.apibackend.user.User;
+import com.example.apibackend.auth.UserPrincipal;
 import com.example.apibackend.user.UserRepository;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -38,8 +38,8 @@ public class EnrollmentController {
             Authentication authentication,
             @org.springframework.data.web.PageableDefault(size = 6) org.springframework.data.domain.Pageable pageable
     ) {
-        User principal = (User) authentication.getPrincipal();
-        Long userId = principal.getId();
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        Long userId = principal.id();
         org.springframework.data.domain.Page<Enrollment> enrollmentsPage = enrollmentRepo.findByUserIdAndUser_DeletedAtIsNull(userId, pageable);
         java.util.List<EnrollmentDto> dtos = enrollmentsPage.getContent().stream().map(EnrollmentDto::new).collect(java.util.stream.Collectors.toList());
         java.util.Map<String, Object> response = new java.util.HashMap<>();
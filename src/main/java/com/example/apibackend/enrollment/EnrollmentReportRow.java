@@ -0,0 +1,29 @@
+package com.example.apibackend.enrollment;
+
+import com.example.apibackend.enrollment.Enrollment.EnrollmentStatus;
+import com.example.apibackend.report.CsvWriter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Flat projection of one enrollments CSV line (user email and course slug joined in the query,
+ * so no entity or lazy association is loaded per row).
+ */
+public record EnrollmentReportRow(
+        Long id,
+        String userEmail,
+        String courseSlug,
+        Instant createdAt,
+        EnrollmentStatus status
+) {
+    /** Writes this enrollment as one line of the enrollments CSV export. */
+    public void writeCsv(CsvWriter csv) throws IOException {
+        csv.field(id)
+            .field(userEmail)
+            .field(courseSlug)
+            .field(createdAt)
+            .field(status != null ? status.name() : null)
+            .endRow();
+    }
+}
@@ -1,7 +1,15 @@
 package com.example.apibackend.enrollment;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,15 +23,50 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
 
     Optional<Enrollment> findByUserIdAndCourseId(Long userId, Long courseId);
 
+    // Same row, locked FOR UPDATE until the transaction ends: serializes a user's writes against one course
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Enrollment e WHERE e.user.id = :userId AND e.course.id = :courseId")
+    Optional<Enrollment> findForUpdateByUserIdAndCourseId(@Param("userId") Long userId, @Param("courseId") Long courseId);
+
+    // All of a user's enrollments among the given courses, in one query (bulk fulfilment)
+    List<Enrollment> findByUserIdAndCourseIdIn(Long userId, Collection<Long> courseIds);
+
     List<Enrollment> findByUserId(Long userId);
 
     // Only return enrollments for users who are not soft-deleted
     List<Enrollment> findByUserIdAndUser_DeletedAtIsNull(Long userId);
 
-    // Only return enrollments for users who are not soft-deleted, paginated
+    // Only return enrollments for users who are not soft-deleted, paginated; the course comes in the same
+    // query because the page is mapped to DTOs after the repository transaction has ended
+    @EntityGraph(attributePaths = "course")
     org.springframework.data.domain.Page<Enrollment> findByUserIdAndUser_DeletedAtIsNull(Long userId, org.springframework.data.domain.Pageable pageable);
 
+    // Admin listing: user and course joined in, mapped to DTOs outside a transaction
+    @EntityGraph(attributePaths = {"user", "course"})
+    @Query("SELECT e FROM Enrollment e")
+    List<Enrollment> findAllWithUserAndCourse();
+
     long countByUserId(Long id);
 
     long countByUserIdAndUser_DeletedAtIsNull(Long userId);
+
+    /**
+     * One keyset-paged chunk of the enrollments report: rows created before :to and strictly after the
+     * (afterCreatedAt, afterId) cursor, ordered by (created_at, id). Start with (from, 0) and continue
+     * from the last row of each chunk; served by idx_enrollments_created_at (V26).
+     */
+    @Query("""
+            select new com.example.apibackend.enrollment.EnrollmentReportRow(
+                e.id, u.email, c.slug, e.createdAt, e.status)
+            from Enrollment e
+            join e.user u
+            join e.course c
+            where e.createdAt < :to
+              and (e.createdAt > :afterCreatedAt or (e.createdAt = :afterCreatedAt and e.id > :afterId))
+            order by e.createdAt asc, e.id asc
+            """)
+    List<EnrollmentReportRow> findReportChunk(@Param("afterCreatedAt") Instant afterCreatedAt,
+                                              @Param("afterId") Long afterId,
+                                              @Param("to") Instant to,
+                                              Pageable pageable);
 }
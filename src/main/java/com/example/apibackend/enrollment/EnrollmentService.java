@@ -0,0 +1,72 @@
+package com.example.apibackend.enrollment;
+
+import com.example.apibackend.course.Course;
+import com.example.apibackend.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based enrollment fulfilment for paid courses (single course or whole cart).
+ * Whatever the number of courses: one SELECT for the user's existing enrollments in those courses,
+ * one JDBC batch INSERT for the missing ones, and one batched UPDATE (hibernate.jdbc.batch_size)
+ * for reactivations. A concurrent duplicate hits uq_enroll and rolls the caller back for a retry.
+ */
+@Service
+@RequiredArgsConstructor
+public class EnrollmentService {
+    private final EnrollmentRepository enrollmentRepo;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Makes the user ACTIVE in every given course: missing enrollments are inserted,
+     * PENDING/CANCELED ones are reactivated, ACTIVE ones are left alone.
+     * Returns the courses whose enrollment changed (i.e. that need a confirmation email), in input order.
+     */
+    @Transactional
+    public List<Course> activateEnrollments(User user, List<Course> courses) {
+        if (courses.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Course> byId = courses.stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+        Map<Long, Enrollment> existing = enrollmentRepo.findByUserIdAndCourseIdIn(user.getId(), byId.keySet()).stream()
+                .collect(Collectors.toMap(e -> e.getCourse().getId(), Function.identity()));
+
+        List<Course> changed = new ArrayList<>();
+        List<Long> toInsert = new ArrayList<>();
+        for (Course course : byId.values()) {
+            Enrollment enrollment = existing.get(course.getId());
+            if (enrollment == null) {
+                toInsert.add(course.getId());
+                changed.add(course);
+            } else if (enrollment.getStatus() != Enrollment.EnrollmentStatus.ACTIVE) {
+                // reactivation; flushed as one JDBC batch with the other dirty enrollments
+                enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
+                enrollment.setRevokedAt(null);
+                changed.add(course);
+            }
+        }
+        if (!toInsert.isEmpty()) {
+            // IDENTITY ids stop Hibernate from batching inserts, so new rows go through one JDBC batch
+            // (a single multi-row INSERT with rewriteBatchedStatements=true); created_at uses the column default
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO enrollments (user_id, course_id, status) VALUES (?, ?, 'ACTIVE')",
+                    toInsert,
+                    toInsert.size(),
+                    (ps, courseId) -> {
+                        ps.setLong(1, user.getId());
+                        ps.setLong(2, courseId);
+                    });
+        }
+        return changed;
+    }
+}
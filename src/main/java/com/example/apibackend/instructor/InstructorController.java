@@ -2,9 +2,10 @@ package com.example.apibackend.instructor;
 
 import com.example.apibackend.course.CourseRepository;
 import com.example.apibackend.course.CourseSummaryDto;
-import com.example.apibackend.review.ReviewRepository;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.Serializable;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -13,38 +14,28 @@ import java.util.stream.Collectors;
 public class InstructorController {
     private final InstructorRepository instructorRepo;
     private final CourseRepository courseRepo;
-    private final ReviewRepository reviewRepo;
 
-    public InstructorController(InstructorRepository instructorRepo, CourseRepository courseRepo, ReviewRepository reviewRepo) {
+    public InstructorController(InstructorRepository instructorRepo, CourseRepository courseRepo) {
         this.instructorRepo = instructorRepo;
         this.courseRepo = courseRepo;
-        this.reviewRepo = reviewRepo;
     }
 
+    // Read-only transactions: served by the read replica when routing is on (ReadReplicaConfig)
     @GetMapping
+    @Transactional(readOnly = true)
     public List<InstructorSummaryDto> getAllInstructors() {
         return instructorRepo.findAll().stream().map(InstructorSummaryDto::fromEntity).collect(Collectors.toList());
     }
 
     @GetMapping("/{id}")
+    @Transactional(readOnly = true)
     public ResponseEntity<InstructorDetailDto> getInstructor(@PathVariable Long id) {
         return instructorRepo.findById(id)
             .map(instructor -> {
-                // You may need to implement findByInstructorId in CourseRepository
+                // Ratings are read from the denormalized course columns, no review queries
                 List<CourseSummaryDto> courses = courseRepo.findByInstructorId(instructor.getId())
                     .stream()
-                    .map(c -> new CourseSummaryDto(
-                        c.getId(),
-                        c.getTitle(),
-                        c.getSlug(),
-                        c.getShortDescription(),
-                        c.getPriceCents(),
-                        c.getLevel(),
-                        c.getIsActive(),
-                        reviewRepo.findAverageRatingByCourseId(c.getId()) != null ? reviewRepo.findAverageRatingByCourseId(c.getId()) : 0.0,
-                        c.getThumbnailUrl(),
-                        InstructorSummaryDto.fromEntity(c.getInstructor())
-                    ))
+                    .map(CourseSummaryDto::fromEntity)
                     .collect(Collectors.toList());
                 return InstructorDetailDto.fromEntity(instructor, courses);
             })
@@ -52,7 +43,9 @@ public class InstructorController {
             .orElse(ResponseEntity.notFound().build());
     }
 
-    public static class InstructorSummaryDto {
+    public static class InstructorSummaryDto implements Serializable {
+        private static final long serialVersionUID = 1L;
+
         public Long id;
         public String name;
         public String bio;
@@ -1,5 +1,7 @@
 package com.example.apibackend.lesson;
 
+import java.io.Serializable;
+
 public record LessonDto(
         Long id,
         String title,
@@ -7,4 +9,15 @@ public record LessonDto(
         Integer durationSeconds,
         boolean isDemo,
         String contentUrl
-) {}
+) implements Serializable {
+    public static LessonDto fromEntity(Lesson lesson) {
+        return new LessonDto(
+                lesson.getId(),
+                lesson.getTitle(),
+                lesson.getType().name(),
+                lesson.getDurationSeconds(),
+                lesson.isDemo(),
+                lesson.getContentUrl()
+        );
+    }
+}
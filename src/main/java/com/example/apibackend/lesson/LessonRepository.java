@@ -30,6 +30,10 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
     // Useful stats
     long countByModuleId(Long moduleId);
 
+    // Every lesson of a course in one round trip (course detail groups them by module in memory)
+    @Query("SELECT l FROM Lesson l WHERE l.module.course.id = :courseId ORDER BY l.id ASC")
+    List<Lesson> findAllByCourseId(@org.springframework.data.repository.query.Param("courseId") Long courseId);
+
     // Example of avoiding N+1 when you need the parent with the lesson
     @EntityGraph(attributePaths = "module")
     Optional<Lesson> findWithModuleById(Long id);
@@ -1,9 +1,9 @@
 package com.example.apibackend.lesson;
 
 import com.example.apibackend.auth.JwtUtil;
+import com.example.apibackend.auth.UserPrincipal;
 import com.example.apibackend.enrollment.EnrollmentRepository;
 import com.example.apibackend.enrollment.Enrollment;
-import com.example.apibackend.user.User;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -36,18 +36,18 @@ public class PlaybackController {
     @GetMapping("/token/{lessonId}")
     public ResponseEntity<PlaybackTokenResponse> getPlaybackToken(
             @PathVariable Long lessonId,
-            @AuthenticationPrincipal User principal
+            @AuthenticationPrincipal UserPrincipal principal
     ) {
         // Extract userId from principal if available, otherwise fallback (customize as needed)
-        Long userId = principal.getId();
-        String email = principal.getEmail();
+        Long userId = principal.id();
+        String email = principal.email();
         // If your User entity does not have getAuthorities(), default to "USER" or use another method to get the role
         String role = "USER"; // or principal.getRole() if available
         // If you store userId in username or as a custom claim, parse it here
         // Example: userId = Long.valueOf(email) if username is userId
         // Otherwise, you may need to query userRepository by email
         // For now, fallback to 0L if not available
-        Lesson lesson = lessonRepository.findById(lessonId)
+        Lesson lesson = lessonRepository.findWithModuleById(lessonId) // module loaded here: no lazy load after the read
                 .orElseThrow(() -> new IllegalArgumentException("Lesson not found"));
         Long courseId = lesson.getModule().getCourse().getId();
         Enrollment enrollment = enrollmentRepository.findByUserIdAndCourseId(userId, courseId)
@@ -1,5 +1,6 @@
 package com.example.apibackend.module;
 
+import com.example.apibackend.course.CatalogCacheInvalidator;
 import com.example.apibackend.course.CourseRepository;
 import com.example.apibackend.lesson.Lesson;
 import com.example.apibackend.lesson.LessonDto;
@@ -22,11 +23,13 @@ public class AdminModuleController {
     private final ModuleRepository moduleRepo;
     private final CourseRepository courseRepo;
     private final LessonRepository lessonRepo;
+    private final CatalogCacheInvalidator cacheInvalidator;
 
-    public AdminModuleController(ModuleRepository moduleRepo, CourseRepository courseRepo, LessonRepository lessonRepo) {
+    public AdminModuleController(ModuleRepository moduleRepo, CourseRepository courseRepo, LessonRepository lessonRepo, CatalogCacheInvalidator cacheInvalidator) {
         this.moduleRepo = moduleRepo;
         this.courseRepo = courseRepo;
         this.lessonRepo = lessonRepo;
+        this.cacheInvalidator = cacheInvalidator;
     }
 
     // --- MODULE ENDPOINTS ---
@@ -46,6 +49,7 @@ public class AdminModuleController {
         int position = (int) moduleRepo.countByCourseId(courseId);
         Module module = new Module(courseOpt.get(), req.title, position, req.description);
         moduleRepo.save(module);
+        cacheInvalidator.courseChanged(courseOpt.get().getSlug());
         return ResponseEntity.status(201).body(toDto(module));
     }
 
@@ -61,6 +65,7 @@ public class AdminModuleController {
         if (req.title != null) module.setTitle(req.title);
         if (req.description != null) module.setDescription(req.description);
         moduleRepo.save(module);
+        cacheInvalidator.courseChanged(module.getCourse().getId());
         return ResponseEntity.ok(toDto(module));
     }
 
@@ -69,8 +74,10 @@ public class AdminModuleController {
      */
     @DeleteMapping("/modules/{id}")
     public ResponseEntity<?> deleteModule(@PathVariable Long id) {
-        if (!moduleRepo.existsById(id)) return ResponseEntity.notFound().build();
+        var moduleOpt = moduleRepo.findById(id);
+        if (moduleOpt.isEmpty()) return ResponseEntity.notFound().build();
         moduleRepo.deleteById(id);
+        cacheInvalidator.courseChanged(moduleOpt.get().getCourse().getId());
         // Orphan prevention: lessons are cascade deleted
         return ResponseEntity.noContent().build();
     }
@@ -92,6 +99,7 @@ public class AdminModuleController {
             m.setPosition(idx);
             moduleRepo.save(m);
         }
+        cacheInvalidator.courseChanged(courseId);
         return ResponseEntity.ok().build();
     }
 
@@ -107,6 +115,7 @@ public class AdminModuleController {
         int position = (int) lessonRepo.countByModuleId(moduleId);
         Lesson lesson = new Lesson(moduleOpt.get(), req.title, req.type, req.contentUrl, req.durationSeconds, req.isDemo, position);
         lessonRepo.save(lesson);
+        cacheInvalidator.courseChanged(moduleOpt.get().getCourse().getId());
         return ResponseEntity.status(201).body(toDto(lesson));
     }
 
@@ -115,7 +124,7 @@ public class AdminModuleController {
      */
     @PutMapping("/lessons/{id}")
     public ResponseEntity<?> updateLesson(@PathVariable Long id, @Validated @RequestBody UpdateLessonRequest req) {
-        var lessonOpt = lessonRepo.findById(id);
+        var lessonOpt = lessonRepo.findWithModuleById(id);
         if (lessonOpt.isEmpty()) return ResponseEntity.notFound().build();
         Lesson lesson = lessonOpt.get();
         // Prevent cross-module moves by not allowing moduleId changes
@@ -125,6 +134,7 @@ public class AdminModuleController {
         if (req.durationSeconds != null) lesson.setDurationSeconds(req.durationSeconds);
         if (req.isDemo != null) lesson.setDemo(req.isDemo);
         lessonRepo.save(lesson);
+        cacheInvalidator.courseChanged(lesson.getModule().getCourse().getId());
         return ResponseEntity.ok(toDto(lesson));
     }
 
@@ -133,8 +143,10 @@ public class AdminModuleController {
      */
     @DeleteMapping("/lessons/{id}")
     public ResponseEntity<?> deleteLesson(@PathVariable Long id) {
-        if (!lessonRepo.existsById(id)) return ResponseEntity.notFound().build();
+        var lessonOpt = lessonRepo.findWithModuleById(id);
+        if (lessonOpt.isEmpty()) return ResponseEntity.notFound().build();
         lessonRepo.deleteById(id);
+        cacheInvalidator.courseChanged(lessonOpt.get().getModule().getCourse().getId());
         // Orphan prevention: lesson is deleted, no orphaned data
         return ResponseEntity.noContent().build();
     }
@@ -156,6 +168,7 @@ public class AdminModuleController {
             l.setPosition(idx);
             lessonRepo.save(l);
         }
+        if (!lessons.isEmpty()) cacheInvalidator.courseChanged(lessons.get(0).getModule().getCourse().getId());
         return ResponseEntity.ok().build();
     }
 
@@ -201,4 +214,5 @@ public class AdminModuleController {
     // - Cross-entity move guards: do not allow changing courseId/moduleId on update to prevent data inconsistencies.
     // - Reorder endpoints update position fields to maintain UI order and avoid bugs with drag-and-drop.
     // - DTOs are consistent with existing ModuleDto/LessonDto for API compatibility.
+    // - Every successful write evicts the owning course's cached detail/preview (CatalogCacheInvalidator).
 }
@@ -1,6 +1,7 @@
 package com.example.apibackend.module;
 
 import com.example.apibackend.lesson.LessonDto;
+import java.io.Serializable;
 import java.util.List;
 
 public record ModuleDto(
@@ -8,4 +9,4 @@ public record ModuleDto(
         String title,
         Integer position,
         List<LessonDto> lessons
-) {}
\ No newline at end of file
+) implements Serializable {}
\ No newline at end of file
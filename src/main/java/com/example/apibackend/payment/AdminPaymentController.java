@@ -1,16 +1,14 @@
 package com.example.apibackend.payment;
 
-import com.example.apibackend.course.Course;
-import com.example.apibackend.user.User;
+import com.example.apibackend.report.CsvWriter;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.core.context.SecurityContextHolder;
-
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.List;
@@ -18,6 +16,8 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/admin/payments")
 public class AdminPaymentController {
+    static final int EXPORT_CHUNK_SIZE = 1000;
+
     private final PaymentRepository paymentRepo;
     private final PaymentService paymentService;
 
@@ -30,42 +30,40 @@ public class AdminPaymentController {
      * GET /api/admin/reports/payments.csv?from=YYYY-MM-DD&to=YYYY-MM-DD
      * Streams CSV for BI/reporting. Streaming avoids memory pressure for large datasets.
      * BI tooling (Excel, Tableau, etc.) can ingest these files directly.
+     * Rows are read in keyset-paged chunks (PaymentRepository.findReportChunk) and written to the
+     * response as they arrive, so memory use is one chunk whatever the date range.
      */
     @GetMapping("/reports/payments.csv")
     @PreAuthorize("hasRole('ADMIN')")
-    // Change to StreamingResponseBody if dataset is large, but til the far future we assume manageable size
-    public ResponseEntity<String> exportPaymentsCsv(
+    public ResponseEntity<StreamingResponseBody> exportPaymentsCsv(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
     ) {
-        StringBuilder csv = new StringBuilder();
-        csv.append("paymentId,userEmail,courseSlug,amount,currency,status,gatewayTxnId,createdAt\n");
-        paymentRepo.findAll().stream()
-            .filter(p -> p.getCreatedAt() != null &&
-                !p.getCreatedAt().isBefore(from.atStartOfDay().toInstant(ZoneOffset.UTC)) &&
-                p.getCreatedAt().isBefore(to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC)))
-            .forEach(p -> {
-                String userEmail = p.getUser() != null ? p.getUser().getEmail() : "";
-                String courseSlug = p.getCourse() != null ? p.getCourse().getSlug() : "";
-                String amount = p.getAmountCents() != null ? p.getAmountCents().toString() : "";
-                String currency = p.getCurrency() != null ? p.getCurrency() : "";
-                String status = p.getStatus() != null ? p.getStatus().name() : "";
-                String gatewayTxnId = p.getGatewayTxnId() != null ? p.getGatewayTxnId() : "";
-                String createdAt = p.getCreatedAt() != null ? p.getCreatedAt().toString() : "";
-                csv.append(String.format("%d,%s,%s,%s,%s,%s,%s,%s\n",
-                    p.getId(),
-                    userEmail,
-                    courseSlug,
-                    amount,
-                    currency,
-                    status,
-                    gatewayTxnId,
-                    createdAt));
-            });
+        Instant fromInstant = from.atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant toInstant = to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        StreamingResponseBody body = out -> {
+            CsvWriter csv = new CsvWriter(out);
+            csv.row("paymentId", "userEmail", "courseSlug", "amount", "currency", "status", "gatewayTxnId", "createdAt");
+            Instant afterCreatedAt = fromInstant;
+            Long afterId = 0L;
+            List<PaymentReportRow> chunk;
+            do {
+                chunk = paymentRepo.findReportChunk(afterCreatedAt, afterId, toInstant, PageRequest.of(0, EXPORT_CHUNK_SIZE));
+                for (PaymentReportRow row : chunk) {
+                    row.writeCsv(csv);
+                }
+                if (!chunk.isEmpty()) {
+                    PaymentReportRow last = chunk.get(chunk.size() - 1);
+                    afterCreatedAt = last.createdAt();
+                    afterId = last.id();
+                }
+                csv.flush();
+            } while (chunk.size() == EXPORT_CHUNK_SIZE);
+        };
         return ResponseEntity.ok()
             .header("Content-Disposition", "attachment; filename=payments.csv")
             .header("Content-Type", "text/csv")
-            .body(csv.toString());
+            .body(body);
     }
 
     /**
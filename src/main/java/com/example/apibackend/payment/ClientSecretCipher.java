@@ -0,0 +1,67 @@
+package com.example.apibackend.payment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Encrypts PaymentIntent client secrets before they are stored on the payment row (AES-256-GCM).
+ * Output is Base64(iv || ciphertext+tag) with a fresh 12-byte IV per value.
+ * The key comes from app.payments.client-secret-key (Base64, 32 bytes); rotating it only costs a
+ * refetch from the gateway, since undecryptable values are treated as a cache miss.
+ */
+@Component
+public class ClientSecretCipher {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    public ClientSecretCipher(@Value("${app.payments.client-secret-key}") String base64Key) {
+        byte[] raw = Base64.getDecoder().decode(base64Key);
+        if (raw.length != 32) {
+            throw new IllegalArgumentException("app.payments.client-secret-key must be 32 bytes (Base64)");
+        }
+        this.key = new SecretKeySpec(raw, "AES");
+    }
+
+    public String encrypt(String plaintext) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] sealed = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Client secret encryption failed", e);
+        }
+    }
+
+    /**
+     * Returns the plaintext, or null if the value was not produced with the current key (or was tampered with).
+     */
+    public String decrypt(String encrypted) {
+        try {
+            byte[] data = Base64.getDecoder().decode(encrypted);
+            if (data.length <= IV_BYTES) {
+                return null;
+            }
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, IV_BYTES));
+            return new String(cipher.doFinal(data, IV_BYTES, data.length - IV_BYTES), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -70,6 +70,15 @@ public class Payment {
     @Setter
     private Instant refundedAt;
 
+    // PaymentIntent client secret, encrypted by ClientSecretCipher; reused until clientSecretExpiresAt
+    @Setter
+    @Column(name = "client_secret_enc", length = 512)
+    private String clientSecretEnc;
+
+    @Setter
+    @Column(name = "client_secret_expires_at")
+    private Instant clientSecretExpiresAt;
+
 
     @PrePersist @PreUpdate
     void normalize() {
@@ -1,6 +1,6 @@
 package com.example.apibackend.payment;
 
-import com.example.apibackend.user.User;
+import com.example.apibackend.auth.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -24,10 +24,10 @@ public class PaymentController {
     @PostMapping
     public ResponseEntity<CheckoutResponseDTO> checkout(
             @RequestParam Long courseId,
-            @AuthenticationPrincipal User user // Spring Security injects authenticated user
+            @AuthenticationPrincipal UserPrincipal user // Spring Security injects authenticated user
     ) {
         // Extract userId from JWT principal
-        Long userId = user.getId();
+        Long userId = user.id();
         // Call service to create or get PENDING payment
         CheckoutResponseDTO dto = paymentService.createOrGetPendingPayment(userId, courseId);
         return ResponseEntity.ok(dto);
@@ -40,9 +40,9 @@ public class PaymentController {
      */
     @PostMapping("/cart")
     public ResponseEntity<?> checkoutCart(
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
-        Long userId = user.getId();
+        Long userId = user.id();
         CartCheckoutResponseDTO dto = paymentService.createOrGetPendingPaymentsForCart(userId);
         // Return only the top-level clientSecret for the cart-wide payment intent
         String clientSecret = null;
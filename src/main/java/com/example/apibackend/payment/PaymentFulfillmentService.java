@@ -0,0 +1,114 @@
+package com.example.apibackend.payment;
+
+import com.example.apibackend.course.Course;
+import com.example.apibackend.email.EmailService;
+import com.example.apibackend.enrollment.EnrollmentService;
+import com.example.apibackend.user.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Applies Stripe payment_intent events to payments and enrollments.
+ * Called by WebhookInboxWorker for each inbox row, in the same transaction that marks the row PROCESSED.
+ * Idempotent: replaying an event for an already SUCCESS/FAILED payment changes nothing.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentFulfillmentService {
+    static final String INTENT_SUCCEEDED = "payment_intent.succeeded";
+    static final String INTENT_FAILED = "payment_intent.payment_failed";
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentFulfillmentService.class);
+
+    private final PaymentRepository paymentRepo;
+    private final EnrollmentService enrollmentService;
+    private final PaymentItemRepository paymentItemRepository;
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+
+    static boolean isHandled(String eventType) {
+        return INTENT_SUCCEEDED.equals(eventType) || INTENT_FAILED.equals(eventType);
+    }
+
+    /**
+     * Applies one raw (already signature-verified) Stripe event. Event types other than
+     * payment_intent.succeeded / payment_intent.payment_failed are ignored.
+     * Throws IllegalStateException if the payload cannot be parsed.
+     */
+    @Transactional
+    public void applyStripeEvent(String eventType, String payload) {
+        if (!isHandled(eventType)) {
+            log.info("Unhandled Stripe event type: {}", eventType);
+            return;
+        }
+        JsonNode dataObject;
+        try {
+            dataObject = objectMapper.readTree(payload).path("data").path("object");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to parse Stripe event payload: " + e.getOriginalMessage(), e);
+        }
+        String paymentIntentId = dataObject.hasNonNull("id") ? dataObject.get("id").asText() : null;
+        String status = INTENT_SUCCEEDED.equals(eventType) ? "SUCCESS" : "FAILED";
+        Long paymentId = null;
+        if (dataObject.path("metadata").hasNonNull("paymentId")) {
+            try {
+                paymentId = Long.valueOf(dataObject.get("metadata").get("paymentId").asText());
+            } catch (NumberFormatException ex) {
+                log.warn("Could not parse paymentId from Stripe metadata: {}", ex.getMessage());
+            }
+        }
+        Payment payment = null;
+        if (paymentId != null) {
+            payment = paymentRepo.findById(paymentId).orElse(null);
+        } else if (paymentIntentId != null) {
+            payment = paymentRepo.findByGatewayTxnId(paymentIntentId).orElse(null);
+        }
+        if (payment == null) {
+            log.warn("No matching Payment found for Stripe PaymentIntent id {}", paymentIntentId);
+            return;
+        }
+        // Idempotency: already processed
+        if (payment.getStatus() == Payment.PaymentStatus.SUCCESS && "SUCCESS".equals(status)) {
+            log.info("Payment already marked SUCCESS, idempotent webhook");
+            return;
+        }
+        if (payment.getStatus() == Payment.PaymentStatus.FAILED && "FAILED".equals(status)) {
+            log.info("Payment already marked FAILED, idempotent webhook");
+            return;
+        }
+        if ("SUCCESS".equals(status) && payment.getStatus() == Payment.PaymentStatus.PENDING) {
+            payment.setStatus(Payment.PaymentStatus.SUCCESS);
+            payment.setGatewayTxnId(paymentIntentId);
+            paymentRepo.save(payment);
+            // Single course payment, or cart (bulk) payment: enroll user in all courses from PaymentItems
+            List<Course> courses = payment.getCourse() != null
+                    ? List.of(payment.getCourse())
+                    : paymentItemRepository.findAllByPaymentId(payment.getId()).stream().map(PaymentItem::getCourse).toList();
+            fulfil(payment, courses);
+            log.info("Payment {} marked SUCCESS and enrollment(s) created if needed", payment.getId());
+        } else if ("FAILED".equals(status)) {
+            payment.setStatus(Payment.PaymentStatus.FAILED);
+            paymentRepo.save(payment);
+            log.info("Payment {} marked as FAILED via Stripe webhook", payment.getId());
+        }
+    }
+
+    // Creates/reactivates all enrollments in one set-based pass; confirmation email only where something changed
+    private void fulfil(Payment payment, List<Course> courses) {
+        User user = payment.getUser();
+        for (Course course : enrollmentService.activateEnrollments(user, courses)) {
+            emailService.sendEnrollmentConfirmation(user, course);
+        }
+        for (Course course : courses) {
+            emailService.sendPaymentReceipt(user, course, payment);
+        }
+    }
+}
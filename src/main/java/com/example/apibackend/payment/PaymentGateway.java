@@ -0,0 +1,34 @@
+package com.example.apibackend.payment;
+
+import java.util.Map;
+
+/**
+ * Outbound calls to the payment provider, kept behind an interface so the service layer never talks to
+ * the SDK directly and tests can swap in an in-memory fake. In the application the bean is a
+ * ResilientPaymentGateway (bulkhead, circuit breaker, latency metrics) around StripePaymentGateway;
+ * see PaymentGatewayConfig.
+ * Implementations are thread-safe and throw PaymentGatewayException on provider errors.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Creates a payment intent. The idempotency key makes retries of the same request return the same intent.
+     */
+    Intent createIntent(IntentRequest request);
+
+    /**
+     * Looks up an existing intent, e.g. to hand its client secret out again.
+     */
+    Intent retrieveIntent(String intentId);
+
+    /**
+     * Refunds the full amount captured by an intent; the idempotency key makes a retried refund a no-op.
+     */
+    void refund(String intentId, String idempotencyKey);
+
+    record IntentRequest(long amountCents, String currency, String description, Map<String, String> metadata, String idempotencyKey) {
+    }
+
+    record Intent(String id, String clientSecret) {
+    }
+}
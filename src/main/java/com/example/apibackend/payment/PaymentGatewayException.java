@@ -0,0 +1,37 @@
+package com.example.apibackend.payment;
+
+/**
+ * The payment provider rejected a call or could not be reached.
+ * providerFailure is false when the provider answered that the request itself was wrong (4xx such as a
+ * declined card or unknown intent); such errors say nothing about the provider's health and do not count
+ * towards the circuit breaker.
+ * rejected is true only when the provider answered that it did not carry out the request, so nothing was
+ * created or charged. After a timeout, a lost connection, a 5xx, a 429 or an idempotency conflict the outcome
+ * is unknown: the provider may still have created the object, and only a retry with the same idempotency key is safe.
+ */
+public class PaymentGatewayException extends RuntimeException {
+    private final boolean providerFailure;
+    private final boolean rejected;
+
+    public PaymentGatewayException(String message, Throwable cause) {
+        this(message, cause, true);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause, boolean providerFailure) {
+        this(message, cause, providerFailure, false);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause, boolean providerFailure, boolean rejected) {
+        super(message, cause);
+        this.providerFailure = providerFailure;
+        this.rejected = rejected;
+    }
+
+    public boolean isProviderFailure() {
+        return providerFailure;
+    }
+
+    public boolean isRejected() {
+        return rejected;
+    }
+}
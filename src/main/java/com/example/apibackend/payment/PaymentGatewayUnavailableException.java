@@ -0,0 +1,20 @@
+package com.example.apibackend.payment;
+
+import java.time.Duration;
+
+/**
+ * The call was not attempted: the gateway's circuit breaker is open or its bulkhead is full.
+ * Mapped to 503 with a Retry-After hint by ApiExceptionHandler.
+ */
+public class PaymentGatewayUnavailableException extends PaymentGatewayException {
+    private final Duration retryAfter;
+
+    public PaymentGatewayUnavailableException(String message, Throwable cause, Duration retryAfter) {
+        super(message, cause, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.apibackend.payment;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -7,5 +8,7 @@ import java.util.List;
 
 @Repository
 public interface PaymentItemRepository extends JpaRepository<PaymentItem, Long> {
+    // Courses are fetched in the same query: every caller reads item.getCourse()
+    @EntityGraph(attributePaths = "course")
     List<PaymentItem> findAllByPaymentId(Long paymentId);
 }
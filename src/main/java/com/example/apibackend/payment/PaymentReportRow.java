@@ -0,0 +1,35 @@
+package com.example.apibackend.payment;
+
+import com.example.apibackend.payment.Payment.PaymentStatus;
+import com.example.apibackend.report.CsvWriter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Flat projection of one payments CSV line (user email and course slug joined in the query,
+ * so no entity or lazy association is loaded per row).
+ */
+public record PaymentReportRow(
+        Long id,
+        String userEmail,
+        String courseSlug,
+        Integer amountCents,
+        String currency,
+        PaymentStatus status,
+        String gatewayTxnId,
+        Instant createdAt
+) {
+    /** Writes this payment as one line of the payments CSV export. */
+    public void writeCsv(CsvWriter csv) throws IOException {
+        csv.field(id)
+            .field(userEmail)
+            .field(courseSlug)
+            .field(amountCents)
+            .field(currency)
+            .field(status != null ? status.name() : null)
+            .field(gatewayTxnId)
+            .field(createdAt)
+            .endRow();
+    }
+}
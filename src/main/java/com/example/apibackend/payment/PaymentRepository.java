@@ -7,6 +7,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.apibackend.payment.Payment.PaymentStatus;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +32,40 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Finds the most recent PENDING payment for a user and course (idempotency for rapid retries)
     Optional<Payment> findTopByUserIdAndCourseIdAndStatusOrderByCreatedAtDesc(Long userId, Long courseId, PaymentStatus status);
 
+    // PENDING single-course payments of a user for the given courses, newest first (cart checkout retries reuse them)
+    @Query("""
+            select p from Payment p
+            where p.user.id = :userId and p.course.id in :courseIds
+              and p.status = com.example.apibackend.payment.Payment.PaymentStatus.PENDING
+            order by p.createdAt desc, p.id desc
+            """)
+    List<Payment> findPendingForCourses(@Param("userId") Long userId, @Param("courseIds") Collection<Long> courseIds);
+
     // Finds the most recent PENDING cart-wide payment for a user (course is null)
     Optional<Payment> findTopByUserIdAndCourseIsNullAndStatusOrderByCreatedAtDesc(Long userId, PaymentStatus status);
-}
\ No newline at end of file
+
+    // Payments created in [from, to) with user and course joined in (admin range listing; idx_payments_created_at)
+    @EntityGraph(attributePaths = {"user", "course"})
+    @Query("select p from Payment p where p.createdAt >= :from and p.createdAt < :to order by p.createdAt asc, p.id asc")
+    List<Payment> findCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * One keyset-paged chunk of the payments report: rows created before :to and strictly after the
+     * (afterCreatedAt, afterId) cursor, ordered by (created_at, id). Start with (from, 0) and continue
+     * from the last row of each chunk; served by idx_payments_created_at (InnoDB appends the id).
+     */
+    @Query("""
+            select new com.example.apibackend.payment.PaymentReportRow(
+                p.id, u.email, c.slug, p.amountCents, p.currency, p.status, p.gatewayTxnId, p.createdAt)
+            from Payment p
+            join p.user u
+            left join p.course c
+            where p.createdAt < :to
+              and (p.createdAt > :afterCreatedAt or (p.createdAt = :afterCreatedAt and p.id > :afterId))
+            order by p.createdAt asc, p.id asc
+            """)
+    List<PaymentReportRow> findReportChunk(@Param("afterCreatedAt") Instant afterCreatedAt,
+                                           @Param("afterId") Long afterId,
+                                           @Param("to") Instant to,
+                                           Pageable pageable);
+}
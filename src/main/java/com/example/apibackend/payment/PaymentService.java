@@ -1,22 +1,37 @@
 package com.example.apibackend.payment;
 
 import com.example.apibackend.cart.CartRepository;
-import com.example.apibackend.cart.Cart;
-import com.example.apibackend.cart.CartItem;
 import com.example.apibackend.course.Course;
 import com.example.apibackend.course.CourseRepository;
 import com.example.apibackend.user.User;
 import com.example.apibackend.user.UserRepository;
-import com.stripe.model.PaymentIntent;
-import com.stripe.param.PaymentIntentCreateParams;
-import com.stripe.exception.StripeException;
-import com.stripe.net.RequestOptions;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import com.example.apibackend.enrollment.Enrollment;
 import com.example.apibackend.enrollment.EnrollmentRepository;
 import org.slf4j.Logger;
@@ -25,8 +40,6 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.stream.Collectors;
-import com.stripe.model.Refund;
-import com.stripe.param.RefundCreateParams;
 
 @Service
 @RequiredArgsConstructor
@@ -37,19 +50,74 @@ public class PaymentService {
     private final CartRepository cartRepository;
     private final EnrollmentRepository enrollmentRepository;
     private final PaymentItemRepository paymentItemRepository;
+    private final PaymentGateway paymentGateway;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClientSecretCipher clientSecretCipher;
+    // Gateway fan-out: one virtual thread per in-flight call, so waiting on Stripe costs no platform thread
+    private final ExecutorService gatewayCalls = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Overall budget for the concurrent PaymentIntent calls of one cart checkout
+    @Value("${app.payments.intent-timeout:15s}")
+    private Duration intentTimeout;
+
+    // How long a stored client secret is reused before it is fetched from the gateway again
+    @Value("${app.payments.client-secret-ttl:24h}")
+    private Duration clientSecretTtl;
     private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
 
     /**
      * Creates a new PENDING payment or returns an existing one for idempotency.
      * This prevents duplicate charges if the user retries rapidly.
+     * Gateway calls run with no transaction open (a slow provider must not hold pool connections): a short
+     * transaction reserves the PENDING row, the intent is created, and a second one links it (or marks the row FAILED).
+     * An existing PENDING row without an intent (its creating call is still running, timed out, or its link step never
+     * ran) gets its intent requested again with the row's original idempotency key, so Stripe returns the same one.
      *
      * @param userId   The authenticated user's ID (from JWT)
      * @param courseId The course to purchase
      * @return CheckoutResponseDTO with payment details
      */
-
-    @Transactional
     public CheckoutResponseDTO createOrGetPendingPayment(Long userId, Long courseId) {
+        SingleCheckout checkout = transactionTemplate.execute(status -> reserveSinglePayment(userId, courseId));
+        Payment payment = checkout.payment();
+        if (!checkout.created() && payment.getGatewayTxnId() != null) {
+            String clientSecret = clientSecretFor(payment);
+            return new CheckoutResponseDTO(
+                payment.getId(),
+                clientSecret,
+                payment.getGatewayTxnId(),
+                courseId,
+                checkout.courseTitle(),
+                checkout.priceCents(),
+                checkout.currency(),
+                payment.getStatus().name()
+            );
+        }
+        // the row's own amount and currency: a retried key must repeat the original request exactly
+        PaymentGateway.Intent intent = createIntentFor(payment.getId(), new PaymentGateway.IntentRequest(
+                payment.getAmountCents(),
+                payment.getCurrency(),
+                "Course purchase: " + checkout.courseTitle(),
+                Map.of("paymentId", payment.getId().toString(),
+                        "userId", userId.toString(),
+                        "courseId", courseId.toString()),
+                "payment-" + payment.getId()));
+        // Enrollment status should NOT be set to ACTIVE here; only update via webhook on payment success
+        return new CheckoutResponseDTO(
+            payment.getId(),
+            intent.clientSecret(),
+            intent.id(),
+            courseId,
+            checkout.courseTitle(),
+            checkout.priceCents(),
+            checkout.currency(),
+            Payment.PaymentStatus.PENDING.name()
+        );
+    }
+
+    // Step 1 of createOrGetPendingPayment: checks, then the user's PENDING payment for the course, inserted if there is none
+    private SingleCheckout reserveSinglePayment(Long userId, Long courseId) {
         // Check for existing enrollment
         Enrollment enrollment = enrollmentRepository.findByUserIdAndCourseId(userId, courseId).orElse(null);
         if (enrollment != null && enrollment.getStatus() == Enrollment.EnrollmentStatus.ACTIVE) {
@@ -59,154 +127,344 @@ public class PaymentService {
                 userId, courseId, Payment.PaymentStatus.PENDING);
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new IllegalArgumentException("Course not found"));
-        String courseTitle = course.getTitle();
-        Integer priceCents = course.getPriceCents();
         String currency = course.getCurrency() != null ? course.getCurrency() : "USD";
         if (existing.isPresent()) {
-            Payment payment = existing.get();
-            String clientSecret = payment.getGatewayTxnId() != null ? fetchStripeClientSecret(payment.getGatewayTxnId()) : "cs_test_" + payment.getId();
-            return new CheckoutResponseDTO(
-                payment.getId(),
-                clientSecret,
-                payment.getGatewayTxnId(),
-                courseId,
-                courseTitle,
-                priceCents,
-                currency,
-                payment.getStatus().name()
-            );
+            return new SingleCheckout(existing.get(), false, course.getTitle(), course.getPriceCents(), currency);
         }
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         Payment payment = new Payment();
         payment.setUser(user);
         payment.setCourse(course);
-        payment.setAmountCents(priceCents);
+        payment.setAmountCents(course.getPriceCents());
         payment.setCurrency(currency);
         payment.setStatus(Payment.PaymentStatus.PENDING);
         payment.setGatewayTxnId(null);
         payment = paymentRepository.save(payment);
+        return new SingleCheckout(payment, true, course.getTitle(), course.getPriceCents(), currency);
+    }
+
+    // Step 1 result: the payment row (detached) and whether this call created it, with the course data the response needs
+    private record SingleCheckout(Payment payment, boolean created, String courseTitle, Integer priceCents, String currency) {
+    }
+
+    /**
+     * Creates the intent of a committed PENDING payment, outside any transaction, then links it in a short one.
+     * If the provider rejected the call the row is marked FAILED (nothing was created or charged). Any other failure
+     * leaves it PENDING without an intent: the intent may exist, and the next checkout repeats the same idempotency key.
+     * The error propagates either way.
+     */
+    private PaymentGateway.Intent createIntentFor(Long paymentId, PaymentGateway.IntentRequest request) {
+        PaymentGateway.Intent intent;
         try {
-            PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
-                    .setAmount(Long.valueOf(priceCents))
-                    .setCurrency(currency.toLowerCase())
-                    .putMetadata("paymentId", payment.getId().toString())
-                    .putMetadata("userId", userId.toString())
-                    .putMetadata("courseId", courseId.toString())
-                    .setDescription("Course purchase: " + courseTitle)
-                    .build();
-            RequestOptions requestOptions = RequestOptions.builder()
-                    .setIdempotencyKey("payment-" + payment.getId())
-                    .build();
-            PaymentIntent intent = PaymentIntent.create(params, requestOptions);
-            payment.setGatewayTxnId(intent.getId());
-            paymentRepository.save(payment);
-            // Enrollment status should NOT be set to ACTIVE here; only update via webhook on payment success
-            return new CheckoutResponseDTO(
-                payment.getId(),
-                intent.getClientSecret(),
-                intent.getId(),
-                courseId,
-                courseTitle,
-                priceCents,
-                currency,
-                payment.getStatus().name()
-            );
-        } catch (StripeException e) {
-            throw new RuntimeException("Stripe PaymentIntent creation failed", e);
+            intent = paymentGateway.createIntent(request);
+        } catch (PaymentGatewayException e) {
+            if (e.isRejected()) {
+                transactionTemplate.executeWithoutResult(status -> paymentRepository.findById(paymentId)
+                        .ifPresent(payment -> payment.setStatus(Payment.PaymentStatus.FAILED)));
+            }
+            throw e;
         }
+        transactionTemplate.executeWithoutResult(status -> paymentRepository.findById(paymentId).ifPresent(payment -> {
+            payment.setGatewayTxnId(intent.id());
+            rememberClientSecret(payment, intent.clientSecret());
+        }));
+        return intent;
     }
 
     /**
-     * Checkout cart with a single payment and PaymentIntent for all cart items.
+     * Checkout cart with one payment row and one PaymentIntent per cart item.
+     * Runs in three steps so no transaction is held across gateway I/O:
+     * 1. one short transaction reads the cart and its courses, reuses the PENDING rows an earlier attempt left for
+     *    these courses (same price) and inserts the missing ones in a single JDBC batch;
+     * 2. the PaymentIntents are created concurrently on virtual threads, bounded by app.payments.intent-timeout;
+     *    reused rows whose stored client secret is still valid need no call, reused rows with an intent but an expired
+     *    secret retrieve that intent (creating it again after Stripe forgot the key would orphan it);
+     * 3. a second short transaction links each new or retrieved intent and its client secret to its row, or marks the
+     *    row FAILED if Stripe rejected its call.
+     *    A call that timed out or failed otherwise may still have created its intent: that row stays PENDING without one.
+     * If any call failed the checkout fails with that call's error (PaymentGatewayUnavailableException keeps its 503 and
+     * Retry-After). The retry reuses the PENDING rows: linked intents are served again, and rows without one send their
+     * original idempotency key again, so Stripe returns an intent it may have created instead of a second one.
      * Assumes all courses in the cart have the same currency.
      */
-    @Transactional
     public CartCheckoutResponseDTO checkoutCartWithSinglePayment(Long userId) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Cart not found"));
-        List<CartItem> items = cart.getItems();
-        if (items.isEmpty()) {
-            throw new IllegalStateException("Cart is empty");
+        List<CartLine> lines = transactionTemplate.execute(status -> prepareCartPayments(userId));
+        List<CartLine> pending = lines.stream().filter(line -> line.storedIntent() == null).toList();
+        IntentBatch batch = callGateway(pending.stream()
+                .map(line -> line.intentId() != null
+                        ? retrieveCall(line.intentId())
+                        : createCall(new PaymentGateway.IntentRequest(
+                                line.priceCents(),
+                                line.currency(),
+                                "Course purchase: " + line.courseTitle(),
+                                Map.of("paymentId", line.paymentId().toString(),
+                                        "userId", userId.toString(),
+                                        "courseId", line.courseId().toString()),
+                                "payment-" + line.paymentId())))
+                .toList());
+        List<PaymentGateway.Intent> intents = batch.intents();
+        // rows with a known outcome: an intent to link, or a call Stripe rejected; the others are left as they are
+        List<Integer> settled = java.util.stream.IntStream.range(0, pending.size())
+                .filter(i -> intents.get(i) != null || batch.errors().get(i).isRejected())
+                .boxed()
+                .toList();
+        if (!settled.isEmpty()) {
+            Timestamp secretExpiresAt = Timestamp.from(Instant.now().plus(clientSecretTtl));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "UPDATE payments SET gateway_txn_id = COALESCE(?, gateway_txn_id), status = ?, client_secret_enc = ?, client_secret_expires_at = ? WHERE id = ?",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            int line = settled.get(i);
+                            PaymentGateway.Intent intent = intents.get(line);
+                            ps.setString(1, intent != null ? intent.id() : null);
+                            ps.setString(2, (intent != null ? Payment.PaymentStatus.PENDING : Payment.PaymentStatus.FAILED).name());
+                            ps.setString(3, intent != null ? clientSecretCipher.encrypt(intent.clientSecret()) : null);
+                            ps.setTimestamp(4, intent != null ? secretExpiresAt : null);
+                            ps.setLong(5, pending.get(line).paymentId());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return settled.size();
+                        }
+                    }));
         }
-        List<CartCheckoutResponseDTO.CartPaymentItemDTO> paymentItems = new java.util.ArrayList<>();
-        for (CartItem item : items) {
-            Course course = courseRepository.findById(item.getCourseId())
-                    .orElseThrow(() -> new IllegalArgumentException("Course not found: " + item.getCourseId()));
-            String courseTitle = course.getTitle();
-            Integer priceCents = course.getPriceCents();
-            String currency = course.getCurrency() != null ? course.getCurrency() : "USD";
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
-            Payment payment = new Payment();
-            payment.setUser(user);
-            payment.setCourse(course);
-            payment.setAmountCents(priceCents);
-            payment.setCurrency(currency);
-            payment.setStatus(Payment.PaymentStatus.PENDING);
-            payment.setGatewayTxnId(null);
-            payment = paymentRepository.save(payment);
+        if (batch.failure() != null) {
+            throw batch.failure();
+        }
+        List<CartCheckoutResponseDTO.CartPaymentItemDTO> paymentItems = new java.util.ArrayList<>(lines.size());
+        int created = 0;
+        for (CartLine line : lines) {
+            PaymentGateway.Intent intent = line.storedIntent() != null ? line.storedIntent() : intents.get(created++);
+            paymentItems.add(new CartCheckoutResponseDTO.CartPaymentItemDTO(
+                line.paymentId(),
+                intent.clientSecret(),
+                intent.id(),
+                line.courseId(),
+                line.courseTitle(),
+                line.priceCents(),
+                line.currency(),
+                Payment.PaymentStatus.PENDING.name()
+            ));
+        }
+        return new CartCheckoutResponseDTO(paymentItems);
+    }
+
+    // Step 1 of checkoutCartWithSinglePayment: cart courses (one joined query), reusable PENDING rows, one multi-row INSERT
+    private List<CartLine> prepareCartPayments(Long userId) {
+        List<Course> ordered = cartCourses(userId);
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        Map<Long, Payment> reusable = reusablePayments(userId, ordered);
+        List<Course> missing = ordered.stream().filter(course -> !reusable.containsKey(course.getId())).toList();
+        java.util.Iterator<Long> insertedIds = insertPendingPayments(userId, missing).iterator();
+        List<CartLine> lines = new java.util.ArrayList<>(ordered.size());
+        for (Course course : ordered) {
+            Payment payment = reusable.get(course.getId());
+            Long paymentId = payment != null ? payment.getId() : insertedIds.next();
+            String intentId = payment != null ? payment.getGatewayTxnId() : null;
+            PaymentGateway.Intent storedIntent = null;
+            if (payment != null) {
+                String clientSecret = storedClientSecret(payment);
+                storedIntent = clientSecret != null ? new PaymentGateway.Intent(intentId, clientSecret) : null;
+            }
+            lines.add(new CartLine(paymentId, course.getId(), course.getTitle(), course.getPriceCents(), currencyOf(course),
+                    intentId, storedIntent));
+        }
+        return lines;
+    }
+
+    // Newest PENDING payment per cart course, if it still charges the course's current price
+    private Map<Long, Payment> reusablePayments(Long userId, List<Course> courses) {
+        Map<Long, Course> byId = courses.stream().collect(Collectors.toMap(Course::getId, course -> course, (a, b) -> a));
+        Map<Long, Payment> reusable = new java.util.HashMap<>();
+        for (Payment payment : paymentRepository.findPendingForCourses(userId, byId.keySet())) {
+            Course course = byId.get(payment.getCourse().getId());
+            if (java.util.Objects.equals(payment.getAmountCents(), course.getPriceCents())
+                    && currencyOf(course).equalsIgnoreCase(payment.getCurrency())) {
+                reusable.putIfAbsent(course.getId(), payment);
+            }
+        }
+        return reusable;
+    }
+
+    // One PENDING row per course in a single JDBC batch; returns the generated ids in course order
+    private List<Long> insertPendingPayments(Long userId, List<Course> courses) {
+        if (courses.isEmpty()) {
+            return List.of();
+        }
+        Timestamp createdAt = Timestamp.from(Instant.now()); // as @CreationTimestamp would set it
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(
+                        "INSERT INTO payments (user_id, course_id, amount_cents, currency, status, created_at) VALUES (?, ?, ?, ?, 'PENDING', ?)",
+                        Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Course course = courses.get(i);
+                        ps.setLong(1, userId);
+                        ps.setLong(2, course.getId());
+                        ps.setInt(3, course.getPriceCents());
+                        ps.setString(4, currencyOf(course));
+                        ps.setTimestamp(5, createdAt);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return courses.size();
+                    }
+                },
+                keys);
+        return keys.getKeyList().stream()
+                .map(key -> ((Number) key.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    // One PaymentIntent creation per request, concurrently; see callGateway
+    IntentBatch createIntents(List<PaymentGateway.IntentRequest> requests) {
+        return callGateway(requests.stream().map(this::createCall).toList());
+    }
+
+    /**
+     * Step 2 of checkoutCartWithSinglePayment: all gateway calls in flight at once on virtual threads.
+     * Intents are in call order; an entry is null when its call failed or did not finish before the shared deadline
+     * (the call is then cancelled, but Stripe may still create that intent). errors holds each call's error, null where
+     * it succeeded; a timeout is an error whose outcome is unknown (not rejected). failure is the error to report for
+     * the batch: a PaymentGatewayUnavailableException if any call got one, else the first failure, else null.
+     */
+    private IntentBatch callGateway(List<IntentCall> requests) {
+        List<Future<PaymentGateway.Intent>> calls = requests.stream()
+                .map(request -> gatewayCalls.submit(request.call()))
+                .toList();
+        long deadline = System.nanoTime() + intentTimeout.toNanos();
+        List<PaymentGateway.Intent> intents = new java.util.ArrayList<>(calls.size());
+        List<PaymentGatewayException> errors = new java.util.ArrayList<>(calls.size());
+        PaymentGatewayException failure = null;
+        for (int i = 0; i < calls.size(); i++) {
+            Future<PaymentGateway.Intent> call = calls.get(i);
+            PaymentGatewayException callFailure;
             try {
-                PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
-                        .setAmount(Long.valueOf(priceCents))
-                        .setCurrency(currency.toLowerCase())
-                        .putMetadata("paymentId", payment.getId().toString())
-                        .putMetadata("userId", userId.toString())
-                        .putMetadata("courseId", course.getId().toString())
-                        .setDescription("Course purchase: " + courseTitle)
-                        .build();
-                RequestOptions requestOptions = RequestOptions.builder()
-                        .setIdempotencyKey("payment-" + payment.getId())
-                        .build();
-                PaymentIntent intent = PaymentIntent.create(params, requestOptions);
-                payment.setGatewayTxnId(intent.getId());
-                paymentRepository.save(payment);
-                paymentItems.add(new CartCheckoutResponseDTO.CartPaymentItemDTO(
-                    payment.getId(),
-                    intent.getClientSecret(),
-                    intent.getId(),
-                    course.getId(),
-                    courseTitle,
-                    priceCents,
-                    currency,
-                    payment.getStatus().name()
-                ));
-            } catch (StripeException e) {
-                throw new RuntimeException("Stripe PaymentIntent creation failed", e);
+                intents.add(call.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+                errors.add(null);
+                continue;
+            } catch (TimeoutException e) {
+                call.cancel(true);
+                logger.warn("PaymentIntent call timed out after {} ({})", intentTimeout, requests.get(i).label());
+                callFailure = new PaymentGatewayException("Stripe PaymentIntent call timed out", e);
+            } catch (ExecutionException e) {
+                logger.warn("PaymentIntent call failed ({}): {}", requests.get(i).label(), e.getCause().getMessage());
+                callFailure = e.getCause() instanceof PaymentGatewayException gatewayError
+                        ? gatewayError
+                        : new PaymentGatewayException("Stripe PaymentIntent call failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                calls.forEach(c -> c.cancel(true));
+                throw new IllegalStateException("Interrupted while calling the payment gateway", e);
+            }
+            intents.add(null);
+            errors.add(callFailure);
+            if (failure == null || (callFailure instanceof PaymentGatewayUnavailableException
+                    && !(failure instanceof PaymentGatewayUnavailableException))) {
+                failure = callFailure;
             }
         }
-        return new CartCheckoutResponseDTO(paymentItems);
+        return new IntentBatch(intents, errors, failure);
+    }
+
+    // A step 2 gateway call; label (idempotency key or intent id) identifies it in logs
+    private record IntentCall(String label, Callable<PaymentGateway.Intent> call) {
+    }
+
+    private IntentCall createCall(PaymentGateway.IntentRequest request) {
+        return new IntentCall(request.idempotencyKey(), () -> paymentGateway.createIntent(request));
+    }
+
+    private IntentCall retrieveCall(String intentId) {
+        return new IntentCall(intentId, () -> paymentGateway.retrieveIntent(intentId));
+    }
+
+    // Result of step 2: intents and errors in call order (null where the call failed / succeeded) and the batch's error, if any
+    record IntentBatch(List<PaymentGateway.Intent> intents, List<PaymentGatewayException> errors, PaymentGatewayException failure) {
+    }
+
+    private static String currencyOf(Course course) {
+        return course.getCurrency() != null ? course.getCurrency().toUpperCase(Locale.ROOT) : "USD";
+    }
+
+    // Courses of the user's cart in cart order, in one query; the cart row is only looked up to explain an empty result
+    private List<Course> cartCourses(Long userId) {
+        List<Course> courses = courseRepository.findInCartOfUser(userId);
+        if (courses.isEmpty()) {
+            if (!cartRepository.existsByUserId(userId)) {
+                throw new IllegalArgumentException("Cart not found");
+            }
+            throw new IllegalStateException("Cart is empty");
+        }
+        return courses;
+    }
+
+    // A cart item after step 1: its payment row, the course data the response needs and, for a reused row, its intent id
+    // and stored intent (null when the client secret has to come from the gateway)
+    private record CartLine(Long paymentId, Long courseId, String courseTitle, Integer priceCents, String currency,
+                            String intentId, PaymentGateway.Intent storedIntent) {
+    }
+
+    @PreDestroy
+    void shutdown() {
+        gatewayCalls.shutdown();
     }
 
     /**
      * Creates or reuses PENDING payments for all published courses in user's cart.
      * Returns array of payment DTOs for each course. Multiple payments are acceptable for MVP.
+     * As in createOrGetPendingPayment, database work runs in short transactions and the gateway call between them.
      */
-    @Transactional
     public CartCheckoutResponseDTO createOrGetPendingPaymentsForCart(Long userId) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Cart not found"));
-        List<CartItem> items = cart.getItems();
-        if (items.isEmpty()) {
-            throw new IllegalStateException("Cart is empty");
+        CartWideCheckout checkout = transactionTemplate.execute(status -> reserveCartWidePayment(userId));
+        Payment payment = checkout.payment();
+        if (!checkout.created() && payment.getGatewayTxnId() != null) {
+            // one intent for the whole cart: resolve its client secret once, not per item
+            String clientSecret = clientSecretFor(payment);
+            checkout.items().forEach(item -> item.setClientSecret(clientSecret));
+            return new CartCheckoutResponseDTO(checkout.items());
         }
+        // Create Stripe PaymentIntent for total amount (again with the same key if an earlier attempt left none linked)
+        PaymentGateway.Intent intent = createIntentFor(payment.getId(), new PaymentGateway.IntentRequest(
+                payment.getAmountCents(),
+                payment.getCurrency(),
+                "Cart purchase: " + checkout.items().size() + " courses",
+                Map.of("paymentId", payment.getId().toString(),
+                        "userId", userId.toString()),
+                "cart-payment-" + payment.getId()));
+        // Update all paymentItems with the single payment intent info
+        for (CartCheckoutResponseDTO.CartPaymentItemDTO itemDto : checkout.items()) {
+            itemDto.setPaymentId(payment.getId());
+            itemDto.setClientSecret(intent.clientSecret());
+            itemDto.setPiId(intent.id());
+            itemDto.setStatus(Payment.PaymentStatus.PENDING.name());
+        }
+        return new CartCheckoutResponseDTO(checkout.items());
+    }
+
+    // Step 1 of createOrGetPendingPaymentsForCart: the user's PENDING cart-wide payment and its items, inserted if there is none
+    private CartWideCheckout reserveCartWidePayment(Long userId) {
+        List<Course> cartCourses = cartCourses(userId);
         // Calculate total amount and currency (assume all courses have same currency for simplicity)
         int totalAmount = 0;
         String currency = "USD";
         List<CartCheckoutResponseDTO.CartPaymentItemDTO> paymentItems = new java.util.ArrayList<>();
-        List<Course> cartCourses = new java.util.ArrayList<>();
-        for (CartItem item : items) {
-            Long courseId = item.getCourseId();
-            Course course = courseRepository.findById(courseId)
-                    .orElseThrow(() -> new IllegalArgumentException("Course not found: " + courseId));
+        for (Course course : cartCourses) {
             totalAmount += course.getPriceCents();
             currency = course.getCurrency() != null ? course.getCurrency() : currency;
-            cartCourses.add(course);
             paymentItems.add(new CartCheckoutResponseDTO.CartPaymentItemDTO(
                 null, // paymentId will be set after Payment creation
                 null, // clientSecret will be set after PaymentIntent creation
                 null, // piId will be set after PaymentIntent creation
-                courseId,
+                course.getId(),
                 course.getTitle(),
                 course.getPriceCents(),
                 currency,
@@ -226,7 +484,7 @@ public class PaymentService {
                 Course course = item.getCourse();
                 dtoItems.add(new CartCheckoutResponseDTO.CartPaymentItemDTO(
                     payment.getId(),
-                    fetchStripeClientSecret(payment.getGatewayTxnId()),
+                    null, // clientSecret is resolved after this transaction
                     payment.getGatewayTxnId(),
                     course.getId(),
                     course.getTitle(),
@@ -235,7 +493,7 @@ public class PaymentService {
                     payment.getStatus().name()
                 ));
             }
-            return new CartCheckoutResponseDTO(dtoItems);
+            return new CartWideCheckout(payment, false, dtoItems);
         }
         // Create a single Payment for the whole cart
         Payment payment = new Payment();
@@ -254,42 +512,42 @@ public class PaymentService {
             paymentItem.setCurrency(course.getCurrency() != null ? course.getCurrency() : currency);
             paymentItemRepository.save(paymentItem);
         }
-        // Create Stripe PaymentIntent for total amount
-        try {
-            PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
-                    .setAmount((long) totalAmount)
-                    .setCurrency(currency.toLowerCase())
-                    .putMetadata("paymentId", payment.getId().toString())
-                    .putMetadata("userId", userId.toString())
-                    .setDescription("Cart purchase: " + items.size() + " courses")
-                    .build();
-            RequestOptions requestOptions = RequestOptions.builder()
-                    .setIdempotencyKey("cart-payment-" + payment.getId())
-                    .build();
-            PaymentIntent intent = PaymentIntent.create(params, requestOptions);
-            payment.setGatewayTxnId(intent.getId());
-            paymentRepository.save(payment);
-            // Update all paymentItems with the single payment intent info
-            for (CartCheckoutResponseDTO.CartPaymentItemDTO itemDto : paymentItems) {
-                itemDto.setPaymentId(payment.getId());
-                itemDto.setClientSecret(intent.getClientSecret());
-                itemDto.setPiId(intent.getId());
-                itemDto.setStatus(payment.getStatus().name());
-            }
-            return new CartCheckoutResponseDTO(paymentItems);
-        } catch (StripeException e) {
-            throw new RuntimeException("Stripe PaymentIntent creation failed", e);
+        return new CartWideCheckout(payment, true, paymentItems);
+    }
+
+    // Step 1 result of the cart-wide checkout: the payment row (detached), whether this call created it, and the item DTOs
+    private record CartWideCheckout(Payment payment, boolean created, List<CartCheckoutResponseDTO.CartPaymentItemDTO> items) {
+    }
+
+    /**
+     * Client secret of a payment's intent (gateway_txn_id set) for an idempotent checkout retry.
+     * Served from the encrypted copy on the payment row while it is unexpired; only a miss (expired,
+     * never stored, or undecryptable after a key rotation) retrieves the intent from Stripe and re-caches it.
+     * Call with no transaction open: the gateway call runs first, the refreshed copy is stored in a short transaction.
+     */
+    String clientSecretFor(Payment payment) {
+        String cached = storedClientSecret(payment);
+        if (cached != null) {
+            return cached;
         }
+        String clientSecret = paymentGateway.retrieveIntent(payment.getGatewayTxnId()).clientSecret();
+        transactionTemplate.executeWithoutResult(status -> paymentRepository.findById(payment.getId())
+                .ifPresent(stored -> rememberClientSecret(stored, clientSecret)));
+        return clientSecret;
     }
 
-    // Helper to fetch clientSecret from Stripe for an existing PaymentIntent
-    private String fetchStripeClientSecret(String paymentIntentId) {
-        try {
-            PaymentIntent intent = PaymentIntent.retrieve(paymentIntentId);
-            return intent.getClientSecret();
-        } catch (StripeException e) {
-            throw new RuntimeException("Failed to fetch Stripe clientSecret", e);
+    // The payment's stored client secret, or null if it has no intent or the copy is missing, expired or undecryptable
+    private String storedClientSecret(Payment payment) {
+        if (payment.getGatewayTxnId() == null || payment.getClientSecretEnc() == null
+                || payment.getClientSecretExpiresAt() == null || !Instant.now().isBefore(payment.getClientSecretExpiresAt())) {
+            return null;
         }
+        return clientSecretCipher.decrypt(payment.getClientSecretEnc());
+    }
+
+    private void rememberClientSecret(Payment payment, String clientSecret) {
+        payment.setClientSecretEnc(clientSecretCipher.encrypt(clientSecret));
+        payment.setClientSecretExpiresAt(Instant.now().plus(clientSecretTtl));
     }
 
 
@@ -297,11 +555,40 @@ public class PaymentService {
      * Refunds a successful payment and revokes enrollment if present.
      * Side effects: Updates payment status, records refund timestamp, updates enrollment status, logs audit event.
      * Refunds are admin-only to prevent abuse and ensure proper audit trail.
+     * The gateway refund runs between two short transactions, never inside one: the payment is checked first, and
+     * the status changes are only written once the refund went through. The idempotency key makes a retried refund
+     * safe if that last step fails.
      */
-    @Transactional
     public void refundPayment(Long paymentId) {
+        String intentId = transactionTemplate.execute(status -> refundablePayment(paymentId).getGatewayTxnId());
+        try {
+            if (intentId != null) {
+                paymentGateway.refund(intentId, "refund-" + paymentId);
+                logger.info("Stripe refund issued for PaymentIntent {} (paymentId={})", intentId, paymentId);
+            }
+        } catch (PaymentGatewayException e) {
+            logger.error("Stripe refund failed for PaymentIntent {}: {}", intentId, e.getMessage());
+            throw e;
+        }
+        transactionTemplate.executeWithoutResult(status -> recordRefund(paymentId));
+    }
+
+    private Payment refundablePayment(Long paymentId) {
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
+        if (payment.getStatus() != Payment.PaymentStatus.SUCCESS) {
+            throw new IllegalStateException("Only successful payments can be refunded");
+        }
+        return payment;
+    }
+
+    // Last step of refundPayment, after the gateway refund succeeded
+    private void recordRefund(Long paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
+        if (payment.getStatus() == Payment.PaymentStatus.REFUNDED) {
+            return; // a concurrent refund of the same payment recorded it already
+        }
         if (payment.getStatus() != Payment.PaymentStatus.SUCCESS) {
             throw new IllegalStateException("Only successful payments can be refunded");
         }
@@ -338,30 +625,15 @@ public class PaymentService {
             }
             logger.info("Admin refunded payment {} for user {} and course {}", paymentId, payment.getUser().getId(), payment.getCourse().getId());
         }
-        // TODO: Integrate with payment gateway for actual refund if required
-        // Stripe refund integration
-        try {
-            if (payment.getGatewayTxnId() != null) {
-                RefundCreateParams params = RefundCreateParams.builder()
-                    .setPaymentIntent(payment.getGatewayTxnId())
-                    .build();
-                Refund.create(params);
-                logger.info("Stripe refund issued for PaymentIntent {} (paymentId={})", payment.getGatewayTxnId(), paymentId);
-            }
-        } catch (com.stripe.exception.StripeException e) {
-            logger.error("Stripe refund failed for PaymentIntent {}: {}", payment.getGatewayTxnId(), e.getMessage());
-            throw new RuntimeException("Stripe refund failed", e);
-        }
     }
 
     /**
      * Returns payments created in the given date range as PaymentDto list.
      */
     public List<PaymentDto> getPaymentsInRange(LocalDate from, LocalDate to) {
-        return paymentRepository.findAll().stream()
-            .filter(p -> p.getCreatedAt() != null &&
-                !p.getCreatedAt().isBefore(from.atStartOfDay().toInstant(ZoneOffset.UTC)) &&
-                p.getCreatedAt().isBefore(to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC)))
+        Instant fromInstant = from.atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant toInstant = to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        return paymentRepository.findCreatedBetween(fromInstant, toInstant).stream()
             .map(p -> new PaymentDto(
                 p.getId(),
                 p.getCreatedAt(),
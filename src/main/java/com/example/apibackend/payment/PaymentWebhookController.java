@@ -1,8 +1,7 @@
 package com.example.apibackend.payment;
 
 import com.example.apibackend.cart.CartService;
-import com.example.apibackend.enrollment.Enrollment;
-import com.example.apibackend.enrollment.EnrollmentRepository;
+import com.example.apibackend.enrollment.EnrollmentService;
 import com.example.apibackend.user.User;
 import com.example.apibackend.course.Course;
 import com.example.apibackend.email.EmailService;
@@ -18,16 +17,15 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import com.stripe.model.Event;
-import com.stripe.model.PaymentIntent;
 import com.stripe.net.Webhook;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
 
 import jakarta.validation.Valid;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -36,10 +34,11 @@ import java.util.Optional;
 @Validated // Ensures request DTO validation
 public class PaymentWebhookController {
     private final PaymentRepository paymentRepo;
-    private final EnrollmentRepository enrollmentRepo;
+    private final EnrollmentService enrollmentService;
     private final EmailService emailService;
     private final PaymentItemRepository paymentItemRepository;
     private final CartService cartService;
+    private final WebhookEventRepository webhookEventRepository;
     private static final Logger log = LoggerFactory.getLogger(PaymentWebhookController.class);
 
     // Shared secret for signature verification (stub for now)
@@ -100,52 +99,18 @@ public class PaymentWebhookController {
             payment.setGatewayTxnId(payload.gatewayTxnId);
             paymentRepo.save(payment);
             Long userId = payment.getUser().getId();
-            // Bulk payment: enroll user in all courses from PaymentItems
+            // Bulk payment: enroll user in all courses from PaymentItems (single course payment as fallback)
             var paymentItems = paymentItemRepository.findAllByPaymentId(payment.getId());
-            if (!paymentItems.isEmpty()) {
-                for (var item : paymentItems) {
-                    Long courseId = item.getCourse().getId();
-                    if (!enrollmentRepo.existsByUserIdAndCourseId(userId, courseId)) {
-                        Enrollment enrollment = new Enrollment();
-                        enrollment.setUser(payment.getUser());
-                        enrollment.setCourse(item.getCourse());
-                        enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
-                        enrollmentRepo.save(enrollment);
-                        emailService.sendEnrollmentConfirmation(payment.getUser(), item.getCourse());
-                    } else {
-                        // If enrollment exists, set it back to ACTIVE (reactivation)
-                        Enrollment enrollment = enrollmentRepo.findByUserIdAndCourseId(userId, courseId).orElse(null);
-                        if (enrollment != null && enrollment.getStatus() != Enrollment.EnrollmentStatus.ACTIVE) {
-                            enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
-                            enrollment.setRevokedAt(null);
-                            enrollmentRepo.save(enrollment);
-                            emailService.sendEnrollmentConfirmation(payment.getUser(), item.getCourse());
-                        }
-                    }
-                    emailService.sendPaymentReceipt(payment.getUser(), item.getCourse(), payment);
+            List<Course> courses = !paymentItems.isEmpty()
+                    ? paymentItems.stream().map(PaymentItem::getCourse).toList()
+                    : payment.getCourse() != null ? List.of(payment.getCourse()) : List.of();
+            if (!courses.isEmpty()) {
+                for (Course course : enrollmentService.activateEnrollments(payment.getUser(), courses)) {
+                    emailService.sendEnrollmentConfirmation(payment.getUser(), course);
                 }
-                cartService.clearCart(userId);
-            } else if (payment.getCourse() != null) {
-                // Single course payment fallback
-                Long courseId = payment.getCourse().getId();
-                if (!enrollmentRepo.existsByUserIdAndCourseId(userId, courseId)) {
-                    Enrollment enrollment = new Enrollment();
-                    enrollment.setUser(payment.getUser());
-                    enrollment.setCourse(payment.getCourse());
-                    enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
-                    enrollmentRepo.save(enrollment);
-                    emailService.sendEnrollmentConfirmation(payment.getUser(), payment.getCourse());
-                } else {
-                    // If enrollment exists, set it back to ACTIVE (reactivation)
-                    Enrollment enrollment = enrollmentRepo.findByUserIdAndCourseId(userId, courseId).orElse(null);
-                    if (enrollment != null && enrollment.getStatus() != Enrollment.EnrollmentStatus.ACTIVE) {
-                        enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
-                        enrollment.setRevokedAt(null);
-                        enrollmentRepo.save(enrollment);
-                        emailService.sendEnrollmentConfirmation(payment.getUser(), payment.getCourse());
-                    }
+                for (Course course : courses) {
+                    emailService.sendPaymentReceipt(payment.getUser(), course, payment);
                 }
-                emailService.sendPaymentReceipt(payment.getUser(), payment.getCourse(), payment);
                 cartService.clearCart(userId);
             }
             log.info("Payment marked SUCCESS and enrollment(s) created if needed");
@@ -163,14 +128,13 @@ public class PaymentWebhookController {
     }
 
     /**
-     * Stripe webhook handler for payment_intent events.
-     * Verifies Stripe-Signature, parses event, and updates payment/enrollment atomically.
-     * Handles payment_intent.succeeded and payment_intent.payment_failed.
-     * Idempotent: replaying events is safe.
+     * Stripe webhook handler.
+     * Only verifies the Stripe-Signature and stores the raw event in the webhook_events inbox, then returns 200;
+     * WebhookInboxWorker applies payment_intent.succeeded / payment_intent.payment_failed in the background
+     * (PaymentFulfillmentService). Redelivered events (same Stripe event id) are dropped on insert.
      * Logs all attempts for audit.
      */
     @PostMapping("/stripe")
-    @Transactional
     public ResponseEntity<Void> handleStripeWebhook(
             @RequestBody String payload,
             @RequestHeader(value = "Stripe-Signature", required = false) String sigHeader
@@ -187,113 +151,12 @@ public class PaymentWebhookController {
             log.warn("Stripe webhook signature verification failed: {}", e.getMessage());
             return ResponseEntity.status(403).build();
         }
-        log.info("Stripe event type: {} id: {}", event.getType(), event.getId());
-        if ("payment_intent.succeeded".equals(event.getType()) || "payment_intent.payment_failed".equals(event.getType())) {
-            JsonNode dataObject;
-            try {
-                Object stripeObject = event.getData().getObject();
-                if (stripeObject instanceof String) {
-                    dataObject = objectMapper.readTree((String) stripeObject);
-                } else {
-                    dataObject = objectMapper.valueToTree(stripeObject);
-                }
-            } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
-                log.error("Failed to parse Stripe event data object: {}", e.getMessage());
-                return ResponseEntity.ok().build();
-            }
-            String paymentIntentId = dataObject.has("id") ? dataObject.get("id").asText() : null;
-            String status = "payment_intent.succeeded".equals(event.getType()) ? "SUCCESS" : "FAILED";
-            Long paymentId = null;
-            if (dataObject.has("metadata") && dataObject.get("metadata").has("paymentId")) {
-                try {
-                    paymentId = Long.valueOf(dataObject.get("metadata").get("paymentId").asText());
-                } catch (Exception ex) {
-                    log.warn("Could not parse paymentId from Stripe metadata: {}", ex.getMessage());
-                }
-            }
-            Payment payment = null;
-            if (paymentId != null) {
-                payment = paymentRepo.findById(paymentId).orElse(null);
-            } else if (paymentIntentId != null) {
-                payment = paymentRepo.findByGatewayTxnId(paymentIntentId).orElse(null);
-            }
-            if (payment == null) {
-                log.warn("No matching Payment found for Stripe PaymentIntent id {}", paymentIntentId);
-                return ResponseEntity.ok().build();
-            }
-            // Idempotency: if already processed, return 200
-            if (payment.getStatus() == Payment.PaymentStatus.SUCCESS && "SUCCESS".equals(status)) {
-                log.info("Payment already marked SUCCESS, idempotent webhook");
-                return ResponseEntity.ok().build();
-            }
-            if (payment.getStatus() == Payment.PaymentStatus.FAILED && "FAILED".equals(status)) {
-                log.info("Payment already marked FAILED, idempotent webhook");
-                return ResponseEntity.ok().build();
-            }
-            if ("SUCCESS".equals(status) && payment.getStatus() == Payment.PaymentStatus.PENDING) {
-                payment.setStatus(Payment.PaymentStatus.SUCCESS);
-                payment.setGatewayTxnId(paymentIntentId);
-                paymentRepo.save(payment);
-                Long userId = payment.getUser().getId();
-                if (payment.getCourse() != null) {
-                    // Single course payment
-                    Long courseId = payment.getCourse().getId();
-                    boolean alreadyEnrolled = enrollmentRepo.existsByUserIdAndCourseId(userId, courseId);
-                    if (!alreadyEnrolled) {
-                        Enrollment enrollment = new Enrollment();
-                        enrollment.setUser(payment.getUser());
-                        enrollment.setCourse(payment.getCourse());
-                        enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
-                        enrollmentRepo.save(enrollment);
-                        emailService.sendEnrollmentConfirmation(payment.getUser(), payment.getCourse());
-                    } else {
-                        // If enrollment exists, set it back to ACTIVE (reactivation)
-                        Enrollment enrollment = enrollmentRepo.findByUserIdAndCourseId(userId, courseId).orElse(null);
-                        if (enrollment != null && enrollment.getStatus() != Enrollment.EnrollmentStatus.ACTIVE) {
-                            enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
-                            enrollment.setRevokedAt(null);
-                            enrollmentRepo.save(enrollment);
-                            emailService.sendEnrollmentConfirmation(payment.getUser(), payment.getCourse());
-                        }
-                    }
-                    emailService.sendPaymentReceipt(payment.getUser(), payment.getCourse(), payment);
-                } else {
-                    // Cart (bulk) payment: enroll user in all courses from PaymentItems
-                    var paymentItems = paymentItemRepository.findAllByPaymentId(payment.getId());
-                    for (var item : paymentItems) {
-                        Long courseId = item.getCourse().getId();
-                        boolean alreadyEnrolled = enrollmentRepo.existsByUserIdAndCourseId(userId, courseId);
-                        if (!alreadyEnrolled) {
-                            Enrollment enrollment = new Enrollment();
-                            enrollment.setUser(payment.getUser());
-                            enrollment.setCourse(item.getCourse());
-                            enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
-                            enrollmentRepo.save(enrollment);
-                            emailService.sendEnrollmentConfirmation(payment.getUser(), item.getCourse());
-                        } else {
-                            // If enrollment exists, set it back to ACTIVE (reactivation)
-                            Enrollment enrollment = enrollmentRepo.findByUserIdAndCourseId(userId, courseId).orElse(null);
-                            if (enrollment != null && enrollment.getStatus() != Enrollment.EnrollmentStatus.ACTIVE) {
-                                enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
-                                enrollment.setRevokedAt(null);
-                                enrollmentRepo.save(enrollment);
-                                emailService.sendEnrollmentConfirmation(payment.getUser(), item.getCourse());
-                            }
-                        }
-                        emailService.sendPaymentReceipt(payment.getUser(), item.getCourse(), payment);
-                    }
-                }
-                log.info("Payment marked SUCCESS and enrollment(s) created if needed");
-            } else if ("FAILED".equals(status)) {
-                payment.setStatus(Payment.PaymentStatus.FAILED);
-                paymentRepo.save(payment);
-                log.info("Payment {} marked as FAILED via Stripe webhook", payment.getId());
-            }
-            // Always return 200 for processed webhooks
-            return ResponseEntity.ok().build();
+        int inserted = webhookEventRepository.insertIfAbsent(event.getId(), event.getType(), payload);
+        if (inserted == 0) {
+            log.info("Stripe event {} already in inbox, ignoring redelivery", event.getId());
+        } else {
+            log.info("Stripe event type: {} id: {} queued", event.getType(), event.getId());
         }
-        // Log and ignore other event types (test events, etc.)
-        log.info("Unhandled Stripe event type: {}", event.getType());
         return ResponseEntity.ok().build();
     }
 
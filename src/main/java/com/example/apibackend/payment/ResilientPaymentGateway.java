@@ -0,0 +1,84 @@
+package com.example.apibackend.payment;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Guards every call to the real gateway so provider slowness cannot take the rest of the API down:
+ * - a semaphore bulkhead caps concurrent gateway calls per instance; callers wait at most max-wait for a
+ *   permit, then get PaymentGatewayUnavailableException (503) instead of queueing request threads;
+ * - a circuit breaker opens on a high rate of provider failures or slow calls and fails fast until the
+ *   provider recovers (client errors such as declined cards are ignored, see PaymentGatewayException);
+ * - payment.gateway.calls{operation, outcome} records latency as a percentile histogram.
+ * Per-call timeouts are the delegate's (HTTP connect/read timeouts of StripePaymentGateway).
+ */
+public class ResilientPaymentGateway implements PaymentGateway {
+    private static final Duration BULKHEAD_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final PaymentGateway delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final MeterRegistry meterRegistry;
+
+    public ResilientPaymentGateway(PaymentGateway delegate, CircuitBreaker circuitBreaker, Bulkhead bulkhead, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Intent createIntent(IntentRequest request) {
+        return call("create_intent", () -> delegate.createIntent(request));
+    }
+
+    @Override
+    public Intent retrieveIntent(String intentId) {
+        return call("retrieve_intent", () -> delegate.retrieveIntent(intentId));
+    }
+
+    @Override
+    public void refund(String intentId, String idempotencyKey) {
+        call("refund", () -> {
+            delegate.refund(intentId, idempotencyKey);
+            return null;
+        });
+    }
+
+    private <T> T call(String operation, Supplier<T> call) {
+        // bulkhead outermost: calls rejected for capacity are not provider failures and must not trip the breaker
+        Supplier<T> guarded = Bulkhead.decorateSupplier(bulkhead, CircuitBreaker.decorateSupplier(circuitBreaker, call));
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return guarded.get();
+        } catch (BulkheadFullException e) {
+            outcome = "rejected";
+            throw new PaymentGatewayUnavailableException("Payment gateway is at capacity, try again shortly", e, BULKHEAD_RETRY_AFTER);
+        } catch (CallNotPermittedException e) {
+            outcome = "rejected";
+            // the breaker lets trial calls through after its open-state wait
+            Duration openWait = Duration.ofMillis(circuitBreaker.getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1));
+            throw new PaymentGatewayUnavailableException("Payment gateway is temporarily unavailable", e, openWait);
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            Timer.builder("payment.gateway.calls")
+                    .description("Latency of payment gateway calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.apibackend.payment;
+
+import com.stripe.exception.IdempotencyException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.Refund;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.RefundCreateParams;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * PaymentGateway backed by the Stripe SDK (api key set by StripeConfig).
+ * Every call carries explicit connect/read timeouts, so a slow Stripe cannot hold a thread indefinitely.
+ * Created by PaymentGatewayConfig and only used wrapped in ResilientPaymentGateway.
+ */
+public class StripePaymentGateway implements PaymentGateway {
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    public StripePaymentGateway(Duration connectTimeout, Duration readTimeout) {
+        this.connectTimeoutMillis = Math.toIntExact(connectTimeout.toMillis());
+        this.readTimeoutMillis = Math.toIntExact(readTimeout.toMillis());
+    }
+
+    @Override
+    public Intent createIntent(IntentRequest request) {
+        PaymentIntentCreateParams.Builder params = PaymentIntentCreateParams.builder()
+                .setAmount(request.amountCents())
+                .setCurrency(request.currency().toLowerCase(Locale.ROOT))
+                .setDescription(request.description());
+        request.metadata().forEach(params::putMetadata);
+        try {
+            PaymentIntent intent = PaymentIntent.create(params.build(), options(request.idempotencyKey()));
+            return new Intent(intent.getId(), intent.getClientSecret());
+        } catch (StripeException e) {
+            throw translate("Stripe PaymentIntent creation failed", e);
+        }
+    }
+
+    @Override
+    public Intent retrieveIntent(String intentId) {
+        try {
+            PaymentIntent intent = PaymentIntent.retrieve(intentId, options(null));
+            return new Intent(intent.getId(), intent.getClientSecret());
+        } catch (StripeException e) {
+            throw translate("Failed to fetch Stripe clientSecret", e);
+        }
+    }
+
+    @Override
+    public void refund(String intentId, String idempotencyKey) {
+        RefundCreateParams params = RefundCreateParams.builder()
+                .setPaymentIntent(intentId)
+                .build();
+        try {
+            Refund.create(params, options(idempotencyKey));
+        } catch (StripeException e) {
+            throw translate("Stripe refund failed", e);
+        }
+    }
+
+    private RequestOptions options(String idempotencyKey) {
+        return RequestOptions.builder()
+                .setIdempotencyKey(idempotencyKey)
+                .setConnectTimeout(connectTimeoutMillis)
+                .setReadTimeout(readTimeoutMillis)
+                .build();
+    }
+
+    // No HTTP status (connection/timeout), 5xx and 429 mean Stripe is struggling; other 4xx are our request's fault.
+    // An idempotency error is a 4xx that rejects nothing: the key's first request is still running or has succeeded.
+    static PaymentGatewayException translate(String message, StripeException e) {
+        Integer status = e.getStatusCode();
+        boolean providerFailure = status == null || status >= 500 || status == 429;
+        boolean rejected = !providerFailure && !(e instanceof IdempotencyException);
+        return new PaymentGatewayException(message, e, providerFailure, rejected);
+    }
+}
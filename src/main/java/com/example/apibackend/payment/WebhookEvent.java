@@ -0,0 +1,69 @@
+package com.example.apibackend.payment;
+
+import com.example.apibackend.queue.LeasedRow;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A verified gateway webhook waiting in (or drained from) the webhook_events inbox (V27).
+ * Rows are inserted by PaymentWebhookController via WebhookEventRepository.insertIfAbsent
+ * and moved through PENDING -> PROCESSING -> PROCESSED (or FAILED) by WebhookInboxWorker.
+ */
+@Getter
+@Entity
+@Table(name = "webhook_events")
+public class WebhookEvent implements LeasedRow {
+    public enum Status { PENDING, PROCESSING, PROCESSED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Gateway event id (Stripe evt_...), unique: redelivered events are dropped on insert
+    @Column(name = "event_id", nullable = false, unique = true, length = 255)
+    private String eventId;
+
+    @Column(nullable = false, length = 100)
+    private String type;
+
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String payload;
+
+    @Setter
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Setter
+    @Column(nullable = false)
+    private int attempts;
+
+    @Setter
+    @Column(name = "last_error", length = 512)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false, insertable = false, updatable = false)
+    private Instant receivedAt;
+
+    @Setter
+    @Column(name = "next_attempt_at", nullable = false, insertable = false)
+    private Instant nextAttemptAt;
+
+    @Setter
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    @Override
+    public void retryAt(Instant nextAttemptAt) {
+        this.status = Status.PENDING;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    @Override
+    public void giveUp() {
+        this.status = Status.FAILED;
+    }
+}
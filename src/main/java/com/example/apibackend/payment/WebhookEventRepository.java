@@ -0,0 +1,56 @@
+package com.example.apibackend.payment;
+
+import com.example.apibackend.queue.LeasedRowRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long>, LeasedRowRepository {
+
+    /**
+     * Stores a verified event unless one with the same gateway event id is already in the inbox.
+     * Returns 1 if inserted, 0 for a redelivery (MySQL INSERT IGNORE on uk_webhook_events_event_id).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT IGNORE INTO webhook_events (event_id, type, payload, status, attempts)
+            VALUES (:eventId, :type, :payload, 'PENDING', 0)
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId, @Param("type") String type, @Param("payload") String payload);
+
+    // Claimable: PENDING, or PROCESSING whose lease expired after a crash (see LeasedRowRepository)
+    @Override
+    @Query(value = """
+            SELECT id FROM webhook_events
+            WHERE status IN ('PENDING', 'PROCESSING') AND next_attempt_at <= :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Long> lockClaimable(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Override
+    @Modifying
+    @Query("""
+            UPDATE WebhookEvent e
+            SET e.status = com.example.apibackend.payment.WebhookEvent.Status.PROCESSING,
+                e.nextAttemptAt = :leaseUntil,
+                e.attempts = e.attempts + 1
+            WHERE e.id IN :ids
+            """)
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseUntil") Instant leaseUntil);
+
+    long countByStatusIn(Collection<WebhookEvent.Status> statuses);
+
+    @Query("select min(e.receivedAt) from WebhookEvent e where e.status in :statuses")
+    Instant findOldestReceivedAt(@Param("statuses") Collection<WebhookEvent.Status> statuses);
+}
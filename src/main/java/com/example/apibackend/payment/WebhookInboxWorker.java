@@ -0,0 +1,166 @@
+package com.example.apibackend.payment;
+
+import com.example.apibackend.queue.LeasedQueue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the webhook_events inbox filled by PaymentWebhookController.
+ * - Each poll claims a batch through LeasedQueue (SELECT ... FOR UPDATE SKIP LOCKED, then PROCESSING
+ *   with a lease), so several instances can run side by side; rows of a crashed worker are picked up
+ *   after the lease.
+ * - Claimed events are applied on a fixed worker pool, one transaction per event: fulfilment and the
+ *   PROCESSED mark commit together. A failure puts the row back to PENDING with exponential backoff,
+ *   and to FAILED after max-attempts (left for manual inspection, last_error says why).
+ * - Metrics: webhook.inbox.depth (pending + in flight), webhook.inbox.oldest.age (seconds the oldest
+ *   unprocessed event has waited), webhook.inbox.lag (received -> processed), webhook.inbox.processing.
+ */
+@Component
+public class WebhookInboxWorker {
+    private static final Logger log = LoggerFactory.getLogger(WebhookInboxWorker.class);
+    private static final Set<WebhookEvent.Status> UNPROCESSED = Set.of(WebhookEvent.Status.PENDING, WebhookEvent.Status.PROCESSING);
+
+    private final WebhookEventRepository inbox;
+    private final PaymentFulfillmentService fulfillmentService;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+    private final ExecutorService workers;
+    private final LeasedQueue queue;
+
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong oldestAgeMillis = new AtomicLong();
+    private final Timer lagTimer;
+    private final Timer processedTimer;
+    private final Timer failedTimer;
+
+    public WebhookInboxWorker(WebhookEventRepository inbox,
+                              PaymentFulfillmentService fulfillmentService,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.webhooks.workers:4}") int workerCount,
+                              @Value("${app.webhooks.batch-size:50}") int batchSize,
+                              @Value("${app.webhooks.max-attempts:10}") int maxAttempts,
+                              @Value("${app.webhooks.lease:5m}") Duration lease,
+                              @Value("${app.webhooks.base-backoff:5s}") Duration baseBackoff) {
+        this(inbox, fulfillmentService, new TransactionTemplate(transactionManager), meterRegistry, Clock.systemUTC(),
+                workerCount, batchSize, maxAttempts, lease, baseBackoff);
+    }
+
+    WebhookInboxWorker(WebhookEventRepository inbox,
+                       PaymentFulfillmentService fulfillmentService,
+                       TransactionTemplate tx,
+                       MeterRegistry meterRegistry,
+                       Clock clock,
+                       int workerCount, int batchSize, int maxAttempts, Duration lease, Duration baseBackoff) {
+        this.inbox = inbox;
+        this.fulfillmentService = fulfillmentService;
+        this.tx = tx;
+        this.clock = clock;
+        this.workers = Executors.newFixedThreadPool(workerCount, Thread.ofPlatform().name("webhook-worker-", 0).daemon().factory());
+        this.queue = new LeasedQueue(inbox, batchSize, maxAttempts, lease, baseBackoff);
+        Gauge.builder("webhook.inbox.depth", depth, AtomicLong::get)
+                .description("Webhook events received but not yet processed")
+                .register(meterRegistry);
+        Gauge.builder("webhook.inbox.oldest.age", oldestAgeMillis, v -> v.get() / 1000.0)
+                .description("Seconds the oldest unprocessed webhook event has been waiting")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("webhook.inbox.lag")
+                .description("Time from webhook receipt to successful processing")
+                .register(meterRegistry);
+        this.processedTimer = Timer.builder("webhook.inbox.processing").tag("outcome", "processed").register(meterRegistry);
+        this.failedTimer = Timer.builder("webhook.inbox.processing").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Claims and applies batches until the inbox has nothing claimable, then refreshes the gauges.
+     */
+    @Scheduled(fixedDelayString = "${app.webhooks.poll-delay:500ms}")
+    public void drain() {
+        List<Long> batch;
+        do {
+            batch = claimBatch();
+            List<CompletableFuture<Void>> running = new ArrayList<>(batch.size());
+            for (Long id : batch) {
+                running.add(CompletableFuture.runAsync(() -> process(id), workers));
+            }
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+        } while (batch.size() == queue.batchSize());
+        refreshGauges();
+    }
+
+    List<Long> claimBatch() {
+        return tx.execute(status -> queue.claimBatch(clock.instant()));
+    }
+
+    void process(Long id) {
+        long start = System.nanoTime();
+        try {
+            tx.executeWithoutResult(status -> {
+                WebhookEvent event = inbox.findById(id).orElse(null);
+                if (event == null || event.getStatus() != WebhookEvent.Status.PROCESSING) {
+                    return; // finished elsewhere after a lease expiry
+                }
+                fulfillmentService.applyStripeEvent(event.getType(), event.getPayload());
+                Instant now = clock.instant();
+                event.setStatus(WebhookEvent.Status.PROCESSED);
+                event.setProcessedAt(now);
+                event.setLastError(null);
+                if (event.getReceivedAt() != null) {
+                    lagTimer.record(Duration.between(event.getReceivedAt(), now));
+                }
+            });
+            processedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            recordFailure(id, e);
+        }
+    }
+
+    private void recordFailure(Long id, RuntimeException cause) {
+        try {
+            tx.executeWithoutResult(status -> inbox.findById(id).ifPresent(event -> {
+                if (queue.recordFailure(event, cause, clock.instant())) {
+                    log.error("Webhook event {} ({}) failed {} times, giving up", event.getEventId(), event.getType(), event.getAttempts(), cause);
+                } else {
+                    log.warn("Webhook event {} ({}) failed on attempt {}, will retry: {}", event.getEventId(), event.getType(), event.getAttempts(), cause.getMessage());
+                }
+            }));
+        } catch (RuntimeException e) {
+            // the lease expires and the event is retried anyway
+            log.error("Could not record failure of webhook event row {}", id, e);
+        }
+    }
+
+    void refreshGauges() {
+        depth.set(inbox.countByStatusIn(UNPROCESSED));
+        Instant oldest = inbox.findOldestReceivedAt(UNPROCESSED);
+        oldestAgeMillis.set(oldest == null ? 0 : Math.max(Duration.between(oldest, clock.instant()).toMillis(), 0));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.apibackend.queue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Claim-with-lease and retry bookkeeping shared by the database-backed queues (WebhookInboxWorker,
+ * EmailDispatcher). Transactions, worker pools, metrics and logging stay with the caller.
+ * - Claiming: lock a batch of claimable rows, then lease them (in-flight until now + lease), in one
+ *   transaction. A worker that crashes mid-batch leaves rows that are claimable again after the lease.
+ * - Failures: the row goes back to pending after an exponential backoff, or to failed once it has
+ *   used max-attempts; last_error keeps the (truncated) message.
+ */
+public final class LeasedQueue {
+    static final int MAX_ERROR_LENGTH = 512;
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final LeasedRowRepository rows;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration baseBackoff;
+
+    public LeasedQueue(LeasedRowRepository rows, int batchSize, int maxAttempts, Duration lease, Duration baseBackoff) {
+        this.rows = rows;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.baseBackoff = baseBackoff;
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Locks and leases up to batch-size claimable rows, oldest first. Must run inside a transaction.
+     */
+    public List<Long> claimBatch(Instant now) {
+        List<Long> ids = lockBatch(now);
+        if (!ids.isEmpty()) {
+            claim(ids, now);
+        }
+        return ids;
+    }
+
+    /**
+     * Locks up to batch-size claimable rows without leasing them yet, for callers that lock related
+     * rows too before claiming everything with claim(). Must run inside a transaction.
+     */
+    public List<Long> lockBatch(Instant now) {
+        return rows.lockClaimable(now, batchSize);
+    }
+
+    public void claim(Collection<Long> ids, Instant now) {
+        rows.claim(ids, now.plus(lease));
+    }
+
+    /**
+     * Records a failed attempt on a claimed row; call inside the transaction that loaded it.
+     * Returns true if the row gave up (FAILED), false if it was scheduled for a retry.
+     */
+    public boolean recordFailure(LeasedRow row, RuntimeException cause, Instant now) {
+        row.setLastError(truncatedMessage(cause));
+        if (row.getAttempts() >= maxAttempts) {
+            row.giveUp();
+            return true;
+        }
+        row.retryAt(now.plus(backoff(row.getAttempts())));
+        return false;
+    }
+
+    // base * 2^(attempts-1), capped at one hour
+    Duration backoff(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        Duration delay = baseBackoff.multipliedBy(1L << exponent);
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    static String truncatedMessage(RuntimeException cause) {
+        String error = String.valueOf(cause.getMessage());
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.apibackend.queue;
+
+import java.time.Instant;
+
+/**
+ * A row of a leased work table, as LeasedQueue sees it when an attempt fails.
+ */
+public interface LeasedRow {
+
+    int getAttempts();
+
+    void setLastError(String lastError);
+
+    // Back to pending, claimable again from the given time
+    void retryAt(Instant nextAttemptAt);
+
+    // Terminal failure, left for manual inspection
+    void giveUp();
+}
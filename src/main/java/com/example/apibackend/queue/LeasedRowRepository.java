@@ -0,0 +1,21 @@
+package com.example.apibackend.queue;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Claim queries of a table drained by LeasedQueue (webhook_events, email_outbox).
+ * Repositories implement both with table-specific SQL:
+ * - lockClaimable: SELECT id ... WHERE status IN (pending, in-flight) AND next_attempt_at <= :now
+ *   ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED. In-flight rows only come back once their
+ *   lease expired (crashed worker); SKIP LOCKED lets several workers/instances claim disjoint batches.
+ * - claim: sets the in-flight status, next_attempt_at = :leaseUntil and attempts + 1.
+ * Both must run in the same transaction.
+ */
+public interface LeasedRowRepository {
+
+    List<Long> lockClaimable(Instant now, int limit);
+
+    int claim(Collection<Long> ids, Instant leaseUntil);
+}
@@ -0,0 +1,81 @@
+package com.example.apibackend.report;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal RFC 4180 CSV writer for the admin report exports.
+ * - Writes straight to the response stream (UTF-8, buffered); nothing is held per row.
+ * - Fields containing a comma, quote, CR or LF are quoted, with embedded quotes doubled.
+ * - null is written as an empty field.
+ * Not thread-safe: one instance per export.
+ */
+public class CsvWriter implements Flushable {
+    private final Writer out;
+    private boolean firstField = true;
+
+    public CsvWriter(OutputStream outputStream) {
+        this.out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    /** Writes a complete row (header or data). */
+    public CsvWriter row(Object... fields) throws IOException {
+        for (Object field : fields) {
+            field(field);
+        }
+        return endRow();
+    }
+
+    public CsvWriter field(Object value) throws IOException {
+        if (!firstField) {
+            out.write(',');
+        }
+        firstField = false;
+        if (value != null) {
+            writeEscaped(value.toString());
+        }
+        return this;
+    }
+
+    public CsvWriter endRow() throws IOException {
+        out.write('\n');
+        firstField = true;
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        if (!needsQuoting(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -10,7 +10,10 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_course_created", columnList = "course_id, created_at, id"),     // V30
+        @Index(name = "idx_reviews_user_course_created", columnList = "user_id, course_id, created_at") // V31
+})
 public class Review {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
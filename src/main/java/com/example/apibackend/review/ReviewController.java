@@ -1,43 +1,96 @@
 package com.example.apibackend.review;
 
+import com.example.apibackend.auth.UserPrincipal;
+import com.example.apibackend.course.CatalogCacheInvalidator;
+import com.example.apibackend.course.CourseRepository;
 import com.example.apibackend.enrollment.EnrollmentRepository;
 import com.example.apibackend.enrollment.Enrollment;
-import com.example.apibackend.user.User;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/courses/{courseId}/reviews")
 public class ReviewController {
+    private static final int MAX_CURSOR_PAGE_SIZE = 50;
+
     private final ReviewRepository reviewRepo;
     private final EnrollmentRepository enrollmentRepo;
+    private final CourseRepository courseRepo;
+    private final CatalogCacheInvalidator cacheInvalidator;
 
-    public ReviewController(ReviewRepository reviewRepo, EnrollmentRepository enrollmentRepo) {
+    public ReviewController(ReviewRepository reviewRepo, EnrollmentRepository enrollmentRepo, CourseRepository courseRepo, CatalogCacheInvalidator cacheInvalidator) {
         this.reviewRepo = reviewRepo;
         this.enrollmentRepo = enrollmentRepo;
+        this.courseRepo = courseRepo;
+        this.cacheInvalidator = cacheInvalidator;
     }
 
+    // Read-only transactions: served by the read replica when routing is on (ReadReplicaConfig).
+    // Mapped to DTOs here: serializing the entities would walk the lazy course and expose the user's password hash.
     @GetMapping
-    public Page<Review> getReviews(@PathVariable Long courseId, @PageableDefault(size = 10) Pageable pageable) {
-        return reviewRepo.findByCourseId(courseId, pageable);
+    @Transactional(readOnly = true)
+    public Page<ReviewDto> getReviews(@PathVariable Long courseId, @PageableDefault(size = 10) Pageable pageable) {
+        return reviewRepo.findByCourseId(courseId, pageable).map(ReviewDto::new);
+    }
+
+    /**
+     * Cursor-paged reviews, newest first: pass the previous page's nextCursor to continue.
+     * Each page is one index range scan on (course_id, created_at, id), so deep pages cost the same as the first.
+     */
+    @GetMapping("/scroll")
+    @Transactional(readOnly = true)
+    public ReviewCursorPage scrollReviews(@PathVariable Long courseId,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "10") int size) {
+        int pageSize = Math.clamp(size, 1, MAX_CURSOR_PAGE_SIZE);
+        // one extra row tells whether there is a next page, without a COUNT
+        PageRequest limit = PageRequest.ofSize(pageSize + 1);
+        List<ReviewDto> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = reviewRepo.findFirstPageByCourseId(courseId, limit);
+        } else {
+            ReviewCursor after = decodeCursor(cursor);
+            rows = reviewRepo.findPageByCourseIdBefore(courseId, after.createdAt(), after.id(), limit);
+        }
+        if (rows.size() <= pageSize) {
+            return new ReviewCursorPage(rows, null);
+        }
+        List<ReviewDto> page = rows.subList(0, pageSize);
+        return new ReviewCursorPage(page, ReviewCursor.after(page.get(pageSize - 1)).encode());
+    }
+
+    private static ReviewCursor decodeCursor(String cursor) {
+        try {
+            return ReviewCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
     }
 
+    // Review insert and the course's rating_sum/rating_count bump commit together
     @PostMapping
     @PreAuthorize("isAuthenticated()")
+    @Transactional
     public ResponseEntity<?> postReview(
             @PathVariable Long courseId,
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody ReviewRequest req
     ) {
-        // Only enrolled users can post
-        Optional<Enrollment> enrollmentOpt = enrollmentRepo.findByUserIdAndCourseId(user.getId(), courseId);
+        // Only enrolled users can post. The enrollment row is locked until commit, so parallel posts by the
+        // same user for this course run one at a time and the cooldown check below sees the earlier insert.
+        Optional<Enrollment> enrollmentOpt = enrollmentRepo.findForUpdateByUserIdAndCourseId(user.id(), courseId);
         if (enrollmentOpt.isEmpty() || enrollmentOpt.get().getStatus() != Enrollment.EnrollmentStatus.ACTIVE) {
             return ResponseEntity.status(403).body("Must be enrolled to review");
         }
@@ -46,14 +99,12 @@ public class ReviewController {
             return ResponseEntity.badRequest().body("Comment too short");
         }
         Instant fiveMinutesAgo = Instant.now().minusSeconds(300);
-        boolean recent = reviewRepo.findByCourseId(courseId).stream()
-            .anyMatch(r -> r.getUser().getId().equals(user.getId()) && r.getCreatedAt().isAfter(fiveMinutesAgo));
-        if (recent) {
+        if (reviewRepo.existsByUserIdAndCourseIdAndCreatedAtAfter(user.id(), courseId, fiveMinutesAgo)) {
             return ResponseEntity.status(429).body("Please wait before posting another review");
         }
         // Save review
         Review review = new Review();
-        review.setUser(user);
+        review.setUser(enrollmentOpt.get().getUser()); // the principal is a record, not an entity; this is the same user
         // Fix: setCourse expects a Course, not a courseId
         com.example.apibackend.course.Course course = enrollmentOpt.get().getCourse();
         review.setCourse(course);
@@ -61,17 +112,22 @@ public class ReviewController {
         review.setComment(req.comment);
         review.setCreatedAt(Instant.now());
         reviewRepo.save(review);
+        courseRepo.addRating(courseId, review.getRating());
+        cacheInvalidator.reviewsChanged(courseId);
         return ResponseEntity.status(201).body(new ReviewDto(review));
     }
 
     @DeleteMapping("/{reviewId}")
     @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
     public ResponseEntity<?> deleteReview(@PathVariable Long courseId, @PathVariable Long reviewId) {
         Optional<Review> reviewOpt = reviewRepo.findById(reviewId);
         if (reviewOpt.isEmpty() || !reviewOpt.get().getCourse().getId().equals(courseId)) {
             return ResponseEntity.notFound().build();
         }
         reviewRepo.deleteById(reviewId);
+        courseRepo.removeRating(courseId, reviewOpt.get().getRating());
+        cacheInvalidator.reviewsChanged(courseId);
         return ResponseEntity.noContent().build();
     }
 
@@ -0,0 +1,13 @@
+package com.example.apibackend.review;
+
+import java.util.List;
+
+/**
+ * One keyset page of a course's reviews, newest first.
+ * nextCursor is passed back as ?cursor= for the following page; null on the last page.
+ */
+public record ReviewCursorPage(
+        List<ReviewDto> content,
+        String nextCursor
+) {
+}
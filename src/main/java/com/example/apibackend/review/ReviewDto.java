@@ -1,5 +1,6 @@
 package com.example.apibackend.review;
 
+import java.io.Serializable;
 import java.time.Instant;
 
 public record ReviewDto(
@@ -9,7 +10,7 @@ public record ReviewDto(
     int rating,
     String comment,
     Instant createdAt
-) {
+) implements Serializable {
     public ReviewDto(Review review) {
         this(
             review.getId(),
@@ -3,20 +3,60 @@ package com.example.apibackend.review;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.time.Instant;
 import java.util.List;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
+    // Author fetched in the same SELECT: callers map the page to ReviewDto (user id/email)
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = "user")
     Page<Review> findByCourseId(Long courseId, Pageable pageable);
-    List<Review> findByCourseId(Long courseId);
     long countByCourseId(Long courseId);
 
+    // Review cooldown: has this user reviewed the course since :after? (idx_reviews_user_course_created)
+    boolean existsByUserIdAndCourseIdAndCreatedAtAfter(Long userId, Long courseId, Instant after);
+
     // Returns average rating for a course (custom JPQL)
     @org.springframework.data.jpa.repository.Query("SELECT AVG(r.rating) FROM Review r WHERE r.course.id = :courseId")
     Double findAverageRatingByCourseId(@org.springframework.data.repository.query.Param("courseId") Long courseId);
 
     List<Review> findTop5ByCourseIdOrderByCreatedAtDesc(Long courseId);
+
+    // Most recent reviews with their author fetched in the same SELECT (ReviewDto reads user id/email)
+    @Query("SELECT r FROM Review r JOIN FETCH r.user WHERE r.course.id = :courseId ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findRecentWithUserByCourseId(@Param("courseId") Long courseId, Pageable pageable);
+
+    /**
+     * First keyset page of a course's reviews, newest first, as DTOs built in the query (author joined,
+     * no entities or lazy loads). Served by idx_reviews_course_created; no OFFSET, no COUNT.
+     */
+    @Query("""
+            select new com.example.apibackend.review.ReviewDto(r.id, u.id, u.email, r.rating, r.comment, r.createdAt)
+            from Review r
+            join r.user u
+            where r.course.id = :courseId
+            order by r.createdAt desc, r.id desc
+            """)
+    List<ReviewDto> findFirstPageByCourseId(@Param("courseId") Long courseId, Pageable pageable);
+
+    /**
+     * Next keyset page: reviews strictly older than the (beforeCreatedAt, beforeId) cursor, i.e. the
+     * last row of the previous page. Same index range scan as the first page, whatever the depth.
+     */
+    @Query("""
+            select new com.example.apibackend.review.ReviewDto(r.id, u.id, u.email, r.rating, r.comment, r.createdAt)
+            from Review r
+            join r.user u
+            where r.course.id = :courseId
+              and (r.createdAt < :beforeCreatedAt or (r.createdAt = :beforeCreatedAt and r.id < :beforeId))
+            order by r.createdAt desc, r.id desc
+            """)
+    List<ReviewDto> findPageByCourseIdBefore(@Param("courseId") Long courseId,
+                                             @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                             @Param("beforeId") Long beforeId,
+                                             Pageable pageable);
+
     // If you want a custom query for performance or compatibility:
     @Query("SELECT r FROM Review r WHERE r.course.id = :courseId ORDER BY r.createdAt DESC")
     List<Review> findRecentReviewsForCourse(@Param("courseId") Long courseId);
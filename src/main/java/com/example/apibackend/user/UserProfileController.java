@@ -1,5 +1,6 @@
 package com.example.apibackend.user;
 
+import com.example.apibackend.auth.PrincipalCache;
 import com.example.apibackend.enrollment.EnrollmentRepository;
 import io.jsonwebtoken.Claims;
 import jakarta.validation.constraints.NotBlank;
@@ -24,6 +25,10 @@ public class UserProfileController {
     @Autowired
     private BCryptPasswordEncoder passwordEncoder;
 
+    // Every write to a user row below evicts the cached principal used by JwtAuthFilter
+    @Autowired
+    private PrincipalCache principalCache;
+
     // Helper: get current user from JWT, ignoring deleted users
     private User getCurrentUser() {
         String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -64,6 +69,7 @@ public class UserProfileController {
             // If you have a name field in User, set it here
             // user.setName(req.name);
             userRepo.save(user);
+            principalCache.evict(user.getId());
         }
         long enrolledCourseCount = enrollmentRepo.countByUserId(user.getId());
         UserProfileDto dto = new UserProfileDto();
@@ -90,6 +96,7 @@ public class UserProfileController {
         }
         user.setPasswordHash(passwordEncoder.encode(req.newPassword));
         userRepo.save(user);
+        principalCache.evict(user.getId());
         return ResponseEntity.noContent().build();
     }
 
@@ -107,6 +114,7 @@ public class UserProfileController {
         if (user == null) return ResponseEntity.status(401).build();
         user.setDeletedAt(java.time.Instant.now());
         userRepo.save(user);
+        principalCache.evict(user.getId());
         // Optionally, log out the user or invalidate tokens here
         return ResponseEntity.ok().build();
     }
@@ -121,6 +129,7 @@ public class UserProfileController {
         if (user == null) return ResponseEntity.notFound().build();
         user.setDeletedAt(null);
         userRepo.save(user);
+        principalCache.evict(user.getId());
         return ResponseEntity.ok().build();
     }
 
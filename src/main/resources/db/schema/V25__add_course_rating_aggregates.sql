@@ -0,0 +1,15 @@
+-- Denormalized review aggregates so listings/detail read the average in O(1)
+-- Maintained by ReviewController on post/delete; RatingAggregateReconciler repairs drift
+ALTER TABLE courses
+ADD COLUMN rating_sum BIGINT NOT NULL DEFAULT 0,
+ADD COLUMN rating_count INT NOT NULL DEFAULT 0;
+
+-- Backfill from existing reviews
+UPDATE courses c
+JOIN (
+    SELECT course_id, SUM(rating) AS rating_sum, COUNT(*) AS rating_count
+    FROM reviews
+    GROUP BY course_id
+) r ON r.course_id = c.id
+SET c.rating_sum = r.rating_sum,
+    c.rating_count = r.rating_count;
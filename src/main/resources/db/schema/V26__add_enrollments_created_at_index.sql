@@ -0,0 +1,2 @@
+-- Range + keyset scans for the admin enrollments CSV export (ORDER BY created_at, id)
+CREATE INDEX idx_enrollments_created_at ON enrollments (created_at, id);
@@ -0,0 +1,20 @@
+-- Durable inbox for Stripe webhooks: the endpoint verifies + inserts, WebhookInboxWorker applies them.
+-- event_id is Stripe's evt_... id; the unique key makes redelivered events a no-op (INSERT IGNORE).
+CREATE TABLE webhook_events (
+    id              BIGINT PRIMARY KEY AUTO_INCREMENT,
+    event_id        VARCHAR(255) NOT NULL,
+    type            VARCHAR(100) NOT NULL,
+    payload         MEDIUMTEXT   NOT NULL,                        -- raw, signature-verified body
+    status          VARCHAR(16)  NOT NULL DEFAULT 'PENDING',      -- PENDING, PROCESSING, PROCESSED, FAILED
+    attempts        INT          NOT NULL DEFAULT 0,
+    last_error      VARCHAR(512) NULL,
+    received_at     TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    next_attempt_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6), -- retry backoff / claim lease expiry
+    processed_at    TIMESTAMP(6) NULL,
+
+    CONSTRAINT uk_webhook_events_event_id UNIQUE (event_id),
+    CONSTRAINT ck_webhook_events_status CHECK (status IN ('PENDING','PROCESSING','PROCESSED','FAILED'))
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Claim path: WHERE status IN (...) AND next_attempt_at <= now ORDER BY id
+CREATE INDEX idx_webhook_events_status_next ON webhook_events(status, next_attempt_at);
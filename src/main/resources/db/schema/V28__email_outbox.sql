@@ -0,0 +1,24 @@
+-- Outbound email outbox: EmailService inserts rows in the caller's transaction, EmailDispatcher sends them after commit.
+-- One row per logical email item; rows sharing (recipient, kind, payment_id) are coalesced into a single message.
+CREATE TABLE email_outbox (
+    id              BIGINT PRIMARY KEY AUTO_INCREMENT,
+    recipient       VARCHAR(255) NOT NULL,
+    kind            VARCHAR(32)  NOT NULL,                        -- PAYMENT_RECEIPT, ENROLLMENT_CONFIRMATION
+    payment_id      BIGINT       NULL,                            -- receipts: the payment being confirmed
+    course_title    VARCHAR(255) NULL,
+    amount_cents    INT          NULL,                            -- receipts: payment total
+    currency        CHAR(3)      NULL,
+    status          VARCHAR(16)  NOT NULL DEFAULT 'PENDING',      -- PENDING, SENDING, SENT, FAILED
+    attempts        INT          NOT NULL DEFAULT 0,
+    last_error      VARCHAR(512) NULL,
+    created_at      TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    next_attempt_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6), -- retry backoff / claim lease expiry
+    sent_at         TIMESTAMP(6) NULL,
+
+    CONSTRAINT ck_email_outbox_status CHECK (status IN ('PENDING','SENDING','SENT','FAILED'))
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Claim path: WHERE status IN (...) AND next_attempt_at <= now ORDER BY id
+CREATE INDEX idx_email_outbox_status_next ON email_outbox(status, next_attempt_at);
+-- Sibling lookup when coalescing the receipt items of one payment
+CREATE INDEX idx_email_outbox_payment ON email_outbox(payment_id);
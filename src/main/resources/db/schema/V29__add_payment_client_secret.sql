@@ -0,0 +1,5 @@
+-- Cached PaymentIntent client secret, so idempotent checkout retries need no gateway round-trip.
+-- Stored AES-GCM encrypted (ClientSecretCipher); expires_at bounds how long it is reused before a refetch.
+ALTER TABLE payments
+    ADD COLUMN client_secret_enc        VARCHAR(512) NULL,
+    ADD COLUMN client_secret_expires_at TIMESTAMP(6) NULL;
@@ -0,0 +1,3 @@
+-- Keyset pages of a course's reviews, newest first (WHERE course_id = ? AND (created_at, id) < cursor
+-- ORDER BY created_at DESC, id DESC): one backward range scan, however deep the page
+CREATE INDEX idx_reviews_course_created ON reviews (course_id, created_at, id);
@@ -0,0 +1,2 @@
+-- Per-user review cooldown: EXISTS (user_id = ? AND course_id = ? AND created_at > ?) is one index probe
+CREATE INDEX idx_reviews_user_course_created ON reviews (user_id, course_id, created_at);
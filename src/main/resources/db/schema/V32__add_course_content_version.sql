@@ -0,0 +1,4 @@
+-- Bumped by every write that changes what GET /api/courses/{slug} shows (course, modules, lessons, reviews).
+-- Strong ETag of the detail response is "<id>-<content_version>", so If-None-Match is answered from this row alone.
+ALTER TABLE courses
+    ADD COLUMN content_version BIGINT NOT NULL DEFAULT 0;
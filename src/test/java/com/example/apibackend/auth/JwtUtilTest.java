@@ -0,0 +1,77 @@
+package com.example.apibackend.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for JwtUtil (no Spring context):
+ * - tokens round-trip through the pre-built key/parser,
+ * - a repeated token is served from the verified-claims cache,
+ * - forged and expired tokens are still rejected.
+ */
+class JwtUtilTest {
+    private static final String SECRET = Base64.getEncoder().encodeToString("test-secret-test-secret-0123456789".getBytes());
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setup() {
+        jwtUtil = new JwtUtil(SECRET, "learning-platform", 60, 100);
+    }
+
+    @Test
+    void createdToken_validatesWithClaims() {
+        String token = jwtUtil.createToken(7L, "user@example.com", "USER");
+        Claims claims = jwtUtil.validateToken(token);
+        assertThat(claims.getSubject()).isEqualTo("user@example.com");
+        assertThat(claims.get("userId", Long.class)).isEqualTo(7L);
+        assertThat(claims.get("role", String.class)).isEqualTo("USER");
+    }
+
+    @Test
+    void tokensSignedWithTheSecretString_stillValidate() {
+        // Tokens issued before the key was precomputed used jjwt's Base64 String overload
+        String legacy = Jwts.builder()
+                .setSubject("legacy@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .compact();
+        assertThat(jwtUtil.validateToken(legacy).getSubject()).isEqualTo("legacy@example.com");
+    }
+
+    @Test
+    void repeatedToken_isServedFromCache() {
+        String token = jwtUtil.createToken(7L, "user@example.com", "USER");
+        Claims first = jwtUtil.validateToken(token);
+        Claims second = jwtUtil.validateToken(token);
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void tokenSignedWithAnotherKey_isRejected() {
+        String otherSecret = Base64.getEncoder().encodeToString("another-secret-another-secret-0123".getBytes());
+        String forged = new JwtUtil(otherSecret, "learning-platform", 60, 100).createToken(7L, "user@example.com", "ADMIN");
+        assertThatThrownBy(() -> jwtUtil.validateToken(forged)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void expiredToken_isRejected() {
+        String expired = Jwts.builder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .compact();
+        assertThatThrownBy(() -> jwtUtil.validateToken(expired)).isInstanceOf(ExpiredJwtException.class);
+    }
+}
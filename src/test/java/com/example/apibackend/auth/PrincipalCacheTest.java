@@ -0,0 +1,77 @@
+package com.example.apibackend.auth;
+
+import com.example.apibackend.config.CacheConfig;
+import com.example.apibackend.user.User;
+import com.example.apibackend.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * PrincipalCache wiring test: real CacheConfig, mocked UserRepository.
+ * Steady-state lookups must not reach the repository; evict() and unknown ids must.
+ */
+@SpringJUnitConfig({CacheConfig.class, PrincipalCache.class})
+class PrincipalCacheTest {
+
+    @Autowired
+    PrincipalCache principalCache;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockitoBean
+    UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        cacheManager.getCache(CacheConfig.PRINCIPALS).clear();
+        user = new User();
+        org.springframework.test.util.ReflectionTestUtils.setField(user, "id", 1L);
+        user.setEmail("user@example.com");
+        user.setRole("USER");
+    }
+
+    @Test
+    void user_isLoadedOnceUntilEvicted() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertThat(principalCache.find(1L)).contains(new UserPrincipal(1L, "user@example.com", "USER", false));
+        assertThat(principalCache.find(1L)).contains(new UserPrincipal(1L, "user@example.com", "USER", false));
+        verify(userRepository, times(1)).findById(1L);
+
+        principalCache.evict(1L);
+        principalCache.find(1L);
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void softDeletedUser_isCachedAsDeleted() {
+        user.setDeletedAt(Instant.now());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertThat(principalCache.find(1L)).get().extracting(UserPrincipal::deleted).isEqualTo(true);
+        principalCache.find(1L);
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void unknownId_isNeverCached() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThat(principalCache.find(2L)).isEmpty();
+        assertThat(principalCache.find(2L)).isEmpty();
+        verify(userRepository, times(2)).findById(2L);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.apibackend.cart;
+
+import com.example.apibackend.course.Course;
+import com.example.apibackend.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repository-backed test for the cart view:
+ * - Uses Testcontainers MySQL + Flyway like CourseCatalogServiceTest.
+ * - Counts prepared statements so per-item lookups or deletes can't creep back in.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // don't swap to H2
+@ActiveProfiles("test")
+@Testcontainers
+@Import({CartService.class, SimpleMeterRegistry.class})
+class CartServiceTest {
+
+    static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("learning")
+            .withUsername("app")
+            .withPassword("app");
+
+    static {
+        mysql.start();
+    }
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r) {
+        r.add("spring.datasource.url", mysql::getJdbcUrl);
+        r.add("spring.datasource.username", mysql::getUsername);
+        r.add("spring.datasource.password", mysql::getPassword);
+        r.add("spring.flyway.enabled", () -> true);
+    }
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    SimpleMeterRegistry meters;
+
+    @Test
+    @DisplayName("cart view is one query, whatever the number of items")
+    void getCartItems_singleStatement() {
+        User user = cartWithItems("shopper@example.com", 10);
+        Statistics stats = statistics();
+
+        List<CartItemDto> items = cartService.getCartItems(user.getId());
+
+        assertThat(items).hasSize(10);
+        assertThat(items.get(0).getTitle()).isEqualTo("Course 0"); // order added
+        assertThat(items.get(9).getPriceCents()).isEqualTo(1009);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("user without a cart gets an empty list")
+    void getCartItems_noCart() {
+        assertThat(cartService.getCartItems(-1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("clearing a cart is one bulk DELETE and is counted")
+    void clearCart_singleBulkDelete() {
+        User user = cartWithItems("buyer@example.com", 10);
+        double clearedBefore = clearedItems();
+        Statistics stats = statistics();
+
+        cartService.clearCart(user.getId());
+
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(stats.getEntityLoadCount()).isZero();
+        assertThat(clearedItems() - clearedBefore).isEqualTo(10.0);
+        assertThat(cartService.getCartItems(user.getId())).isEmpty();
+        // the cart row itself stays for the next purchase
+        assertThat(em.getEntityManager().createQuery("select count(c) from Cart c where c.userId = :userId", Long.class)
+                .setParameter("userId", user.getId())
+                .getSingleResult()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("clearing without a cart is a no-op")
+    void clearCart_noCart() {
+        double clearedBefore = clearedItems();
+
+        cartService.clearCart(-1L);
+
+        assertThat(clearedItems()).isEqualTo(clearedBefore);
+    }
+
+    private User cartWithItems(String email, int count) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        user.setRole("USER");
+        em.persist(user);
+        Cart cart = new Cart();
+        cart.setUserId(user.getId());
+        em.persist(cart);
+        for (int i = 0; i < count; i++) {
+            Course course = new Course();
+            course.setSlug(email + "-course-" + i);
+            course.setTitle("Course " + i);
+            course.setPriceCents(1000 + i);
+            course.setCurrency("USD");
+            course.setIsActive(true);
+            em.persist(course);
+            em.flush();
+            em.getEntityManager().createNativeQuery("INSERT INTO cart_items (cart_id, course_id) VALUES (?, ?)")
+                    .setParameter(1, cart.getId())
+                    .setParameter(2, course.getId())
+                    .executeUpdate();
+        }
+        em.clear();
+        return user;
+    }
+
+    private double clearedItems() {
+        return meters.get("cart.items.cleared").counter().count();
+    }
+
+    private Statistics statistics() {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        return stats;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.apibackend.config;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two "instances" with their own local caches, connected to one in-JVM Redis stand-in (jedis-mock):
+ * an eviction or clear on one must reach the other's copy, and reads/writes must stay local.
+ */
+class BroadcastingCacheManagerTest {
+    private static final Duration DELIVERY = Duration.ofSeconds(5);
+
+    private RedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private BroadcastingCacheManager podA;
+    private BroadcastingCacheManager podB;
+
+    @BeforeEach
+    void setup() throws IOException {
+        redis = RedisServer.newRedisServer();
+        redis.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        podA = pod();
+        podB = pod();
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        podA.stop();
+        podB.stop();
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    private BroadcastingCacheManager pod() {
+        BroadcastingCacheManager manager = new BroadcastingCacheManager(
+                new ConcurrentMapCacheManager("courseDetail", "principals"), connectionFactory, "cache-invalidation-test");
+        manager.start();
+        await().atMost(DELIVERY).until(manager::isRunning);
+        return manager;
+    }
+
+    @Test
+    void evict_reachesOtherInstance_andKeepsKeyType() {
+        Cache detailA = podA.getCache("courseDetail");
+        Cache detailB = podB.getCache("courseDetail");
+        Cache principalsB = podB.getCache("principals");
+        detailA.put("java-basics", "A's copy");
+        detailB.put("java-basics", "B's copy");
+        detailB.put("spring", "B's other copy");
+        principalsB.put(1L, "user 1");
+        principalsB.put("1", "not a user id");
+
+        assertThat(detailB.get("java-basics").get()).isEqualTo("B's copy"); // writes stay local
+
+        detailA.evict("java-basics");
+        podA.getCache("principals").evict(1L);
+
+        assertThat(detailA.get("java-basics")).isNull();
+        await().atMost(DELIVERY).until(() -> detailB.get("java-basics") == null && principalsB.get(1L) == null);
+        assertThat(detailB.get("spring")).isNotNull();
+        assertThat(principalsB.get("1")).isNotNull(); // Long 1 evicted, String "1" untouched
+    }
+
+    @Test
+    void clear_reachesOtherInstance() {
+        podA.getCache("courseDetail").put("java-basics", "A's copy");
+        podB.getCache("courseDetail").put("java-basics", "B's copy");
+        podB.getCache("principals").put(1L, "user 1");
+
+        podA.getCache("courseDetail").clear();
+
+        await().atMost(DELIVERY).until(() -> podB.getCache("courseDetail").get("java-basics") == null);
+        assertThat(podB.getCache("principals").get(1L)).isNotNull();
+    }
+
+    @Test
+    void ownMessages_areIgnored() throws InterruptedException {
+        Cache detailA = podA.getCache("courseDetail");
+        Cache detailB = podB.getCache("courseDetail");
+        detailB.put("java-basics", "B's copy");
+
+        detailA.evict("java-basics");
+        detailA.put("java-basics", "re-cached after the write");
+
+        await().atMost(DELIVERY).until(() -> detailB.get("java-basics") == null);
+        Thread.sleep(200); // pod A's own copy of the message arrives around the same time
+        assertThat(detailA.get("java-basics").get()).isEqualTo("re-cached after the write");
+    }
+
+    @Test
+    void unknownCache_isNull() {
+        assertThat(podA.getCache("typo")).isNull();
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.apibackend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.*;
+
+/**
+ * Routing decisions of ReadReplicaRoutingDataSource and the lag states of ReplicaLagMonitor.
+ * Two mocked pools stand in for primary and replica; transactions are simulated through
+ * TransactionSynchronizationManager, the way the transaction manager publishes them.
+ */
+class ReadReplicaRoutingDataSourceTest {
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ResultSet replicaStatus = mock(ResultSet.class);
+    private final Clock clock = mock(Clock.class);
+    private Instant now = Instant.parse("2024-05-01T10:00:00Z");
+
+    private ReplicaLagMonitor monitor;
+    private ReadReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        Statement statement = mock(Statement.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SHOW REPLICA STATUS")).thenReturn(replicaStatus);
+        when(clock.instant()).thenAnswer(invocation -> now);
+        monitor = new ReplicaLagMonitor(replica, Duration.ofSeconds(2), Duration.ofSeconds(1), meters, clock);
+        routing = new ReadReplicaRoutingDataSource(primary, replica, monitor, meters);
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        if (isSynchronizationActive()) {
+            clear();
+        }
+    }
+
+    private void replicaBehind(Long seconds) throws SQLException {
+        when(replicaStatus.next()).thenReturn(true);
+        when(replicaStatus.getLong("Seconds_Behind_Source")).thenReturn(seconds == null ? 0L : seconds);
+        when(replicaStatus.wasNull()).thenReturn(seconds == null);
+        monitor.check();
+    }
+
+    private static void inTransaction(String name, boolean readOnly) {
+        initSynchronization();
+        setCurrentTransactionName(name);
+        setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private double connections(String target) {
+        return meters.get("datasource.routing.connections").tag("target", target).counter().count();
+    }
+
+    @Test
+    void readOnlyServiceTransaction_usesReplica() throws SQLException {
+        replicaBehind(0L);
+        inTransaction("com.example.apibackend.course.CourseCatalogService.findCourseDetail", true);
+
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        assertThat(connections("replica")).isEqualTo(1.0);
+    }
+
+    @Test
+    void writesAndNonTransactionalWork_usePrimary() throws SQLException {
+        replicaBehind(0L);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+
+        inTransaction("com.example.apibackend.review.ReviewController.postReview", false);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(connections("primary")).isEqualTo(2.0);
+    }
+
+    @Test
+    void springDataImplicitReadOnlyTransaction_usesPrimary() throws SQLException {
+        replicaBehind(0L);
+        inTransaction("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById", true);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void replicaBeyondMaxLag_fallsBackUntilItCatchesUp() throws SQLException {
+        inTransaction("com.example.apibackend.cart.CartService.getCartItems", true);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection); // not checked yet
+        replicaBehind(5L);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(meters.get("datasource.replica.lag").gauge().value()).isEqualTo(5.0);
+        assertThat(meters.get("datasource.replica.usable").gauge().value()).isZero();
+
+        replicaBehind(1L);
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        assertThat(connections("fallback")).isEqualTo(2.0);
+        assertThat(meters.get("datasource.replica.usable").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void stoppedReplication_orFailedCheck_makesReplicaUnusable() throws SQLException {
+        replicaBehind(null); // Seconds_Behind_Source is NULL while replication is stopped
+        assertThat(monitor.isUsable()).isFalse();
+
+        replicaBehind(0L);
+        assertThat(monitor.isUsable()).isTrue();
+
+        when(replica.getConnection()).thenThrow(new SQLTransientConnectionException("replica down"));
+        monitor.check();
+        assertThat(monitor.isUsable()).isFalse();
+        assertThat(meters.get("datasource.replica.lag").gauge().value()).isNaN();
+    }
+
+    @Test
+    void serverWithoutReplicaStatus_isUnusable() throws SQLException {
+        replicaBehind(0L);
+        when(replicaStatus.next()).thenReturn(false); // not a replica, or replication was reset
+        monitor.check();
+        assertThat(monitor.isUsable()).isFalse();
+    }
+
+    @Test
+    void lastSuccessfulCheckOlderThanTwoIntervals_makesReplicaUnusable() throws SQLException {
+        replicaBehind(0L);
+        inTransaction("com.example.apibackend.course.CourseCatalogService.findCourseDetail", true);
+
+        now = now.plusSeconds(2);
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        now = now.plusMillis(1); // checks stopped succeeding (hung, or the checker is gone)
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(meters.get("datasource.replica.usable").gauge().value()).isZero();
+
+        replicaBehind(0L);
+        assertThat(monitor.isUsable()).isTrue();
+    }
+
+    @Test
+    void explicitCredentials_goToPrimary() throws SQLException {
+        replicaBehind(0L);
+        when(primary.getConnection("admin", "secret")).thenReturn(primaryConnection);
+        inTransaction("com.example.apibackend.course.CourseCatalogService.findCourseDetail", true);
+
+        assertThat(routing.getConnection("admin", "secret")).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection("admin", "secret");
+    }
+
+    @Test
+    void failedReplicaCheckout_fallsBackToPrimary_andMarksReplicaUnusable() throws SQLException {
+        replicaBehind(0L);
+        when(replica.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+        inTransaction("com.example.apibackend.instructor.InstructorController.getAllInstructors", true);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(monitor.isUsable()).isFalse();
+        assertThat(connections("fallback")).isEqualTo(1.0);
+
+        routing.getConnection();
+        verify(replica, times(2)).getConnection(); // the lag check + the failed checkout, no retry until the next check
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.apibackend.config;
+
+import com.example.apibackend.auth.PrincipalCache;
+import com.example.apibackend.auth.UserPrincipal;
+import com.example.apibackend.course.CatalogCacheInvalidator;
+import com.example.apibackend.course.Course;
+import com.example.apibackend.course.CourseCatalogService;
+import com.example.apibackend.course.CourseRepository;
+import com.example.apibackend.lesson.LessonRepository;
+import com.example.apibackend.module.ModuleRepository;
+import com.example.apibackend.review.ReviewRepository;
+import com.example.apibackend.user.User;
+import com.example.apibackend.user.UserRepository;
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cache wiring test for app.cache.backend=redis (no database):
+ * - Real CacheConfig and cached services, mocked repositories, an in-JVM Redis stand-in (jedis-mock).
+ * - Verifies entries live in Redis with the spec's TTL, survive a serialization round trip and are evicted
+ *   through the same CatalogCacheInvalidator / PrincipalCache calls as the local backend.
+ */
+@SpringJUnitConfig({CacheConfig.class, CourseCatalogService.class, CatalogCacheInvalidator.class, PrincipalCache.class,
+        RedisCacheBackendTest.RedisConfig.class})
+@TestPropertySource(properties = "app.cache.backend=redis")
+class RedisCacheBackendTest {
+
+    static final RedisServer redis = RedisServer.newRedisServer();
+
+    static {
+        try {
+            redis.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+
+    @Configuration
+    static class RedisConfig {
+        @Bean
+        LettuceConnectionFactory redisConnectionFactory() {
+            return new LettuceConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getBindPort()));
+        }
+
+        @Bean
+        StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory connectionFactory) {
+            return new StringRedisTemplate(connectionFactory);
+        }
+    }
+
+    @Autowired
+    CourseCatalogService catalogService;
+
+    @Autowired
+    CatalogCacheInvalidator invalidator;
+
+    @Autowired
+    PrincipalCache principalCache;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    StringRedisTemplate redisTemplate;
+
+    @MockitoBean
+    CourseRepository courseRepo;
+
+    @MockitoBean
+    ModuleRepository moduleRepo;
+
+    @MockitoBean
+    LessonRepository lessonRepo;
+
+    @MockitoBean
+    ReviewRepository reviewRepo;
+
+    @MockitoBean
+    UserRepository userRepository;
+
+    private Course course;
+
+    @BeforeEach
+    void setup() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        course = new Course();
+        org.springframework.test.util.ReflectionTestUtils.setField(course, "id", 1L);
+        course.setSlug("java-basics");
+        course.setTitle("Java Basics");
+        course.setPriceCents(2999);
+        course.setIsActive(true);
+        when(courseRepo.findWithInstructorBySlugAndIsActiveTrue("java-basics")).thenReturn(Optional.of(course));
+        when(courseRepo.findSlugById(1L)).thenReturn(Optional.of("java-basics"));
+    }
+
+    @Test
+    void redisBackend_isSelected() {
+        assertThat(cacheManager).isInstanceOf(RedisCacheManager.class);
+        assertThat(cacheManager.getCache("typo")).isNull(); // only the configured caches exist
+    }
+
+    @Test
+    void courseDetail_isStoredInRedisWithSpecTtl_andEvictedOnChange() {
+        assertThat(catalogService.findCourseDetail("java-basics")).get()
+                .satisfies(detail -> assertThat(detail.title()).isEqualTo("Java Basics"));
+        assertThat(catalogService.findCourseDetail("java-basics")).get()
+                .satisfies(detail -> assertThat(detail.title()).isEqualTo("Java Basics"));
+        verify(courseRepo, times(1)).findWithInstructorBySlugAndIsActiveTrue("java-basics");
+
+        String key = "lp:cache:courseDetail::java-basics";
+        assertThat(redisTemplate.hasKey(key)).isTrue();
+        assertThat(redisTemplate.getExpire(key)).isBetween(1L, 600L); // expireAfterWrite=10m
+
+        invalidator.courseChanged(1L);
+        assertThat(redisTemplate.hasKey(key)).isFalse();
+        catalogService.findCourseDetail("java-basics");
+        verify(courseRepo, times(2)).findWithInstructorBySlugAndIsActiveTrue("java-basics");
+    }
+
+    @Test
+    void unknownSlug_isNotCached() {
+        when(courseRepo.findWithInstructorBySlugAndIsActiveTrue("nope")).thenReturn(Optional.empty());
+        assertThat(catalogService.findCourseDetail("nope")).isEmpty();
+        assertThat(catalogService.findCourseDetail("nope")).isEmpty();
+        verify(courseRepo, times(2)).findWithInstructorBySlugAndIsActiveTrue("nope");
+    }
+
+    @Test
+    void searchKeys_keepFiltersApart() {
+        when(courseRepo.searchActive(any(), any(), any(), any(), any())).thenReturn(new PageImpl<>(List.of(course)));
+
+        catalogService.search("java,BEGINNER", null, null, null, PageRequest.of(0, 6));
+        catalogService.search("java", "BEGINNER", null, null, PageRequest.of(0, 6));
+        catalogService.search("java", "BEGINNER", null, null, PageRequest.of(0, 6));
+        verify(courseRepo, times(2)).searchActive(any(), any(), any(), any(), any());
+
+        invalidator.courseChanged("java-basics");
+        catalogService.search("java", "BEGINNER", null, null, PageRequest.of(0, 6));
+        verify(courseRepo, times(3)).searchActive(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void principal_roundTripsThroughRedis_untilEvicted() {
+        User user = new User();
+        org.springframework.test.util.ReflectionTestUtils.setField(user, "id", 1L);
+        user.setEmail("user@example.com");
+        user.setPasswordHash("$2a$10$hash");
+        user.setRole("ADMIN");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        principalCache.find(1L);
+        Optional<UserPrincipal> cached = principalCache.find(1L);
+        verify(userRepository, times(1)).findById(1L);
+        assertThat(cached).contains(new UserPrincipal(1L, "user@example.com", "ADMIN", false));
+        // only the principal record is stored, not the entity with its password hash
+        assertThat(cacheManager.getCache(CacheConfig.PRINCIPALS).get(1L).get()).isInstanceOf(UserPrincipal.class);
+
+        principalCache.evict(1L);
+        principalCache.find(1L);
+        verify(userRepository, times(2)).findById(1L);
+    }
+}
@@ -32,6 +32,8 @@ class AdminCourseControllerTest {
     private EnrollmentRepository enrollmentRepo;
     @MockitoBean
     private PaymentRepository paymentRepo;
+    @MockitoBean
+    private CatalogCacheInvalidator cacheInvalidator;
 
     private Course course;
 
@@ -63,6 +65,9 @@ class AdminCourseControllerTest {
         result.andExpect(status().isOk())
                 .andExpect(jsonPath("$.title").value("Updated Title"))
                 .andExpect(jsonPath("$.slug").value("updated-slug"));
+        // Renamed slug: both the old and the new key are evicted
+        verify(cacheInvalidator).courseChanged("test-course");
+        verify(cacheInvalidator).courseChanged("updated-slug");
     }
 
     @Test
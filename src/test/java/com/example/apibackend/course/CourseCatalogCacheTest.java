@@ -0,0 +1,132 @@
+package com.example.apibackend.course;
+
+import com.example.apibackend.config.CacheConfig;
+import com.example.apibackend.lesson.LessonRepository;
+import com.example.apibackend.module.ModuleRepository;
+import com.example.apibackend.review.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cache wiring test (no web layer, no database):
+ * - Real CacheConfig + CourseCatalogService proxies, mocked repositories.
+ * - Verifies repeated reads are served from cache and that CatalogCacheInvalidator evicts them.
+ */
+@SpringJUnitConfig({CacheConfig.class, CourseCatalogService.class, CatalogCacheInvalidator.class})
+class CourseCatalogCacheTest {
+
+    @Autowired
+    CourseCatalogService catalogService;
+
+    @Autowired
+    CatalogCacheInvalidator invalidator;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockitoBean
+    CourseRepository courseRepo;
+
+    @MockitoBean
+    ModuleRepository moduleRepo;
+
+    @MockitoBean
+    LessonRepository lessonRepo;
+
+    @MockitoBean
+    ReviewRepository reviewRepo;
+
+    private Course course;
+
+    @BeforeEach
+    void setup() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        course = new Course();
+        org.springframework.test.util.ReflectionTestUtils.setField(course, "id", 1L);
+        course.setSlug("java-basics");
+        course.setTitle("Java Basics");
+        course.setPriceCents(2999);
+        course.setIsActive(true);
+        when(courseRepo.findWithInstructorBySlugAndIsActiveTrue("java-basics")).thenReturn(Optional.of(course));
+        when(courseRepo.findSlugById(1L)).thenReturn(Optional.of("java-basics"));
+    }
+
+    @Test
+    void courseDetail_isCachedUntilCourseChanges() {
+        catalogService.findCourseDetail("java-basics");
+        catalogService.findCourseDetail("java-basics");
+        verify(courseRepo, times(1)).findWithInstructorBySlugAndIsActiveTrue("java-basics");
+
+        invalidator.courseChanged(1L);
+        catalogService.findCourseDetail("java-basics");
+        verify(courseRepo, times(2)).findWithInstructorBySlugAndIsActiveTrue("java-basics");
+    }
+
+    @Test
+    void unknownSlug_isNotCached() {
+        when(courseRepo.findWithInstructorBySlugAndIsActiveTrue("nope")).thenReturn(Optional.empty());
+        assertThat(catalogService.findCourseDetail("nope")).isEmpty();
+        assertThat(catalogService.findCourseDetail("nope")).isEmpty();
+        verify(courseRepo, times(2)).findWithInstructorBySlugAndIsActiveTrue("nope");
+    }
+
+    @Test
+    void searchPages_areCachedPerPageAndClearedOnCourseChange() {
+        when(courseRepo.searchActive(any(), any(), any(), any(), any())).thenReturn(new PageImpl<>(List.of(course)));
+
+        catalogService.search("java", null, null, null, PageRequest.of(0, 6));
+        catalogService.search("java", null, null, null, PageRequest.of(0, 6));
+        catalogService.search("java", null, null, null, PageRequest.of(1, 6));
+        verify(courseRepo, times(2)).searchActive(any(), any(), any(), any(), any());
+
+        invalidator.courseChanged("java-basics");
+        catalogService.search("java", null, null, null, PageRequest.of(0, 6));
+        verify(courseRepo, times(3)).searchActive(any(), any(), any(), any(), any());
+        verify(courseRepo).bumpContentVersionBySlug("java-basics");
+    }
+
+    @Test
+    void reviewChange_evictsDetailAndSearchPages_butKeepsPreview() {
+        when(courseRepo.searchActive(any(), any(), any(), any(), any())).thenReturn(new PageImpl<>(List.of(course)));
+        when(courseRepo.findBySlugAndIsActiveTrue("java-basics")).thenReturn(Optional.of(course));
+        catalogService.findCourseDetail("java-basics");
+        catalogService.search(null, null, null, null, PageRequest.of(0, 6));
+        catalogService.findPreviewLessons("java-basics");
+
+        invalidator.reviewsChanged(1L);
+        catalogService.findCourseDetail("java-basics");
+        catalogService.search(null, null, null, null, PageRequest.of(0, 6)); // average rating changed
+        catalogService.findPreviewLessons("java-basics");
+
+        verify(courseRepo, times(2)).findWithInstructorBySlugAndIsActiveTrue("java-basics");
+        verify(courseRepo, times(2)).searchActive(any(), any(), any(), any(), any());
+        verify(courseRepo, times(1)).findBySlugAndIsActiveTrue("java-basics");
+        verify(courseRepo).bumpContentVersion(1L); // new ETag for the detail page
+    }
+
+    @Test
+    void cachesRecordStatsForActuator() {
+        var nativeCache = (com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager.getCache(CacheConfig.COURSE_DETAIL).getNativeCache();
+        var before = nativeCache.stats(); // stats survive clear(), so compare deltas
+
+        catalogService.findCourseDetail("java-basics");
+        catalogService.findCourseDetail("java-basics");
+
+        var delta = nativeCache.stats().minus(before);
+        assertThat(delta.hitCount()).isEqualTo(1);
+        assertThat(delta.missCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.apibackend.course;
+
+import com.example.apibackend.lesson.Lesson;
+import com.example.apibackend.lesson.LessonType;
+import com.example.apibackend.module.Module;
+import com.example.apibackend.review.Review;
+import com.example.apibackend.user.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repository-backed test for the course detail read path:
+ * - Uses Testcontainers MySQL + Flyway like CourseRepositoryTest.
+ * - Counts prepared statements via Hibernate statistics so N+1 regressions fail the build.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // don't swap to H2
+@ActiveProfiles("test")
+@Testcontainers
+@Import(CourseCatalogService.class)
+class CourseCatalogServiceTest {
+
+    static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("learning")
+            .withUsername("app")
+            .withPassword("app");
+
+    static {
+        mysql.start();
+    }
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r) {
+        r.add("spring.datasource.url", mysql::getJdbcUrl);
+        r.add("spring.datasource.username", mysql::getUsername);
+        r.add("spring.datasource.password", mysql::getPassword);
+        r.add("spring.flyway.enabled", () -> true);
+    }
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    CourseCatalogService catalogService;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setup() {
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("course detail costs the same number of statements for 1 and 40 modules")
+    void courseDetail_constantStatementCount() {
+        User reviewer = seedUser("reviewer@example.com");
+        seedCourse("small-course", 1, 3, reviewer);
+        seedCourse("big-course", 40, 3, reviewer);
+        em.flush();
+        em.clear();
+
+        stats.clear();
+        var small = catalogService.findCourseDetail("small-course");
+        long smallStatements = stats.getPrepareStatementCount();
+
+        em.clear();
+        stats.clear();
+        var big = catalogService.findCourseDetail("big-course");
+        long bigStatements = stats.getPrepareStatementCount();
+
+        assertThat(small).isPresent();
+        assertThat(big).isPresent();
+        assertThat(big.get().modules()).hasSize(40);
+        assertThat(big.get().modules().get(39).lessons()).hasSize(3);
+        assertThat(big.get().reviewCount()).isEqualTo(3);
+        assertThat(big.get().avgRating()).isEqualTo(4.0);
+        assertThat(big.get().recentReviews()).hasSize(3);
+        assertThat(big.get().recentReviews().get(0).userEmail()).isEqualTo("reviewer@example.com");
+        // course+instructor, modules, lessons, recent reviews+authors (rating is on the course row)
+        assertThat(bigStatements).isEqualTo(4);
+        assertThat(bigStatements).isEqualTo(smallStatements);
+    }
+
+    @Test
+    @DisplayName("unknown slug returns empty")
+    void courseDetail_missing() {
+        assertThat(catalogService.findCourseDetail("nope")).isEmpty();
+    }
+
+    private User seedUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        user.setRole("USER");
+        return em.persist(user);
+    }
+
+    private void seedCourse(String slug, int moduleCount, int lessonsPerModule, User reviewer) {
+        Course course = new Course();
+        course.setSlug(slug);
+        course.setTitle(slug);
+        course.setDescription("Description of " + slug);
+        course.setLevel("BEGINNER");
+        course.setPriceCents(1999);
+        course.setCurrency("USD");
+        course.setIsActive(true);
+        em.persist(course);
+        for (int m = 0; m < moduleCount; m++) {
+            Module module = em.persist(new Module(course, "Module " + m, m, null));
+            for (int l = 0; l < lessonsPerModule; l++) {
+                em.persist(new Lesson(module, "Lesson " + m + "." + l, LessonType.VIDEO, null, 60, l == 0, l));
+            }
+        }
+        for (int rating = 3; rating <= 5; rating++) {
+            Review review = new Review();
+            review.setUser(reviewer);
+            review.setCourse(course);
+            review.setRating(rating);
+            review.setComment("Review with rating " + rating);
+            em.persist(review);
+        }
+        // keep the denormalized aggregates in step, as ReviewController does
+        em.flush();
+        em.getEntityManager().createQuery("UPDATE Course c SET c.ratingSum = 12L, c.ratingCount = 3 WHERE c.id = :id")
+                .setParameter("id", course.getId())
+                .executeUpdate();
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.apibackend.course;
 
+import com.example.apibackend.enrollment.EnrollmentRepository;
 import com.example.apibackend.lesson.LessonRepository;
 import com.example.apibackend.module.ModuleRepository;
+import com.example.apibackend.review.ReviewRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 
+import java.time.Instant;
 import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -44,6 +47,15 @@ class CourseControllerTest {
     @MockitoBean
     private LessonRepository lessonRepo;
 
+    @MockitoBean
+    private EnrollmentRepository enrollmentRepo;
+
+    @MockitoBean
+    private ReviewRepository reviewRepo;
+
+    @MockitoBean
+    private CourseCatalogService catalogService;
+
 
     @Test
     void list_returns_active_courses() throws Exception {
@@ -56,8 +68,9 @@ class CourseControllerTest {
         course.setCurrency("USD");
         course.setIsActive(true);
 
-        // stub the repository the controller calls
-        Mockito.when(repo.findAll()).thenReturn(List.of(course));
+        // stub the catalog service the controller calls
+        Mockito.when(catalogService.search(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(new CourseSearchPage(List.of(CourseSummaryDto.fromEntity(course)), 0, 6, 1, 1));
 
         // Call controller and check JSON
         mvc.perform(get("/api/courses").accept(MediaType.APPLICATION_JSON))
@@ -75,9 +88,11 @@ class CourseControllerTest {
         course.setPriceCents(4999);
         course.setIsActive(true);
 
-        Mockito.when(repo.findBySlugAndIsActiveTrue("spring-boot-fundamentals"))
-                .thenReturn(java.util.Optional.of(course));
-        Mockito.when(repo.findBySlugAndIsActiveTrue("nope"))
+        Mockito.when(catalogService.findCourseVersion("spring-boot-fundamentals"))
+                .thenReturn(java.util.Optional.of(new CourseVersion(null, 0L, null)));
+        Mockito.when(catalogService.findCourseDetail("spring-boot-fundamentals"))
+                .thenReturn(java.util.Optional.of(new CourseDetailDto(course)));
+        Mockito.when(catalogService.findCourseVersion("nope"))
                 .thenReturn(java.util.Optional.empty());
 
         mvc.perform(get("/api/courses/spring-boot-fundamentals"))
@@ -88,6 +103,44 @@ class CourseControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void get_by_slug_sendsValidators_and_answers304BeforeAssembly() throws Exception {
+        Course course = new Course();
+        course.setSlug("java-basics");
+        course.setTitle("Java Basics");
+        course.setIsActive(true);
+        org.springframework.test.util.ReflectionTestUtils.setField(course, "id", 7L);
+        org.springframework.test.util.ReflectionTestUtils.setField(course, "contentVersion", 3L);
+        Instant updatedAt = Instant.parse("2024-05-01T10:00:00Z");
+        org.springframework.test.util.ReflectionTestUtils.setField(course, "updatedAt", updatedAt);
+        Mockito.when(catalogService.findCourseVersion("java-basics"))
+                .thenReturn(java.util.Optional.of(new CourseVersion(7L, 3L, updatedAt)));
+        Mockito.when(catalogService.findCourseDetail("java-basics"))
+                .thenReturn(java.util.Optional.of(new CourseDetailDto(course)));
+
+        mvc.perform(get("/api/courses/java-basics"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7-3\""))
+                .andExpect(header().string("Last-Modified", "Wed, 01 May 2024 10:00:00 GMT"))
+                .andExpect(header().string("Cache-Control", containsString("s-maxage=60")))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andExpect(jsonPath("$.updatedAt").doesNotExist());
+
+        Mockito.clearInvocations(catalogService);
+        mvc.perform(get("/api/courses/java-basics").header("If-None-Match", "\"7-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"7-3\""))
+                .andExpect(content().string(""));
+        mvc.perform(get("/api/courses/java-basics").header("If-Modified-Since", "Wed, 01 May 2024 10:00:00 GMT"))
+                .andExpect(status().isNotModified());
+        Mockito.verify(catalogService, Mockito.never()).findCourseDetail(Mockito.any());
+
+        // a stale ETag (older version) gets the full body
+        mvc.perform(get("/api/courses/java-basics").header("If-None-Match", "\"7-2\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("java-basics")));
+    }
+
     /**
      * NEW: Test GET /api/courses with pagination and filters.
      * Verifies param binding, default values, and DTO mapping.
@@ -102,9 +155,14 @@ class CourseControllerTest {
         course.setPriceCents(4999);
         course.setCurrency("USD");
         course.setIsActive(true);
+        org.springframework.test.util.ReflectionTestUtils.setField(course, "id", 7L);
+        // denormalized aggregates: two reviews, 4 + 5
+        org.springframework.test.util.ReflectionTestUtils.setField(course, "ratingSum", 9L);
+        org.springframework.test.util.ReflectionTestUtils.setField(course, "ratingCount", 2);
 
-        org.springframework.data.domain.Page<Course> page = new org.springframework.data.domain.PageImpl<>(List.of(course));
-        Mockito.when(repo.search(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(page);
+        CourseSearchPage page = new CourseSearchPage(List.of(CourseSummaryDto.fromEntity(course)), 0, 5, 1, 1);
+        Mockito.when(catalogService.search(Mockito.eq("java"), Mockito.eq("BEGINNER"), Mockito.eq(true), Mockito.eq(4.0), Mockito.any()))
+                .thenReturn(page);
 
         // Act & Assert: call endpoint with params and check response shape
         mvc.perform(get("/api/courses")
@@ -113,10 +171,14 @@ class CourseControllerTest {
                 .param("q", "java")
                 .param("level", "BEGINNER")
                 .param("published", "true")
+                .param("minRating", "4.0")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.content[0].slug").value("java-basics"))
             .andExpect(jsonPath("$.content[0].title").value("Java Basics"))
-            .andExpect(jsonPath("$.content[0].level").value("BEGINNER"));
+            .andExpect(jsonPath("$.content[0].level").value("BEGINNER"))
+            .andExpect(jsonPath("$.content[0].averageRating").value(4.5))
+            .andExpect(jsonPath("$.size").value(5))
+            .andExpect(jsonPath("$.totalElements").value(1));
     }
 }
\ No newline at end of file
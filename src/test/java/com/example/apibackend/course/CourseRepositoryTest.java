@@ -112,6 +112,49 @@ class CourseRepositoryTest {
         assertThat(page.getContent().get(0).getSlug()).isEqualTo("java-basics");
     }
 
+    @Test
+    @DisplayName("searchActive() excludes inactive courses and pages in the database")
+    void searchActive_excludes_inactive_and_pages() {
+        Course hidden = new Course();
+        hidden.setSlug("java-advanced");
+        hidden.setTitle("Java Advanced");
+        hidden.setDescription("Unpublished draft");
+        hidden.setLevel("ADVANCED");
+        hidden.setPriceCents(5999);
+        hidden.setCurrency("USD");
+        hidden.setIsActive(false);
+        repo.save(hidden);
+
+        org.springframework.data.domain.Page<Course> page = repo.searchActive(
+            null, null, null, null,
+            org.springframework.data.domain.PageRequest.of(0, 1, org.springframework.data.domain.Sort.by("title"))
+        );
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Course::getSlug).containsExactly("java-basics");
+    }
+
+    @Test
+    @DisplayName("addRating/removeRating maintain the aggregates used by the minRating filter")
+    void ratingAggregates_drive_minRating_filter() {
+        Long javaId = repo.findBySlugAndIsActiveTrue("java-basics").orElseThrow().getId();
+        Long springId = repo.findBySlugAndIsActiveTrue("spring-boot-fundamentals").orElseThrow().getId();
+        repo.addRating(javaId, 5);
+        repo.addRating(javaId, 4);
+        repo.addRating(springId, 2);
+
+        org.springframework.data.domain.Page<Course> page = repo.searchActive(
+            null, null, null, 4.0, org.springframework.data.domain.PageRequest.of(0, 10)
+        );
+        assertThat(page.getContent()).extracting(Course::getSlug).containsExactly("java-basics");
+
+        repo.removeRating(javaId, 5);
+        repo.removeRating(javaId, 4);
+        page = repo.searchActive(null, null, null, 1.0, org.springframework.data.domain.PageRequest.of(0, 10));
+        assertThat(page.getContent()).extracting(Course::getSlug).containsExactly("spring-boot-fundamentals");
+    }
+
     @AfterEach
     void cleanup() {
         repo.deleteAll();
@@ -0,0 +1,149 @@
+package com.example.apibackend.email;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the outbox dispatcher: repository is mocked, transactions are no-ops,
+ * and messages go to an in-memory fake transport.
+ */
+class EmailDispatcherTest {
+    private static final Instant NOW = Instant.parse("2025-08-10T12:00:00Z");
+
+    private final OutboxEmailRepository outbox = Mockito.mock(OutboxEmailRepository.class);
+    private final FakeTransport transport = new FakeTransport();
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setup() {
+        TransactionTemplate tx = new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class));
+        dispatcher = new EmailDispatcher(outbox, transport, tx, meters, Clock.fixed(NOW, ZoneOffset.UTC),
+                2, 10, 3, Duration.ofMinutes(5), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void drain_cartPayment_sendsOneReceiptListingAllCourses() {
+        List<OutboxEmail> rows = List.of(
+                receipt(1L, "a@example.com", 9L, "Java Basics"),
+                receipt(2L, "a@example.com", 9L, "Spring Boot"),
+                confirmation(3L, "a@example.com", "Java Basics"),
+                confirmation(4L, "a@example.com", "Spring Boot"),
+                confirmation(5L, "b@example.com", "Docker"));
+        when(outbox.lockClaimable(eq(NOW), anyInt())).thenReturn(List.of(1L, 3L, 4L, 5L));
+        when(outbox.findPaymentIds(any())).thenReturn(List.of(9L));
+        when(outbox.lockClaimableReceiptItems(List.of(9L), NOW)).thenReturn(List.of(2L));
+        when(outbox.findAllById(any())).thenReturn(rows);
+
+        dispatcher.drain();
+
+        verify(outbox).claim(eq(java.util.Set.of(1L, 2L, 3L, 4L, 5L)), eq(NOW.plus(Duration.ofMinutes(5))));
+        assertThat(transport.sent).hasSize(3);
+        EmailMessage receiptMessage = transport.sent.stream().filter(m -> m.subject().startsWith("Your receipt")).findFirst().orElseThrow();
+        assertThat(receiptMessage.to()).isEqualTo("a@example.com");
+        assertThat(receiptMessage.subject()).isEqualTo("Your receipt for payment #9");
+        assertThat(receiptMessage.body()).contains("- Java Basics", "- Spring Boot", "Total: 59.98 USD");
+        assertThat(transport.sent).extracting(EmailMessage::subject)
+                .contains("You're enrolled in 2 courses", "You're enrolled in Docker");
+        verify(outbox).markSent(List.of(1L, 2L), NOW);
+        assertThat(meters.get("email.outbox.messages").tag("outcome", "sent").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void send_transportFailure_backsOffAndRetries() {
+        OutboxEmail row = receipt(1L, "a@example.com", 9L, "Java Basics");
+        row.setAttempts(2);
+        when(outbox.findAllById(List.of(1L))).thenReturn(List.of(row));
+        transport.failWith = new IllegalStateException("smtp down");
+
+        dispatcher.send(List.of(row));
+
+        assertThat(row.getStatus()).isEqualTo(OutboxEmail.Status.PENDING);
+        assertThat(row.getLastError()).isEqualTo("smtp down");
+        assertThat(row.getNextAttemptAt()).isEqualTo(NOW.plusSeconds(60)); // 30s * 2^(2-1)
+        verify(outbox, never()).markSent(any(), any());
+    }
+
+    @Test
+    void send_failureOnLastAttempt_marksFailed() {
+        OutboxEmail row = receipt(1L, "a@example.com", 9L, "Java Basics");
+        row.setAttempts(3);
+        when(outbox.findAllById(List.of(1L))).thenReturn(List.of(row));
+        transport.failWith = new IllegalStateException("smtp down");
+
+        dispatcher.send(List.of(row));
+
+        assertThat(row.getStatus()).isEqualTo(OutboxEmail.Status.FAILED);
+        assertThat(meters.get("email.outbox.messages").tag("outcome", "failed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void drain_emptyOutbox_sendsNothing() {
+        when(outbox.lockClaimable(eq(NOW), anyInt())).thenReturn(List.of());
+        when(outbox.countByStatusIn(any())).thenReturn(0L);
+
+        dispatcher.drain();
+
+        assertThat(transport.sent).isEmpty();
+        verify(outbox, never()).claim(any(), any());
+    }
+
+    @Test
+    void render_confirmationWithoutCourse_isGeneric() {
+        EmailMessage message = EmailDispatcher.render(List.of(confirmation(1L, "a@example.com", null)));
+
+        assertThat(message.subject()).isEqualTo("Enrollment confirmation");
+    }
+
+    private static OutboxEmail receipt(Long id, String to, Long paymentId, String title) {
+        OutboxEmail row = OutboxEmail.paymentReceipt(to, paymentId, title, 5998, "USD");
+        ReflectionTestUtils.setField(row, "id", id);
+        row.setStatus(OutboxEmail.Status.SENDING);
+        return row;
+    }
+
+    private static OutboxEmail confirmation(Long id, String to, String title) {
+        OutboxEmail row = OutboxEmail.enrollmentConfirmation(to, title);
+        ReflectionTestUtils.setField(row, "id", id);
+        row.setStatus(OutboxEmail.Status.SENDING);
+        return row;
+    }
+
+    // Local stand-in for the provider: records what would have been sent
+    static class FakeTransport implements EmailTransport {
+        final List<EmailMessage> sent = new CopyOnWriteArrayList<>();
+        RuntimeException failWith;
+
+        @Override
+        public void send(EmailMessage message) {
+            if (failWith != null) {
+                throw failWith;
+            }
+            sent.add(message);
+        }
+    }
+}
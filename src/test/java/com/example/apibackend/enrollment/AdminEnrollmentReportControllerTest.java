@@ -1,108 +1,101 @@
 package com.example.apibackend.enrollment;
 
-import com.example.apibackend.course.Course;
-import com.example.apibackend.user.User;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
-import java.util.Optional;
+import java.util.List;
 
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AdminEnrollmentController.class)
 class AdminEnrollmentReportControllerTest {
+    private static final Instant FROM = LocalDate.of(2025, 8, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    private static final Instant TO_EXCLUSIVE = LocalDate.of(2025, 8, 16).atStartOfDay().toInstant(ZoneOffset.UTC);
+
     @Autowired
     private MockMvc mockMvc;
     @MockitoBean
     private EnrollmentRepository enrollmentRepo;
 
-    private Enrollment enrollment;
-    private User user;
-    private Course course;
-
-    @BeforeEach
-    void setup() {
-        user = new User();
-        setId(user, 1L);
-        user.setEmail("user@example.com");
-        course = new Course();
-        setId(course, 2L);
-        course.setSlug("test-course");
-        enrollment = new Enrollment();
-        setId(enrollment, 3L);
-        enrollment.setUser(user);
-        enrollment.setCourse(course);
-        enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
-        // Set createdAt to a known date
-        Instant instant = LocalDate.of(2025, 8, 10).atStartOfDay().toInstant(ZoneOffset.UTC);
-        setCreatedAt(enrollment, instant);
-    }
-
     @Test
     @WithMockUser(roles = "ADMIN")
     void exportEnrollmentsCsv_withData_returnsCsv() throws Exception {
         // Enrollment in window
-        when(enrollmentRepo.findAll()).thenReturn(Arrays.asList(enrollment));
-        mockMvc.perform(get("/api/admin/enrollments/reports/enrollments.csv")
-                .param("from", "2025-08-01")
-                .param("to", "2025-08-15")
-                .with(csrf()))
+        EnrollmentReportRow row = new EnrollmentReportRow(3L, "user@example.com", "test-course",
+                LocalDate.of(2025, 8, 10).atStartOfDay().toInstant(ZoneOffset.UTC), Enrollment.EnrollmentStatus.ACTIVE);
+        when(enrollmentRepo.findReportChunk(eq(FROM), eq(0L), eq(TO_EXCLUSIVE), any(Pageable.class))).thenReturn(List.of(row));
+
+        mockMvc.perform(asyncDispatch(startExport()))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", "text/csv"))
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("enrollmentId,userEmail,courseSlug,enrolledAt,status")))
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("3,user@example.com,test-course")));
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("3,user@example.com,test-course,2025-08-10T00:00:00Z,ACTIVE")));
+        // the range is queried, never the whole table
+        verify(enrollmentRepo, never()).findAll();
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void exportEnrollmentsCsv_noData_returnsHeaderOnly() throws Exception {
         // No enrollments in window
-        when(enrollmentRepo.findAll()).thenReturn(Collections.emptyList());
-        mockMvc.perform(get("/api/admin/enrollments/reports/enrollments.csv")
-                .param("from", "2025-08-01")
-                .param("to", "2025-08-15")
-                .with(csrf()))
+        when(enrollmentRepo.findReportChunk(any(), any(), any(), any())).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(asyncDispatch(startExport()))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", "text/csv"))
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("enrollmentId,userEmail,courseSlug,enrolledAt,status")))
-                .andExpect(content().string(org.hamcrest.Matchers.not(org.hamcrest.Matchers.containsString("user@example.com"))));
+                .andExpect(content().string("enrollmentId,userEmail,courseSlug,enrolledAt,status\n"));
     }
 
-    // Helper to set private id field
-    private void setId(Object entity, Long id) {
-        try {
-            var field = entity.getClass().getDeclaredField("id");
-            field.setAccessible(true);
-            field.set(entity, id);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportEnrollmentsCsv_fullChunk_continuesFromLastRow() throws Exception {
+        // A full first chunk means there may be more: the next query starts after its last (createdAt, id)
+        int chunkSize = AdminEnrollmentController.EXPORT_CHUNK_SIZE;
+        List<EnrollmentReportRow> firstChunk = new ArrayList<>();
+        for (long id = 1; id <= chunkSize; id++) {
+            firstChunk.add(new EnrollmentReportRow(id, "user@example.com", "test-course", FROM, Enrollment.EnrollmentStatus.ACTIVE));
         }
+        EnrollmentReportRow tail = new EnrollmentReportRow(chunkSize + 1L, "user@example.com", "test-course",
+                FROM.plusSeconds(1), Enrollment.EnrollmentStatus.ACTIVE);
+        when(enrollmentRepo.findReportChunk(eq(FROM), eq(0L), eq(TO_EXCLUSIVE), any(Pageable.class))).thenReturn(firstChunk);
+        when(enrollmentRepo.findReportChunk(eq(FROM), eq((long) chunkSize), eq(TO_EXCLUSIVE), any(Pageable.class))).thenReturn(List.of(tail));
+
+        String body = mockMvc.perform(asyncDispatch(startExport()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // header + every row of both chunks, plus the empty string after the trailing newline
+        assertThat(body.split("\n", -1)).hasSize(chunkSize + 3);
+        verify(enrollmentRepo, times(2)).findReportChunk(any(), any(), any(), any());
     }
 
-    // Helper to set private createdAt field
-    private void setCreatedAt(Object entity, Instant createdAt) {
-        try {
-            var field = entity.getClass().getDeclaredField("createdAt");
-            field.setAccessible(true);
-            field.set(entity, createdAt);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    private MvcResult startExport() throws Exception {
+        return mockMvc.perform(get("/api/admin/enrollments/reports/enrollments.csv")
+                        .param("from", "2025-08-01")
+                        .param("to", "2025-08-15")
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
     }
 }
-
@@ -1,6 +1,8 @@
 package com.example.apibackend.enrollment;
 
 import com.example.apibackend.auth.JwtUtil;
+import com.example.apibackend.auth.PrincipalCache;
+import com.example.apibackend.auth.UserPrincipal;
 import com.example.apibackend.user.User;
 import com.example.apibackend.user.UserRepository;
 import com.example.apibackend.course.Course;
@@ -11,6 +13,9 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,9 +26,12 @@ import org.springframework.test.web.servlet.MockMvc;
 
 
 import java.lang.reflect.Field;
+import java.time.Instant;
 import java.util.List;
 import java.util.Arrays;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -37,6 +45,8 @@ class EnrollmentControllerTest {
     private UserRepository userRepo;
     @MockitoBean
     private JwtUtil jwtUtil;
+    @MockitoBean
+    private PrincipalCache principalCache; // JwtAuthFilter dependency (SecurityConfig)
     @Autowired
     private MockMvc mockMvc;
 
@@ -95,18 +105,21 @@ class EnrollmentControllerTest {
         when(enrollment1.getUser()).thenReturn(user1);
         when(enrollment1.getCourse()).thenReturn(realCourse(201L, "USD"));
         when(enrollment1.getStatus()).thenReturn(Enrollment.EnrollmentStatus.ACTIVE);
+        when(enrollment1.getCreatedAt()).thenReturn(Instant.parse("2024-05-01T10:00:00Z"));
 
         enrollment2 = mock(Enrollment.class);
         when(enrollment2.getId()).thenReturn(102L);
         when(enrollment2.getUser()).thenReturn(user1);
         when(enrollment2.getCourse()).thenReturn(realCourse(202L, "USD"));
         when(enrollment2.getStatus()).thenReturn(Enrollment.EnrollmentStatus.ACTIVE);
+        when(enrollment2.getCreatedAt()).thenReturn(Instant.parse("2024-05-02T10:00:00Z"));
 
         enrollment3 = mock(Enrollment.class);
         when(enrollment3.getId()).thenReturn(103L);
         when(enrollment3.getUser()).thenReturn(user2);
         when(enrollment3.getCourse()).thenReturn(realCourse(203L, "USD"));
         when(enrollment3.getStatus()).thenReturn(Enrollment.EnrollmentStatus.ACTIVE);
+        when(enrollment3.getCreatedAt()).thenReturn(Instant.parse("2024-05-03T10:00:00Z"));
     }
 
     /**
@@ -117,35 +130,33 @@ class EnrollmentControllerTest {
      */
     @Test
     void getMyEnrollments_returnsOnlyCurrentUserEnrollments() throws Exception {
-        // Only user1's enrollments
-        when(enrollmentRepo.findByUserId(anyLong())).thenReturn(Arrays.asList(enrollment1, enrollment2));
-        Authentication auth = new UsernamePasswordAuthenticationToken(user1, null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        // Only user1's enrollments, as the paged query the controller runs returns them
+        when(enrollmentRepo.findByUserIdAndUser_DeletedAtIsNull(eq(user1.getId()), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(enrollment1, enrollment2), PageRequest.of(0, 6), 2));
+        Authentication auth = new UsernamePasswordAuthenticationToken(UserPrincipal.of(user1), null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
         SecurityContextHolder.getContext().setAuthentication(auth);
 
-        // Debug: check that enrollments are returned from the mock
-        List<Enrollment> debugEnrollments = enrollmentRepo.findByUserId(user1.getId());
-        assert debugEnrollments.size() == 2 : "Mocked enrollments not returned as expected";
-
         mockMvc.perform(get("/api/enrollments/me")
                 .principal(auth)
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk()) // Should succeed
-                .andExpect(jsonPath("$[0].id").value(101L)) // First enrollment's ID
-                .andExpect(jsonPath("$[1].id").value(102L)) // Second enrollment's ID
-                .andExpect(jsonPath("$[0].courseId").value(201L)) // First enrollment's course
-                .andExpect(jsonPath("$[1].courseId").value(202L)); // Second enrollment's course
+                .andExpect(jsonPath("$.content[0].id").value(101L)) // First enrollment's ID
+                .andExpect(jsonPath("$.content[1].id").value(102L)) // Second enrollment's ID
+                .andExpect(jsonPath("$.content[0].courseId").value(201L)) // First enrollment's course
+                .andExpect(jsonPath("$.content[1].courseId").value(202L)) // Second enrollment's course
+                .andExpect(jsonPath("$.totalElements").value(2));
     }
 
     /**
      * Tests that GET /api/admin/enrollments returns all enrollments for admin.
      * - Sets up mock enrollments for two users.
      * - Authenticates as admin.
-     * - Expects all enrollments in the response, including userId, courseId, id, and status.
+     * - Expects all enrollments in the response, including id, user email, course title, date and status.
      */
     @Test
     void getAllEnrollments_asAdmin_returnsGlobalList() throws Exception {
-        when(enrollmentRepo.findAll()).thenReturn(Arrays.asList(enrollment1, enrollment2, enrollment3));
-        Authentication auth = new UsernamePasswordAuthenticationToken(admin, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        when(enrollmentRepo.findAllWithUserAndCourse()).thenReturn(Arrays.asList(enrollment1, enrollment2, enrollment3));
+        Authentication auth = new UsernamePasswordAuthenticationToken(UserPrincipal.of(admin), null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
         SecurityContextHolder.getContext().setAuthentication(auth);
 
         mockMvc.perform(get("/api/admin/enrollments")
@@ -153,16 +164,17 @@ class EnrollmentControllerTest {
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk()) // Should succeed for admin
                 .andExpect(jsonPath("$[0].id").value(101L)) // Enrollment1
-                .andExpect(jsonPath("$[0].userId").value(user1.getId()))
-                .andExpect(jsonPath("$[0].courseId").value(201L))
+                .andExpect(jsonPath("$[0].userEmail").value(user1.getEmail()))
+                .andExpect(jsonPath("$[0].courseTitle").value("Test Course 201"))
+                .andExpect(jsonPath("$[0].date").value("2024-05-01T10:00:00Z"))
                 .andExpect(jsonPath("$[0].status").value("ACTIVE"))
                 .andExpect(jsonPath("$[1].id").value(102L)) // Enrollment2
-                .andExpect(jsonPath("$[1].userId").value(user1.getId()))
-                .andExpect(jsonPath("$[1].courseId").value(202L))
+                .andExpect(jsonPath("$[1].userEmail").value(user1.getEmail()))
+                .andExpect(jsonPath("$[1].courseTitle").value("Test Course 202"))
                 .andExpect(jsonPath("$[1].status").value("ACTIVE"))
                 .andExpect(jsonPath("$[2].id").value(103L)) // Enrollment3
-                .andExpect(jsonPath("$[2].userId").value(user2.getId()))
-                .andExpect(jsonPath("$[2].courseId").value(203L))
+                .andExpect(jsonPath("$[2].userEmail").value(user2.getEmail()))
+                .andExpect(jsonPath("$[2].courseTitle").value("Test Course 203"))
                 .andExpect(jsonPath("$[2].status").value("ACTIVE"));
     }
 
@@ -173,7 +185,7 @@ class EnrollmentControllerTest {
      */
     @Test
     void getAllEnrollments_asNonAdmin_returnsForbidden() throws Exception {
-        Authentication auth = new UsernamePasswordAuthenticationToken(user2, null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        Authentication auth = new UsernamePasswordAuthenticationToken(UserPrincipal.of(user2), null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
         SecurityContextHolder.getContext().setAuthentication(auth);
 
         mockMvc.perform(get("/api/admin/enrollments")
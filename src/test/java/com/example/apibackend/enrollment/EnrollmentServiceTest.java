@@ -0,0 +1,138 @@
+package com.example.apibackend.enrollment;
+
+import com.example.apibackend.course.Course;
+import com.example.apibackend.user.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repository-backed test for bulk enrollment fulfilment:
+ * - Uses Testcontainers MySQL + Flyway like CourseRepositoryTest.
+ * - Counts Hibernate statements so a per-course loop (exists/find/save per item) fails the build.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // don't swap to H2
+@ActiveProfiles("test")
+@Testcontainers
+@Import(EnrollmentService.class)
+class EnrollmentServiceTest {
+
+    static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("learning")
+            .withUsername("app")
+            .withPassword("app");
+
+    static {
+        mysql.start();
+    }
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r) {
+        r.add("spring.datasource.url", () -> mysql.getJdbcUrl() + "?rewriteBatchedStatements=true");
+        r.add("spring.datasource.username", mysql::getUsername);
+        r.add("spring.datasource.password", mysql::getPassword);
+        r.add("spring.flyway.enabled", () -> true);
+    }
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    EnrollmentService enrollmentService;
+
+    @Autowired
+    EnrollmentRepository enrollmentRepo;
+
+    @Test
+    void twentyCourseCart_insertsAndReactivatesInConstantStatements() {
+        User user = seedUser("buyer@example.com");
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            courses.add(seedCourse("cart-course-" + i));
+        }
+        // course 0 already ACTIVE, course 1 and 2 revoked earlier, the other 17 are new
+        seedEnrollment(user, courses.get(0), Enrollment.EnrollmentStatus.ACTIVE);
+        seedEnrollment(user, courses.get(1), Enrollment.EnrollmentStatus.CANCELED);
+        seedEnrollment(user, courses.get(2), Enrollment.EnrollmentStatus.PENDING);
+        em.flush();
+        em.clear();
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        List<Course> changed = enrollmentService.activateEnrollments(user, courses);
+        em.flush();
+
+        assertThat(changed).hasSize(19).doesNotContain(courses.get(0));
+        // one SELECT of existing enrollments + one batched UPDATE for the reactivations
+        // (the 17 INSERTs are a single JdbcTemplate batch, outside Hibernate's statistics)
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+
+        em.clear();
+        List<Enrollment> all = enrollmentRepo.findByUserId(user.getId());
+        assertThat(all).hasSize(20).allMatch(e -> e.getStatus() == Enrollment.EnrollmentStatus.ACTIVE);
+        assertThat(all).allMatch(e -> e.getRevokedAt() == null && e.getCreatedAt() != null);
+    }
+
+    @Test
+    void alreadyActive_changesNothing() {
+        User user = seedUser("repeat@example.com");
+        Course course = seedCourse("repeat-course");
+        seedEnrollment(user, course, Enrollment.EnrollmentStatus.ACTIVE);
+        em.flush();
+
+        assertThat(enrollmentService.activateEnrollments(user, List.of(course))).isEmpty();
+        assertThat(enrollmentService.activateEnrollments(user, List.of())).isEmpty();
+    }
+
+    private User seedUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        user.setRole("USER");
+        return em.persist(user);
+    }
+
+    private Course seedCourse(String slug) {
+        Course course = new Course();
+        course.setSlug(slug);
+        course.setTitle(slug);
+        course.setPriceCents(1999);
+        course.setCurrency("USD");
+        course.setIsActive(true);
+        return em.persist(course);
+    }
+
+    private void seedEnrollment(User user, Course course, Enrollment.EnrollmentStatus status) {
+        Enrollment enrollment = new Enrollment();
+        enrollment.setUser(user);
+        enrollment.setCourse(course);
+        enrollment.setStatus(status);
+        if (status == Enrollment.EnrollmentStatus.CANCELED) {
+            enrollment.setRevokedAt(java.time.Instant.now());
+        }
+        em.persist(enrollment);
+    }
+}
@@ -5,10 +5,12 @@ import com.example.apibackend.course.CourseRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
@@ -20,6 +22,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(InstructorController.class)
+@AutoConfigureMockMvc(addFilters = false) // public endpoints; skip security filters in this slice
 class InstructorControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -59,11 +62,14 @@ class InstructorControllerTest {
     void getInstructorById_returnsDetail() throws Exception {
         when(instructorRepo.findById(anyLong())).thenReturn(Optional.of(instructor));
         when(courseRepo.findByInstructorId(anyLong())).thenReturn(List.of(course));
+        ReflectionTestUtils.setField(course, "ratingSum", 12L);
+        ReflectionTestUtils.setField(course, "ratingCount", 3);
         mockMvc.perform(get("/api/instructors/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1L))
                 .andExpect(jsonPath("$.bio").value("Expert in Java"))
-                .andExpect(jsonPath("$.courses[0].title").value("Java 101"));
+                .andExpect(jsonPath("$.courses[0].title").value("Java 101"))
+                .andExpect(jsonPath("$.courses[0].averageRating").value(4.0));
     }
 
     @Test
@@ -1,5 +1,6 @@
 package com.example.apibackend.module;
 
+import com.example.apibackend.course.CatalogCacheInvalidator;
 import com.example.apibackend.course.Course;
 import com.example.apibackend.course.CourseRepository;
 import com.example.apibackend.lesson.Lesson;
@@ -36,6 +37,8 @@ class AdminModuleControllerTest {
     private CourseRepository courseRepo;
     @MockitoBean
     private LessonRepository lessonRepo;
+    @MockitoBean
+    private CatalogCacheInvalidator cacheInvalidator;
 
     private Course course;
     private Module module1, module2;
@@ -105,6 +108,8 @@ class AdminModuleControllerTest {
         lessonResult.andExpect(status().isCreated()) // Should return 201
                 .andExpect(jsonPath("$.title").value("Lesson 1")); // DTO field check
         verify(lessonRepo).save(lessonCaptor.capture()); // Ensure save called
+        verify(cacheInvalidator).courseChanged("course-1"); // module create evicts by slug
+        verify(cacheInvalidator).courseChanged(1L); // lesson create evicts via the owning course id
     }
 
     @Test
@@ -126,18 +131,20 @@ class AdminModuleControllerTest {
                 .content("[200,100]") // New order: lesson2, lesson1
                 .with(csrf()));
         reorderLessons.andExpect(status().isOk()); // Should return 200
+        verify(cacheInvalidator, times(2)).courseChanged(1L); // both reorders evict the course
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void deleteLesson_returns204AndLessonGone() throws Exception {
-        // Mock for lesson existence
-        when(lessonRepo.existsById(eq(100L))).thenReturn(true); // Simulate lesson exists
+        // Mock for lesson existence (loaded with its module to find the course to evict)
+        when(lessonRepo.findWithModuleById(eq(100L))).thenReturn(Optional.of(lesson1)); // Simulate lesson exists
         // Delete lesson (DELETE)
         ResultActions deleteResult = mockMvc.perform(delete("/api/admin/lessons/100")
                 .with(csrf()));
         deleteResult.andExpect(status().isNoContent()); // Should return 204
         verify(lessonRepo).deleteById(eq(100L)); // Ensure delete called
+        verify(cacheInvalidator).courseChanged(1L); // cached detail/preview of the course evicted
     }
 
     // Helper to set private id field
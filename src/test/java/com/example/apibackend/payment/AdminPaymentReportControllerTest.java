@@ -1,107 +1,116 @@
 package com.example.apibackend.payment;
 
-import com.example.apibackend.course.Course;
-import com.example.apibackend.user.User;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AdminPaymentController.class)
 class AdminPaymentReportControllerTest {
+    private static final Instant FROM = LocalDate.of(2025, 8, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    private static final Instant TO_EXCLUSIVE = LocalDate.of(2025, 8, 16).atStartOfDay().toInstant(ZoneOffset.UTC);
+
     @Autowired
     private MockMvc mockMvc;
     @MockitoBean
     private PaymentRepository paymentRepo;
-
-    private Payment payment;
-    private User user;
-    private Course course;
-
-    @BeforeEach
-    void setup() {
-        user = new User();
-        setId(user, 1L);
-        user.setEmail("user@example.com");
-        course = new Course();
-        setId(course, 2L);
-        course.setSlug("test-course");
-        payment = new Payment();
-        setId(payment, 3L);
-        payment.setUser(user);
-        payment.setCourse(course);
-        payment.setAmountCents(1000);
-        payment.setCurrency("USD");
-        payment.setStatus(Payment.PaymentStatus.SUCCESS);
-        payment.setGatewayTxnId("txn-123");
-        // Set createdAt to a known date
-        Instant instant = LocalDate.of(2025, 8, 10).atStartOfDay().toInstant(ZoneOffset.UTC);
-        setCreatedAt(payment, instant);
-    }
+    @MockitoBean
+    private PaymentService paymentService;
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void exportPaymentsCsv_withData_returnsCsv() throws Exception {
         // Payment in window
-        when(paymentRepo.findAll()).thenReturn(Arrays.asList(payment));
-        mockMvc.perform(get("/api/admin/payments/reports/payments.csv")
-                .param("from", "2025-08-01")
-                .param("to", "2025-08-15")
-                .with(csrf()))
+        PaymentReportRow row = new PaymentReportRow(3L, "user@example.com", "test-course", 1000, "USD",
+                Payment.PaymentStatus.SUCCESS, "txn-123", LocalDate.of(2025, 8, 10).atStartOfDay().toInstant(ZoneOffset.UTC));
+        when(paymentRepo.findReportChunk(eq(FROM), eq(0L), eq(TO_EXCLUSIVE), any(Pageable.class))).thenReturn(List.of(row));
+
+        mockMvc.perform(asyncDispatch(startExport()))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", "text/csv"))
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("paymentId,userEmail,courseSlug,amount,currency,status,gatewayTxnId,createdAt")))
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("3,user@example.com,test-course,1000,USD,SUCCESS,txn-123")));
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("3,user@example.com,test-course,1000,USD,SUCCESS,txn-123,2025-08-10T00:00:00Z")));
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void exportPaymentsCsv_noData_returnsHeaderOnly() throws Exception {
         // No payments in window
-        when(paymentRepo.findAll()).thenReturn(Collections.emptyList());
-        mockMvc.perform(get("/api/admin/payments/reports/payments.csv")
-                .param("from", "2025-08-01")
-                .param("to", "2025-08-15")
-                .with(csrf()))
+        when(paymentRepo.findReportChunk(any(), any(), any(), any())).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(asyncDispatch(startExport()))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", "text/csv"))
-                .andExpect(content().string(org.hamcrest.Matchers.containsString("paymentId,userEmail,courseSlug,amount,currency,status,gatewayTxnId,createdAt")))
-                .andExpect(content().string(org.hamcrest.Matchers.not(org.hamcrest.Matchers.containsString("user@example.com"))));
+                .andExpect(content().string("paymentId,userEmail,courseSlug,amount,currency,status,gatewayTxnId,createdAt\n"));
     }
 
-    // Helper to set private id field
-    private void setId(Object entity, Long id) {
-        try {
-            var field = entity.getClass().getDeclaredField("id");
-            field.setAccessible(true);
-            field.set(entity, id);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportPaymentsCsv_fullChunk_continuesFromLastRow() throws Exception {
+        // A full first chunk means there may be more: the next query starts after its last (createdAt, id)
+        List<PaymentReportRow> firstChunk = new ArrayList<>();
+        for (long id = 1; id <= AdminPaymentController.EXPORT_CHUNK_SIZE; id++) {
+            firstChunk.add(new PaymentReportRow(id, "user@example.com", null, 1000, "USD",
+                    Payment.PaymentStatus.SUCCESS, null, FROM.plusSeconds(id)));
         }
+        long lastId = AdminPaymentController.EXPORT_CHUNK_SIZE;
+        PaymentReportRow tail = new PaymentReportRow(lastId + 1, "user@example.com", null, 1000, "USD",
+                Payment.PaymentStatus.SUCCESS, null, FROM.plusSeconds(lastId + 1));
+        when(paymentRepo.findReportChunk(eq(FROM), eq(0L), eq(TO_EXCLUSIVE), any(Pageable.class))).thenReturn(firstChunk);
+        when(paymentRepo.findReportChunk(eq(FROM.plusSeconds(lastId)), eq(lastId), eq(TO_EXCLUSIVE), any(Pageable.class))).thenReturn(List.of(tail));
+
+        String body = mockMvc.perform(asyncDispatch(startExport()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // header + every row of both chunks
+        assertLineCount(body, AdminPaymentController.EXPORT_CHUNK_SIZE + 2);
+        verify(paymentRepo, times(2)).findReportChunk(any(), any(), any(), any());
     }
 
-    // Helper to set private createdAt field
-    private void setCreatedAt(Object entity, Instant createdAt) {
-        try {
-            var field = entity.getClass().getDeclaredField("createdAt");
-            field.setAccessible(true);
-            field.set(entity, createdAt);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportPaymentsCsv_escapesSpecialCharacters() throws Exception {
+        PaymentReportRow row = new PaymentReportRow(4L, "odd,\"user\"@example.com", "test-course", 1000, "USD",
+                Payment.PaymentStatus.SUCCESS, null, FROM);
+        when(paymentRepo.findReportChunk(any(), any(), any(), any())).thenReturn(List.of(row));
+
+        mockMvc.perform(asyncDispatch(startExport()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("4,\"odd,\"\"user\"\"@example.com\",test-course,1000,USD,SUCCESS,,")));
+    }
+
+    private MvcResult startExport() throws Exception {
+        return mockMvc.perform(get("/api/admin/payments/reports/payments.csv")
+                        .param("from", "2025-08-01")
+                        .param("to", "2025-08-15")
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static void assertLineCount(String body, int expected) {
+        org.assertj.core.api.Assertions.assertThat(body.split("\n", -1)).hasSize(expected + 1); // trailing newline
     }
 }
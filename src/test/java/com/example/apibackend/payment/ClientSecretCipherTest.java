@@ -0,0 +1,38 @@
+package com.example.apibackend.payment;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClientSecretCipherTest {
+    private final ClientSecretCipher cipher = new ClientSecretCipher(PaymentServiceTest.TEST_KEY);
+
+    @Test
+    void roundTrip_withFreshIvPerValue() {
+        String first = cipher.encrypt("pi_123_secret_abc");
+        String second = cipher.encrypt("pi_123_secret_abc");
+
+        assertThat(first).isNotEqualTo(second).doesNotContain("secret");
+        assertThat(cipher.decrypt(first)).isEqualTo("pi_123_secret_abc");
+        assertThat(cipher.decrypt(second)).isEqualTo("pi_123_secret_abc");
+    }
+
+    @Test
+    void decrypt_otherKeyOrTampered_returnsNull() {
+        String encrypted = cipher.encrypt("pi_123_secret_abc");
+        ClientSecretCipher rotated = new ClientSecretCipher("AQEBAQEBAQEBAQEBAQEBAQEBAQEBAQEBAQEBAQEBAQE=");
+        char[] tampered = encrypted.toCharArray();
+        tampered[20] = tampered[20] == 'A' ? 'B' : 'A';
+
+        assertThat(rotated.decrypt(encrypted)).isNull();
+        assertThat(cipher.decrypt(new String(tampered))).isNull();
+        assertThat(cipher.decrypt("not base64!")).isNull();
+    }
+
+    @Test
+    void constructor_rejectsShortKey() {
+        assertThatThrownBy(() -> new ClientSecretCipher("c2hvcnQ="))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.apibackend.payment;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * In-memory stand-in for Stripe, for tests and benchmarks.
+ * - Intents are kept in a map keyed by idempotency key, so a retried create returns the same intent, as Stripe does.
+ * - Every call takes a fixed simulated latency; maxInFlight records the highest observed concurrency.
+ * - Idempotency keys / intent ids listed in failKeys fail with a provider error (providerFailure = true, outcome
+ *   unknown), those in declineKeys with a client error (providerFailure = false, rejected), those in unavailableKeys
+ *   as if the bulkhead or circuit breaker had rejected the call.
+ */
+public class InMemoryPaymentGateway implements PaymentGateway {
+    private final Duration latency;
+    final Set<String> failKeys = ConcurrentHashMap.newKeySet();
+    final Set<String> declineKeys = ConcurrentHashMap.newKeySet();
+    final Set<String> unavailableKeys = ConcurrentHashMap.newKeySet();
+    final Map<String, Intent> intentsByKey = new ConcurrentHashMap<>();
+    final Map<String, String> refundsByIntent = new ConcurrentHashMap<>();
+    final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public InMemoryPaymentGateway(Duration latency) {
+        this.latency = latency;
+    }
+
+    public InMemoryPaymentGateway() {
+        this(Duration.ZERO);
+    }
+
+    @Override
+    public Intent createIntent(IntentRequest request) {
+        return call(request.idempotencyKey(), () -> intentsByKey.computeIfAbsent(request.idempotencyKey(), key -> {
+            String id = "pi_mem_" + key;
+            return new Intent(id, id + "_secret");
+        }));
+    }
+
+    @Override
+    public Intent retrieveIntent(String intentId) {
+        return call(intentId, () -> intentsByKey.values().stream()
+                .filter(intent -> intent.id().equals(intentId))
+                .findFirst()
+                .orElseThrow(() -> new PaymentGatewayException("No such payment_intent: " + intentId, null, false, true)));
+    }
+
+    @Override
+    public void refund(String intentId, String idempotencyKey) {
+        call(intentId, () -> refundsByIntent.putIfAbsent(intentId, idempotencyKey));
+    }
+
+    private <T> T call(String key, Supplier<T> body) {
+        calls.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            if (failKeys.contains(key)) {
+                throw new PaymentGatewayException("api_error", null, true);
+            }
+            if (declineKeys.contains(key)) {
+                throw new PaymentGatewayException("card_declined", null, false, true);
+            }
+            if (unavailableKeys.contains(key)) {
+                throw new PaymentGatewayUnavailableException("Payment gateway is at capacity, try again shortly", null, Duration.ofSeconds(1));
+            }
+            return body.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("interrupted", e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+}
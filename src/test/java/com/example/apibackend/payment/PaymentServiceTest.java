@@ -0,0 +1,483 @@
+package com.example.apibackend.payment;
+
+import com.example.apibackend.cart.CartRepository;
+import com.example.apibackend.course.Course;
+import com.example.apibackend.course.CourseRepository;
+import com.example.apibackend.enrollment.EnrollmentRepository;
+import com.example.apibackend.user.User;
+import com.example.apibackend.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PaymentService gateway interaction: the concurrent PaymentIntent fan-out of cart checkout
+ * (against the local InMemoryPaymentGateway), the whole cart checkout with its JDBC batches recorded by a
+ * mocked JdbcTemplate, and the stored client secret served on checkout retries.
+ */
+class PaymentServiceTest {
+    static final String TEST_KEY = "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=";
+
+    private final InMemoryPaymentGateway gateway = new InMemoryPaymentGateway(Duration.ofMillis(200));
+    private final PaymentRepository paymentRepository = Mockito.mock(PaymentRepository.class);
+    private final CourseRepository courseRepository = Mockito.mock(CourseRepository.class);
+    private final EnrollmentRepository enrollmentRepository = Mockito.mock(EnrollmentRepository.class);
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private final ClientSecretCipher cipher = new ClientSecretCipher(TEST_KEY);
+    private final PaymentService service = new PaymentService(
+            paymentRepository,
+            courseRepository,
+            userRepository,
+            Mockito.mock(CartRepository.class),
+            enrollmentRepository,
+            Mockito.mock(PaymentItemRepository.class),
+            gateway,
+            jdbcTemplate,
+            new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)),
+                cipher);
+
+    // payments rows written by cart checkout, by id: column index (1-based, as in the SQL) -> value
+    private final Map<Long, Map<Integer, Object>> paymentRows = new HashMap<>();
+    private final AtomicLong nextPaymentId = new AtomicLong(11);
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(service, "clientSecretTtl", Duration.ofHours(24));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void createIntents_callsRunConcurrently_inRequestOrder() {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(5));
+
+        PaymentService.IntentBatch batch = service.createIntents(requests(10));
+
+        assertThat(batch.intents()).extracting(PaymentGateway.Intent::id)
+                .containsExactlyElementsOf(IntStream.range(0, 10).mapToObj(i -> "pi_mem_payment-" + i).toList());
+        assertThat(batch.failure()).isNull();
+        assertThat(gateway.maxInFlight.get()).isEqualTo(10);
+    }
+
+    @Test
+    void createIntents_failedCall_isNullAndOthersSucceed() {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(5));
+        gateway.failKeys.add("payment-1");
+
+        List<PaymentGateway.Intent> intents = service.createIntents(requests(3)).intents();
+
+        assertThat(intents.get(0)).isNotNull();
+        assertThat(intents.get(1)).isNull();
+        assertThat(intents.get(2)).isNotNull();
+    }
+
+    @Test
+    void createIntents_unavailableGateway_isTheReportedFailure() {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(5));
+        gateway.failKeys.add("payment-0");
+        gateway.unavailableKeys.add("payment-2");
+
+        PaymentService.IntentBatch batch = service.createIntents(requests(3));
+
+        assertThat(batch.failure()).isInstanceOf(PaymentGatewayUnavailableException.class);
+    }
+
+    @Test
+    void createIntents_slowCalls_timeOutAtSharedDeadline() {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofMillis(50));
+
+        PaymentService.IntentBatch batch = service.createIntents(requests(3));
+
+        assertThat(batch.intents()).containsOnlyNulls();
+        assertThat(batch.failure()).hasMessageContaining("timed out");
+    }
+
+    @Test
+    void checkoutCart_success_linksAnIntentToEveryNewRow() throws Exception {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(5));
+        List<Course> cart = List.of(course(1L, "Java Basics", 1999), course(2L, "Spring Boot", 2999));
+        givenCart(cart, List.of());
+
+        CartCheckoutResponseDTO response = service.checkoutCartWithSinglePayment(7L);
+
+        assertThat(response.getItems()).extracting(CartCheckoutResponseDTO.CartPaymentItemDTO::getPaymentId).containsExactly(11L, 12L);
+        assertThat(response.getItems()).extracting(CartCheckoutResponseDTO.CartPaymentItemDTO::getPiId)
+                .containsExactly("pi_mem_payment-11", "pi_mem_payment-12");
+        assertThat(response.getItems()).extracting(CartCheckoutResponseDTO.CartPaymentItemDTO::getClientSecret)
+                .containsExactly("pi_mem_payment-11_secret", "pi_mem_payment-12_secret");
+        assertThat(paymentRows.get(11L)).containsEntry(1, "pi_mem_payment-11").containsEntry(2, "PENDING");
+        assertThat(cipher.decrypt((String) paymentRows.get(12L).get(3))).isEqualTo("pi_mem_payment-12_secret");
+    }
+
+    @Test
+    void checkoutCart_partialFailure_failsTheCall_andRetryReusesRowsAndKeys() throws Exception {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(5));
+        List<Course> cart = List.of(course(1L, "Java Basics", 1999), course(2L, "Spring Boot", 2999), course(3L, "Docker", 999));
+        givenCart(cart, List.of());
+        gateway.failKeys.add("payment-12"); // 5xx: Stripe may have created the intent
+
+        assertThatThrownBy(() -> service.checkoutCartWithSinglePayment(7L)).isInstanceOf(PaymentGatewayException.class);
+
+        assertThat(paymentRows.get(11L)).containsEntry(2, "PENDING");
+        assertThat(paymentRows).doesNotContainKey(12L); // left PENDING without an intent
+        assertThat(paymentRows.get(13L)).containsEntry(2, "PENDING");
+
+        // retry: rows 11 and 13 serve their stored intents, row 12 repeats its key
+        gateway.failKeys.clear();
+        givenCart(cart, List.of(storedPayment(11L, cart.get(0)), unlinkedPayment(12L, cart.get(1)), storedPayment(13L, cart.get(2))));
+        int callsBefore = gateway.calls.get();
+
+        CartCheckoutResponseDTO response = service.checkoutCartWithSinglePayment(7L);
+
+        assertThat(response.getItems()).extracting(CartCheckoutResponseDTO.CartPaymentItemDTO::getPaymentId).containsExactly(11L, 12L, 13L);
+        assertThat(response.getItems()).extracting(CartCheckoutResponseDTO.CartPaymentItemDTO::getClientSecret)
+                .containsExactly("pi_mem_payment-11_secret", "pi_mem_payment-12_secret", "pi_mem_payment-13_secret");
+        assertThat(gateway.calls.get() - callsBefore).isEqualTo(1); // only row 12 needed a call
+        assertThat(gateway.intentsByKey).containsOnlyKeys("payment-11", "payment-12", "payment-13");
+        assertThat(paymentRows.get(12L)).containsEntry(1, "pi_mem_payment-12").containsEntry(2, "PENDING");
+    }
+
+    @Test
+    void checkoutCart_rejectedCall_marksOnlyThatRowFailed_andRetryReplacesIt() throws Exception {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(5));
+        List<Course> cart = List.of(course(1L, "Java Basics", 1999), course(2L, "Spring Boot", 2999));
+        givenCart(cart, List.of());
+        gateway.declineKeys.add("payment-12"); // Stripe refused the request: no intent exists
+
+        assertThatThrownBy(() -> service.checkoutCartWithSinglePayment(7L)).isInstanceOf(PaymentGatewayException.class);
+        assertThat(paymentRows.get(12L)).containsEntry(2, "FAILED").containsEntry(1, null);
+
+        gateway.declineKeys.clear();
+        givenCart(cart, List.of(storedPayment(11L, cart.get(0))));
+
+        CartCheckoutResponseDTO response = service.checkoutCartWithSinglePayment(7L);
+
+        assertThat(response.getItems()).extracting(CartCheckoutResponseDTO.CartPaymentItemDTO::getPaymentId).containsExactly(11L, 13L);
+        assertThat(gateway.intentsByKey).containsOnlyKeys("payment-11", "payment-13");
+    }
+
+    @Test
+    void checkoutCart_timedOutCall_leavesRowPending_soTheRetrySendsTheSameKey() throws Exception {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofMillis(50));
+        List<Course> cart = List.of(course(1L, "Java Basics", 1999));
+        givenCart(cart, List.of());
+
+        assertThatThrownBy(() -> service.checkoutCartWithSinglePayment(7L)).hasMessageContaining("timed out");
+        assertThat(paymentRows).isEmpty(); // no UPDATE: the cancelled call may still have created payment-11 at Stripe
+
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(5));
+        gateway.intentsByKey.put("payment-11", new PaymentGateway.Intent("pi_late", "pi_late_secret"));
+        givenCart(cart, List.of(unlinkedPayment(11L, cart.get(0))));
+
+        CartCheckoutResponseDTO response = service.checkoutCartWithSinglePayment(7L);
+
+        assertThat(response.getItems()).extracting(CartCheckoutResponseDTO.CartPaymentItemDTO::getPiId).containsExactly("pi_late");
+        assertThat(gateway.intentsByKey).containsOnlyKeys("payment-11");
+    }
+
+    @Test
+    void checkoutCart_reusedRowWithExpiredSecret_retrievesItsIntentInsteadOfCreatingOne() throws Exception {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(5));
+        Course course = course(1L, "Java Basics", 1999);
+        // created over a day ago: Stripe no longer remembers the key, but the client may still confirm pi_orig
+        gateway.intentsByKey.put("expired-key", new PaymentGateway.Intent("pi_orig", "pi_orig_secret"));
+        Payment reused = unlinkedPayment(11L, course);
+        reused.setGatewayTxnId("pi_orig");
+        reused.setClientSecretEnc(cipher.encrypt("pi_orig_secret"));
+        reused.setClientSecretExpiresAt(Instant.now().minus(Duration.ofMinutes(1)));
+        givenCart(List.of(course), List.of(reused));
+
+        CartCheckoutResponseDTO response = service.checkoutCartWithSinglePayment(7L);
+
+        assertThat(response.getItems()).extracting(CartCheckoutResponseDTO.CartPaymentItemDTO::getPiId).containsExactly("pi_orig");
+        assertThat(response.getItems()).extracting(CartCheckoutResponseDTO.CartPaymentItemDTO::getClientSecret).containsExactly("pi_orig_secret");
+        assertThat(gateway.intentsByKey).containsOnlyKeys("expired-key"); // no new intent
+        assertThat(paymentRows.get(11L)).containsEntry(1, "pi_orig").containsEntry(2, "PENDING");
+        assertThat(((Timestamp) paymentRows.get(11L).get(4)).toInstant()).isAfter(Instant.now());
+    }
+
+    @Test
+    void checkoutCart_gatewayUnavailable_rethrowsItForA503() throws Exception {
+        ReflectionTestUtils.setField(service, "intentTimeout", Duration.ofSeconds(5));
+        givenCart(List.of(course(1L, "Java Basics", 1999)), List.of());
+        gateway.unavailableKeys.add("payment-11");
+
+        assertThatThrownBy(() -> service.checkoutCartWithSinglePayment(7L))
+                .isInstanceOf(PaymentGatewayUnavailableException.class)
+                .satisfies(e -> assertThat(((PaymentGatewayUnavailableException) e).getRetryAfter()).isEqualTo(Duration.ofSeconds(1)));
+        assertThat(paymentRows).doesNotContainKey(11L); // not attempted: the row stays PENDING for the retry
+    }
+
+    @Test
+    void createOrGetPendingPayment_retry_servesStoredClientSecretWithoutGatewayCall() {
+        Course course = new Course();
+        course.setTitle("Java Basics");
+        course.setPriceCents(1999);
+        Payment existing = new Payment();
+        ReflectionTestUtils.setField(existing, "id", 5L);
+        existing.setGatewayTxnId("pi_123");
+        existing.setClientSecretEnc(cipher.encrypt("pi_123_secret_abc"));
+        existing.setClientSecretExpiresAt(Instant.now().plus(Duration.ofHours(1)));
+        when(enrollmentRepository.findByUserIdAndCourseId(1L, 2L)).thenReturn(Optional.empty());
+        when(paymentRepository.findTopByUserIdAndCourseIdAndStatusOrderByCreatedAtDesc(1L, 2L, Payment.PaymentStatus.PENDING))
+                .thenReturn(Optional.of(existing));
+        when(courseRepository.findById(2L)).thenReturn(Optional.of(course));
+
+        CheckoutResponseDTO response = service.createOrGetPendingPayment(1L, 2L);
+
+        assertThat(response.getClientSecret()).isEqualTo("pi_123_secret_abc");
+        assertThat(response.getPaymentId()).isEqualTo(5L);
+        assertThat(gateway.calls.get()).isZero();
+    }
+
+    @Test
+    void gatewaySaturated_checkoutsHoldNoConnection_soCatalogReadsStillGetOne() throws Exception {
+        // 2 pooled connections, 6 checkouts stuck in the gateway at once (more than the pool, as the bulkhead allows)
+        PooledTransactionManager pool = new PooledTransactionManager(2);
+        CountDownLatch stuck = new CountDownLatch(6);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Boolean> heldDuringCall = new CopyOnWriteArrayList<>();
+        PaymentGateway slowGateway = new InMemoryPaymentGateway() {
+            @Override
+            public Intent createIntent(IntentRequest request) {
+                heldDuringCall.add(pool.heldByCurrentThread());
+                stuck.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.createIntent(request);
+            }
+        };
+        PaymentService checkoutService = new PaymentService(paymentRepository, courseRepository, userRepository,
+                Mockito.mock(CartRepository.class), enrollmentRepository, Mockito.mock(PaymentItemRepository.class),
+                slowGateway, jdbcTemplate, new TransactionTemplate(pool), cipher);
+        when(courseRepository.findById(2L)).thenReturn(Optional.of(course(2L, "Java Basics", 1999)));
+        when(userRepository.findById(any())).thenReturn(Optional.of(new User()));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(call -> {
+            Payment payment = call.getArgument(0);
+            ReflectionTestUtils.setField(payment, "id", nextPaymentId.getAndIncrement());
+            return payment;
+        });
+
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<CheckoutResponseDTO>> checkouts = IntStream.range(0, 6)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> checkoutService.createOrGetPendingPayment(1L + i, 2L), requests))
+                    .toList();
+            assertThat(stuck.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // a catalog read gets a connection while every checkout waits on the gateway
+            String page = new TransactionTemplate(pool).execute(status -> "catalog page");
+            assertThat(page).isEqualTo("catalog page");
+            assertThat(pool.available()).isEqualTo(2);
+
+            release.countDown();
+            assertThat(checkouts).allSatisfy(checkout -> assertThat(checkout.get(5, TimeUnit.SECONDS).getClientSecret()).isNotNull());
+        } finally {
+            checkoutService.shutdown();
+        }
+        assertThat(heldDuringCall).hasSize(6).containsOnly(false);
+    }
+
+    @Test
+    void createOrGetPendingPayment_existingPendingRowWithoutIntent_requestsItAgainWithTheRowsKey() {
+        // an earlier click committed the row, but its gateway call is still running, timed out or was never linked
+        Payment existing = pendingSinglePayment(5L);
+        gateway.intentsByKey.put("payment-5", new PaymentGateway.Intent("pi_first_click", "pi_first_click_secret"));
+
+        CheckoutResponseDTO response = service.createOrGetPendingPayment(1L, 2L);
+
+        assertThat(response.getClientSecret()).isEqualTo("pi_first_click_secret");
+        assertThat(response.getPiId()).isEqualTo("pi_first_click");
+        assertThat(gateway.intentsByKey).containsOnlyKeys("payment-5"); // same key: Stripe hands back the same intent
+        assertThat(existing.getGatewayTxnId()).isEqualTo("pi_first_click");
+        assertThat(cipher.decrypt(existing.getClientSecretEnc())).isEqualTo("pi_first_click_secret");
+    }
+
+    @Test
+    void createOrGetPendingPayment_gatewayError_marksRowFailedOnlyIfRejected() {
+        Payment existing = pendingSinglePayment(5L);
+        gateway.failKeys.add("payment-5"); // 5xx: the intent may exist
+
+        assertThatThrownBy(() -> service.createOrGetPendingPayment(1L, 2L)).isInstanceOf(PaymentGatewayException.class);
+        assertThat(existing.getStatus()).isEqualTo(Payment.PaymentStatus.PENDING);
+
+        gateway.failKeys.clear();
+        gateway.declineKeys.add("payment-5"); // Stripe refused the request: nothing was created
+
+        assertThatThrownBy(() -> service.createOrGetPendingPayment(1L, 2L)).isInstanceOf(PaymentGatewayException.class);
+        assertThat(existing.getStatus()).isEqualTo(Payment.PaymentStatus.FAILED);
+    }
+
+    // Cart contents and reusable PENDING rows; the JDBC batches hand out ids from 11 and record the UPDATEs in paymentRows
+    private void givenCart(List<Course> courses, List<Payment> pending) throws Exception {
+        when(courseRepository.findInCartOfUser(7L)).thenReturn(courses);
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(paymentRepository.findPendingForCourses(eq(7L), any())).thenReturn(pending);
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(call -> {
+                    BatchPreparedStatementSetter setter = call.getArgument(1);
+                    KeyHolder keys = call.getArgument(2);
+                    for (int i = 0; i < setter.getBatchSize(); i++) {
+                        keys.getKeyList().add(Map.of("GENERATED_KEY", nextPaymentId.getAndIncrement()));
+                    }
+                    return new int[setter.getBatchSize()];
+                });
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(call -> {
+            BatchPreparedStatementSetter setter = call.getArgument(1);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                PreparedStatement ps = mock(PreparedStatement.class);
+                setter.setValues(ps, i);
+                Map<Integer, Object> row = new HashMap<>();
+                mockingDetails(ps).getInvocations().forEach(set -> row.put(set.getArgument(0), set.getArgument(1)));
+                paymentRows.put((Long) row.get(5), row);
+            }
+            return new int[setter.getBatchSize()];
+        });
+    }
+
+    // User 1's PENDING payment for course 2 without an intent, as findById and the PENDING lookup return it
+    private Payment pendingSinglePayment(Long id) {
+        Payment payment = new Payment();
+        ReflectionTestUtils.setField(payment, "id", id);
+        payment.setAmountCents(1999);
+        payment.setCurrency("USD");
+        payment.setStatus(Payment.PaymentStatus.PENDING);
+        when(enrollmentRepository.findByUserIdAndCourseId(1L, 2L)).thenReturn(Optional.empty());
+        when(paymentRepository.findTopByUserIdAndCourseIdAndStatusOrderByCreatedAtDesc(1L, 2L, Payment.PaymentStatus.PENDING))
+                .thenReturn(Optional.of(payment));
+        when(paymentRepository.findById(id)).thenReturn(Optional.of(payment));
+        when(courseRepository.findById(2L)).thenReturn(Optional.of(course(2L, "Java Basics", 1999)));
+        return payment;
+    }
+
+    private static Course course(Long id, String title, int priceCents) {
+        Course course = new Course();
+        ReflectionTestUtils.setField(course, "id", id);
+        course.setTitle(title);
+        course.setPriceCents(priceCents);
+        course.setCurrency("USD");
+        return course;
+    }
+
+    // A PENDING row as the previous checkout attempt left it in paymentRows
+    private Payment storedPayment(Long id, Course course) {
+        Map<Integer, Object> row = paymentRows.get(id);
+        Payment payment = new Payment();
+        ReflectionTestUtils.setField(payment, "id", id);
+        payment.setCourse(course);
+        payment.setAmountCents(course.getPriceCents());
+        payment.setCurrency("USD");
+        payment.setGatewayTxnId((String) row.get(1));
+        payment.setClientSecretEnc((String) row.get(3));
+        payment.setClientSecretExpiresAt(((Timestamp) row.get(4)).toInstant());
+        return payment;
+    }
+
+    // A PENDING row whose intent call never completed: no intent linked
+    private static Payment unlinkedPayment(Long id, Course course) {
+        Payment payment = new Payment();
+        ReflectionTestUtils.setField(payment, "id", id);
+        payment.setCourse(course);
+        payment.setAmountCents(course.getPriceCents());
+        payment.setCurrency("USD");
+        return payment;
+    }
+
+    // Transaction manager over a fixed number of "connections": a transaction holds one until commit or rollback,
+    // and a transaction that finds none free within 200ms fails as a Hikari checkout timeout would
+    static class PooledTransactionManager implements PlatformTransactionManager {
+        private final Semaphore connections;
+        private final ThreadLocal<Boolean> held = ThreadLocal.withInitial(() -> false);
+
+        PooledTransactionManager(int size) {
+            this.connections = new Semaphore(size);
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            try {
+                if (!connections.tryAcquire(200, TimeUnit.MILLISECONDS)) {
+                    throw new CannotCreateTransactionException("Connection is not available, request timed out");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotCreateTransactionException("Interrupted", e);
+            }
+            held.set(true);
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            release();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            release();
+        }
+
+        private void release() {
+            held.set(false);
+            connections.release();
+        }
+
+        boolean heldByCurrentThread() {
+            return held.get();
+        }
+
+        int available() {
+            return connections.availablePermits();
+        }
+    }
+
+    private static List<PaymentGateway.IntentRequest> requests(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new PaymentGateway.IntentRequest(1999, "USD", "Course purchase: " + i,
+                        Map.of("paymentId", String.valueOf(i)), "payment-" + i))
+                .toList();
+    }
+}
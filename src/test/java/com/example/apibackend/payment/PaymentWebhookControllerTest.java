@@ -1,21 +1,28 @@
 package com.example.apibackend.payment;
 
+import com.example.apibackend.cart.CartService;
 import com.example.apibackend.course.Course;
 import com.example.apibackend.email.EmailService;
-import com.example.apibackend.enrollment.Enrollment;
-import com.example.apibackend.enrollment.EnrollmentRepository;
+import com.example.apibackend.enrollment.EnrollmentService;
 import com.example.apibackend.user.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -26,22 +33,32 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(PaymentWebhookController.class)
+@TestPropertySource(properties = "stripe.webhookSecret=" + PaymentWebhookControllerTest.STRIPE_SECRET)
 class PaymentWebhookControllerTest {
+    static final String STRIPE_SECRET = "whsec_test_secret";
+
     @Autowired
     private MockMvc mockMvc;
 
     @MockitoBean
     private PaymentRepository paymentRepo;
     @MockitoBean
-    private EnrollmentRepository enrollmentRepo;
+    private EnrollmentService enrollmentService;
     @MockitoBean
     private EmailService emailService;
+    @MockitoBean
+    private PaymentItemRepository paymentItemRepository;
+    @MockitoBean
+    private CartService cartService;
+    @MockitoBean
+    private WebhookEventRepository webhookEventRepository;
 
     private Payment payment;
     private User user;
     private Course course;
 
-    private final String validSignature = "stub-secret";
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @BeforeEach
     void setup() {
@@ -62,24 +79,47 @@ class PaymentWebhookControllerTest {
     @WithMockUser(username = "webhook", roles = {"ADMIN"}) // Webhook endpoints should be protected
     void webhookSuccessCreatesEnrollment() throws Exception {
         when(paymentRepo.findById(eq(100L))).thenReturn(Optional.of(payment));
-        when(enrollmentRepo.existsByUserIdAndCourseId(eq(10L), eq(20L))).thenReturn(false);
+        when(enrollmentService.activateEnrollments(user, List.of(course))).thenReturn(List.of(course));
         String body = "{\"paymentId\":100,\"gatewayTxnId\":\"gw123\",\"status\":\"SUCCESS\"}";
         ResultActions result = mockMvc.perform(post("/api/webhooks/payment")
                 .contentType(MediaType.APPLICATION_JSON)
-                .header("X-Signature", validSignature)
+                .header("X-Signature", sign(body))
                 .content(body)
                 .with(csrf()));
         result.andExpect(status().isOk());
         // Payment should be marked SUCCESS
         assertThat(payment.getStatus()).isEqualTo(Payment.PaymentStatus.SUCCESS);
         assertThat(payment.getGatewayTxnId()).isEqualTo("gw123");
-        // Enrollment should be created
-        ArgumentCaptor<Enrollment> captor = ArgumentCaptor.forClass(Enrollment.class);
-        verify(enrollmentRepo).save(captor.capture());
-        Enrollment enrollment = captor.getValue();
-        assertThat(enrollment.getUser().getId()).isEqualTo(10L);
-        assertThat(enrollment.getCourse().getId()).isEqualTo(20L);
-        assertThat(enrollment.getStatus()).isEqualTo(Enrollment.EnrollmentStatus.ACTIVE);
+        // Enrollment should be created (single course payment: no payment items)
+        verify(enrollmentService).activateEnrollments(user, List.of(course));
+        verify(emailService).sendEnrollmentConfirmation(user, course);
+        verify(emailService).sendPaymentReceipt(user, course, payment);
+        verify(cartService).clearCart(10L);
+    }
+
+    @Test
+    @WithMockUser(username = "webhook", roles = {"ADMIN"})
+    void webhookSuccessForCartEnrollsAllItemsInOnePass() throws Exception {
+        payment.setCourse(null);
+        Course second = new Course();
+        setId(second, 21L);
+        when(paymentRepo.findById(eq(100L))).thenReturn(Optional.of(payment));
+        List<PaymentItem> items = List.of(item(course), item(second));
+        when(paymentItemRepository.findAllByPaymentId(100L)).thenReturn(items);
+        // first course already ACTIVE, second newly enrolled
+        when(enrollmentService.activateEnrollments(user, List.of(course, second))).thenReturn(List.of(second));
+        String body = "{\"paymentId\":100,\"gatewayTxnId\":\"gw123\",\"status\":\"SUCCESS\"}";
+        mockMvc.perform(post("/api/webhooks/payment")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Signature", sign(body))
+                        .content(body)
+                        .with(csrf()))
+                .andExpect(status().isOk());
+
+        verify(enrollmentService, times(1)).activateEnrollments(any(), any());
+        verify(emailService).sendEnrollmentConfirmation(user, second);
+        verify(emailService, never()).sendEnrollmentConfirmation(user, course);
+        verify(emailService, times(2)).sendPaymentReceipt(eq(user), any(), eq(payment));
     }
 
     @Test
@@ -90,12 +130,12 @@ class PaymentWebhookControllerTest {
         String body = "{\"paymentId\":100,\"gatewayTxnId\":\"gw123\",\"status\":\"SUCCESS\"}";
         ResultActions result = mockMvc.perform(post("/api/webhooks/payment")
                 .contentType(MediaType.APPLICATION_JSON)
-                .header("X-Signature", validSignature)
+                .header("X-Signature", sign(body))
                 .content(body)
                 .with(csrf()));
         result.andExpect(status().isOk());
         // No duplicate enrollment
-        verify(enrollmentRepo, never()).save(any());
+        verify(enrollmentService, never()).activateEnrollments(any(), any());
     }
 
     @Test
@@ -105,14 +145,88 @@ class PaymentWebhookControllerTest {
         String body = "{\"paymentId\":100,\"gatewayTxnId\":\"gw123\",\"status\":\"FAILED\"}";
         ResultActions result = mockMvc.perform(post("/api/webhooks/payment")
                 .contentType(MediaType.APPLICATION_JSON)
-                .header("X-Signature", validSignature)
+                .header("X-Signature", sign(body))
                 .content(body)
                 .with(csrf()));
         result.andExpect(status().isOk());
         // Payment should be marked FAILED
         assertThat(payment.getStatus()).isEqualTo(Payment.PaymentStatus.FAILED);
         // No enrollment should be created
-        verify(enrollmentRepo, never()).save(any());
+        verify(enrollmentService, never()).activateEnrollments(any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "webhook", roles = {"ADMIN"})
+    void stripeWebhook_verifiedEvent_isQueuedNotApplied() throws Exception {
+        String body = stripeEvent("evt_123", "payment_intent.succeeded");
+        when(webhookEventRepository.insertIfAbsent("evt_123", "payment_intent.succeeded", body)).thenReturn(1);
+
+        mockMvc.perform(post("/api/webhooks/payment/stripe")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Stripe-Signature", stripeSignature(body))
+                        .content(body)
+                        .with(csrf()))
+                .andExpect(status().isOk());
+
+        verify(webhookEventRepository).insertIfAbsent("evt_123", "payment_intent.succeeded", body);
+        // fulfilment happens later in WebhookInboxWorker, not in the request
+        verifyNoInteractions(paymentRepo, enrollmentService, emailService);
+    }
+
+    @Test
+    @WithMockUser(username = "webhook", roles = {"ADMIN"})
+    void stripeWebhook_redelivery_returnsOk() throws Exception {
+        String body = stripeEvent("evt_123", "payment_intent.succeeded");
+        when(webhookEventRepository.insertIfAbsent(any(), any(), any())).thenReturn(0);
+
+        mockMvc.perform(post("/api/webhooks/payment/stripe")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Stripe-Signature", stripeSignature(body))
+                        .content(body)
+                        .with(csrf()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "webhook", roles = {"ADMIN"})
+    void stripeWebhook_badSignature_isRejectedAndNotStored() throws Exception {
+        String body = stripeEvent("evt_123", "payment_intent.succeeded");
+
+        mockMvc.perform(post("/api/webhooks/payment/stripe")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Stripe-Signature", "t=1,v1=deadbeef")
+                        .content(body)
+                        .with(csrf()))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(webhookEventRepository);
+    }
+
+    // X-Signature as the controller computes it: Base64(HMAC-SHA256(webhook.shared-secret, re-serialized payload))
+    private String sign(String body) throws Exception {
+        Object payload = objectMapper.readValue(body, PaymentWebhookController.PaymentWebhookPayload.class);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("stub-secret".getBytes(), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(objectMapper.writeValueAsString(payload).getBytes()));
+    }
+
+    private PaymentItem item(Course itemCourse) {
+        PaymentItem item = mock(PaymentItem.class);
+        when(item.getCourse()).thenReturn(itemCourse);
+        return item;
+    }
+
+    private static String stripeEvent(String id, String type) {
+        return "{\"id\":\"" + id + "\",\"object\":\"event\",\"api_version\":\"2023-10-16\",\"type\":\"" + type + "\","
+                + "\"data\":{\"object\":{\"id\":\"pi_123\",\"object\":\"payment_intent\",\"metadata\":{\"paymentId\":\"100\"}}}}";
+    }
+
+    // Stripe-Signature header as Stripe computes it: t=<unix seconds>,v1=hex(HMAC-SHA256(secret, t + "." + body))
+    private static String stripeSignature(String body) throws Exception {
+        long timestamp = System.currentTimeMillis() / 1000;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(STRIPE_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(mac.doFinal((timestamp + "." + body).getBytes(StandardCharsets.UTF_8)));
     }
 
     // Helper to set private id field
@@ -0,0 +1,110 @@
+package com.example.apibackend.payment;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bulkhead, circuit breaker and metrics of ResilientPaymentGateway, around the InMemoryPaymentGateway fake.
+ */
+class ResilientPaymentGatewayTest {
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+    @Test
+    void providerFailures_openBreaker_thenCallsFailFastWithoutReachingProvider() {
+        InMemoryPaymentGateway fake = new InMemoryPaymentGateway();
+        fake.failKeys.add("payment-1");
+        ResilientPaymentGateway gateway = resilient(fake, 10);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> gateway.createIntent(request("payment-1")))
+                    .isNotInstanceOf(PaymentGatewayUnavailableException.class);
+        }
+        assertThatThrownBy(() -> gateway.createIntent(request("payment-2")))
+                .isInstanceOf(PaymentGatewayUnavailableException.class)
+                .satisfies(e -> assertThat(((PaymentGatewayUnavailableException) e).getRetryAfter()).isEqualTo(Duration.ofSeconds(30)));
+        assertThat(fake.calls.get()).isEqualTo(4);
+        assertThat(meters.get("payment.gateway.calls").tag("operation", "create_intent").tag("outcome", "rejected").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrors_doNotOpenBreaker() {
+        InMemoryPaymentGateway fake = new InMemoryPaymentGateway();
+        fake.declineKeys.add("payment-1");
+        ResilientPaymentGateway gateway = resilient(fake, 10);
+
+        for (int i = 0; i < 6; i++) {
+            assertThatThrownBy(() -> gateway.createIntent(request("payment-1"))).isInstanceOf(PaymentGatewayException.class);
+        }
+
+        assertThat(gateway.createIntent(request("payment-2")).id()).isEqualTo("pi_mem_payment-2");
+    }
+
+    @Test
+    void fullBulkhead_rejectsInsteadOfQueueing() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        InMemoryPaymentGateway fake = new InMemoryPaymentGateway(Duration.ofMillis(500)) {
+            @Override
+            public PaymentGateway.Intent createIntent(PaymentGateway.IntentRequest request) {
+                entered.countDown();
+                return super.createIntent(request);
+            }
+        };
+        ResilientPaymentGateway gateway = resilient(fake, 1);
+
+        CompletableFuture<PaymentGateway.Intent> slow = CompletableFuture.supplyAsync(() -> gateway.createIntent(request("payment-1")));
+        assertThat(entered.await(2, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> gateway.retrieveIntent("pi_mem_payment-1"))
+                .isInstanceOf(PaymentGatewayUnavailableException.class)
+                .hasMessageContaining("capacity");
+        assertThat(slow.get(2, TimeUnit.SECONDS).id()).isEqualTo("pi_mem_payment-1");
+    }
+
+    @Test
+    void successfulCalls_areTimedPerOperation() {
+        InMemoryPaymentGateway fake = new InMemoryPaymentGateway();
+        ResilientPaymentGateway gateway = resilient(fake, 10);
+
+        PaymentGateway.Intent intent = gateway.createIntent(request("payment-1"));
+        gateway.retrieveIntent(intent.id());
+        gateway.refund(intent.id(), "refund-1");
+
+        assertThat(fake.refundsByIntent).containsEntry("pi_mem_payment-1", "refund-1");
+        for (String operation : new String[]{"create_intent", "retrieve_intent", "refund"}) {
+            assertThat(meters.get("payment.gateway.calls").tag("operation", operation).tag("outcome", "success").timer().count())
+                    .isEqualTo(1);
+        }
+    }
+
+    private ResilientPaymentGateway resilient(PaymentGateway delegate, int maxConcurrentCalls) {
+        CircuitBreaker breaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofSeconds(30))
+                .recordException(e -> !(e instanceof PaymentGatewayException gatewayError) || gatewayError.isProviderFailure())
+                .build());
+        Bulkhead bulkhead = Bulkhead.of("test", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        return new ResilientPaymentGateway(delegate, breaker, bulkhead, meters);
+    }
+
+    private static PaymentGateway.IntentRequest request(String idempotencyKey) {
+        return new PaymentGateway.IntentRequest(1999, "USD", "Course purchase", Map.of(), idempotencyKey);
+    }
+}
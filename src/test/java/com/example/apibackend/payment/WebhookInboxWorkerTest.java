@@ -0,0 +1,125 @@
+package com.example.apibackend.payment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the inbox worker: repository and fulfilment are mocked, transactions are no-ops.
+ */
+class WebhookInboxWorkerTest {
+    private static final Instant NOW = Instant.parse("2025-08-10T12:00:00Z");
+
+    private final WebhookEventRepository inbox = Mockito.mock(WebhookEventRepository.class);
+    private final PaymentFulfillmentService fulfillment = Mockito.mock(PaymentFulfillmentService.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private WebhookInboxWorker worker;
+
+    @BeforeEach
+    void setup() {
+        TransactionTemplate tx = new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class));
+        worker = new WebhookInboxWorker(inbox, fulfillment, tx, meters, Clock.fixed(NOW, ZoneOffset.UTC),
+                2, 2, 3, Duration.ofMinutes(5), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void process_success_marksProcessedAndRecordsLag() {
+        WebhookEvent event = claimedEvent(1L, 1, NOW.minusSeconds(30));
+        when(inbox.findById(1L)).thenReturn(Optional.of(event));
+
+        worker.process(1L);
+
+        verify(fulfillment).applyStripeEvent("payment_intent.succeeded", "{}");
+        assertThat(event.getStatus()).isEqualTo(WebhookEvent.Status.PROCESSED);
+        assertThat(event.getProcessedAt()).isEqualTo(NOW);
+        assertThat(meters.get("webhook.inbox.lag").timer().totalTime(java.util.concurrent.TimeUnit.SECONDS)).isEqualTo(30.0);
+    }
+
+    @Test
+    void process_failure_backsOffAndRetries() {
+        WebhookEvent event = claimedEvent(1L, 2, NOW);
+        when(inbox.findById(1L)).thenReturn(Optional.of(event));
+        doThrow(new IllegalStateException("boom")).when(fulfillment).applyStripeEvent(any(), any());
+
+        worker.process(1L);
+
+        assertThat(event.getStatus()).isEqualTo(WebhookEvent.Status.PENDING);
+        assertThat(event.getLastError()).isEqualTo("boom");
+        assertThat(event.getNextAttemptAt()).isEqualTo(NOW.plusSeconds(10)); // 5s * 2^(2-1)
+        assertThat(meters.get("webhook.inbox.processing").tag("outcome", "failed").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void process_failureOnLastAttempt_marksFailed() {
+        WebhookEvent event = claimedEvent(1L, 3, NOW);
+        when(inbox.findById(1L)).thenReturn(Optional.of(event));
+        doThrow(new IllegalStateException("boom")).when(fulfillment).applyStripeEvent(any(), any());
+
+        worker.process(1L);
+
+        assertThat(event.getStatus()).isEqualTo(WebhookEvent.Status.FAILED);
+    }
+
+    @Test
+    void process_rowNoLongerClaimed_isSkipped() {
+        WebhookEvent event = claimedEvent(1L, 1, NOW);
+        event.setStatus(WebhookEvent.Status.PROCESSED);
+        when(inbox.findById(1L)).thenReturn(Optional.of(event));
+
+        worker.process(1L);
+
+        verifyNoInteractions(fulfillment);
+    }
+
+    @Test
+    void drain_claimsBatchesUntilShortOne_thenRefreshesGauges() {
+        when(inbox.lockClaimable(eq(NOW), anyInt())).thenReturn(List.of(1L, 2L), List.of(3L));
+        for (long id = 1; id <= 3; id++) {
+            when(inbox.findById(id)).thenReturn(Optional.of(claimedEvent(id, 1, NOW)));
+        }
+        when(inbox.countByStatusIn(any())).thenReturn(7L);
+        when(inbox.findOldestReceivedAt(any())).thenReturn(NOW.minusSeconds(90));
+
+        worker.drain();
+
+        verify(inbox, times(2)).claim(any(), eq(NOW.plus(Duration.ofMinutes(5))));
+        verify(fulfillment, times(3)).applyStripeEvent(any(), any());
+        assertThat(meters.get("webhook.inbox.depth").gauge().value()).isEqualTo(7.0);
+        assertThat(meters.get("webhook.inbox.oldest.age").gauge().value()).isEqualTo(90.0);
+    }
+
+    private static WebhookEvent claimedEvent(Long id, int attempts, Instant receivedAt) {
+        WebhookEvent event = new WebhookEvent();
+        ReflectionTestUtils.setField(event, "id", id);
+        ReflectionTestUtils.setField(event, "eventId", "evt_" + id);
+        ReflectionTestUtils.setField(event, "type", "payment_intent.succeeded");
+        ReflectionTestUtils.setField(event, "payload", "{}");
+        ReflectionTestUtils.setField(event, "receivedAt", receivedAt);
+        event.setStatus(WebhookEvent.Status.PROCESSING);
+        event.setAttempts(attempts);
+        return event;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.apibackend.queue;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the shared claim/lease and retry bookkeeping; the repository is mocked.
+ */
+class LeasedQueueTest {
+    private static final Instant NOW = Instant.parse("2025-08-10T12:00:00Z");
+
+    private final LeasedRowRepository rows = Mockito.mock(LeasedRowRepository.class);
+    private final LeasedQueue queue = new LeasedQueue(rows, 2, 3, Duration.ofMinutes(5), Duration.ofSeconds(5));
+
+    @Test
+    void claimBatch_leasesLockedRows_andSkipsClaimWhenNothingIsClaimable() {
+        when(rows.lockClaimable(NOW, 2)).thenReturn(List.of(1L, 2L)).thenReturn(List.of());
+
+        assertThat(queue.claimBatch(NOW)).containsExactly(1L, 2L);
+        verify(rows).claim(List.of(1L, 2L), NOW.plus(Duration.ofMinutes(5)));
+
+        assertThat(queue.claimBatch(NOW)).isEmpty();
+        verify(rows, times(1)).claim(any(), any());
+    }
+
+    @Test
+    void recordFailure_retriesWithBackoff_thenGivesUpAtMaxAttempts() {
+        Row row = new Row(2);
+        assertThat(queue.recordFailure(row, new IllegalStateException("x".repeat(600)), NOW)).isFalse();
+        assertThat(row.nextAttemptAt).isEqualTo(NOW.plusSeconds(10)); // 5s * 2^(2-1)
+        assertThat(row.lastError).hasSize(LeasedQueue.MAX_ERROR_LENGTH);
+
+        Row last = new Row(3);
+        assertThat(queue.recordFailure(last, new IllegalStateException(), NOW)).isTrue();
+        assertThat(last.gaveUp).isTrue();
+        assertThat(last.lastError).isEqualTo("null");
+        assertThat(last.nextAttemptAt).isNull();
+    }
+
+    @Test
+    void backoff_isExponentialAndCapped() {
+        assertThat(queue.backoff(1)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(queue.backoff(4)).isEqualTo(Duration.ofSeconds(40));
+        assertThat(queue.backoff(30)).isEqualTo(Duration.ofHours(1));
+    }
+
+    static class Row implements LeasedRow {
+        final int attempts;
+        String lastError;
+        Instant nextAttemptAt;
+        boolean gaveUp;
+
+        Row(int attempts) {
+            this.attempts = attempts;
+        }
+
+        @Override
+        public int getAttempts() {
+            return attempts;
+        }
+
+        @Override
+        public void setLastError(String lastError) {
+            this.lastError = lastError;
+        }
+
+        @Override
+        public void retryAt(Instant nextAttemptAt) {
+            this.nextAttemptAt = nextAttemptAt;
+        }
+
+        @Override
+        public void giveUp() {
+            gaveUp = true;
+        }
+    }
+}
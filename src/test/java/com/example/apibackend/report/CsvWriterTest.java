@@ -0,0 +1,36 @@
+package com.example.apibackend.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvWriterTest {
+
+    @Test
+    void plainFieldsAreWrittenAsIs_nullsAreEmpty() throws IOException {
+        assertThat(write(1L, "user@example.com", null, 1000)).isEqualTo("1,user@example.com,,1000\n");
+    }
+
+    @Test
+    void fieldsWithSeparatorsOrQuotesAreQuoted() throws IOException {
+        assertThat(write("a,b", "say \"hi\"", "line1\nline2", "cr\rhere"))
+                .isEqualTo("\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\",\"cr\rhere\"\n");
+    }
+
+    @Test
+    void writesUtf8() throws IOException {
+        assertThat(write("Grüße", "日本")).isEqualTo("Grüße,日本\n");
+    }
+
+    private static String write(Object... fields) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter csv = new CsvWriter(out);
+        csv.row(fields);
+        csv.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
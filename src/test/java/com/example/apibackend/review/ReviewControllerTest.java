@@ -1,5 +1,8 @@
 package com.example.apibackend.review;
 
+import com.example.apibackend.auth.UserPrincipal;
+import com.example.apibackend.course.CatalogCacheInvalidator;
+import com.example.apibackend.course.CourseRepository;
 import com.example.apibackend.enrollment.Enrollment;
 import com.example.apibackend.enrollment.EnrollmentRepository;
 import com.example.apibackend.user.User;
@@ -8,6 +11,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -16,7 +22,10 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -29,6 +38,10 @@ class ReviewControllerTest {
     private ReviewRepository reviewRepo;
     @MockitoBean
     private EnrollmentRepository enrollmentRepo;
+    @MockitoBean
+    private CourseRepository courseRepo;
+    @MockitoBean
+    private CatalogCacheInvalidator cacheInvalidator;
 
     private User user;
     private Enrollment enrollment;
@@ -53,73 +66,106 @@ class ReviewControllerTest {
 
     @Test
     @WithMockUser
-    void getReviews_returnsPaged() throws Exception {
+    void getReviews_returnsPagedDtos_withoutUserEntity() throws Exception {
+        user.setPasswordHash("$2a$10$secret-hash");
         when(reviewRepo.findByCourseId(eq(10L), any())).thenReturn(new org.springframework.data.domain.PageImpl<>(List.of(review)));
         mockMvc.perform(get("/api/courses/10/reviews"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content[0].id").value(3L))
-                .andExpect(jsonPath("$.content[0].comment").value("Great course!"));
+                .andExpect(jsonPath("$.content[0].comment").value("Great course!"))
+                .andExpect(jsonPath("$.content[0].userEmail").value("user@example.com"))
+                .andExpect(jsonPath("$.content[0].user").doesNotExist())
+                .andExpect(content().string(org.hamcrest.Matchers.not(org.hamcrest.Matchers.containsString("secret-hash"))));
+    }
+
+    @Test
+    @WithMockUser
+    void scrollReviews_returnsPageAndCursorToContinue() throws Exception {
+        Instant t = Instant.parse("2024-05-01T10:00:00Z");
+        List<ReviewDto> rows = List.of(
+                new ReviewDto(9L, 1L, "a@example.com", 5, "Newest review", t),
+                new ReviewDto(8L, 1L, "b@example.com", 4, "Same second", t),
+                new ReviewDto(7L, 1L, "c@example.com", 3, "Extra row", t.minusSeconds(60)));
+        when(reviewRepo.findFirstPageByCourseId(eq(10L), any())).thenReturn(rows);
+
+        String cursor = new ReviewCursor(t, 8L).encode();
+        mockMvc.perform(get("/api/courses/10/reviews/scroll").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[1].id").value(8L))
+                .andExpect(jsonPath("$.nextCursor").value(cursor));
+        // size + 1 rows asked for: the extra one only signals that a next page exists
+        verify(reviewRepo).findFirstPageByCourseId(10L, org.springframework.data.domain.PageRequest.ofSize(3));
+
+        when(reviewRepo.findPageByCourseIdBefore(eq(10L), eq(t), eq(8L), any())).thenReturn(List.of(rows.get(2)));
+        mockMvc.perform(get("/api/courses/10/reviews/scroll").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(7L))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser
+    void scrollReviews_invalidCursor_returns400() throws Exception {
+        mockMvc.perform(get("/api/courses/10/reviews/scroll").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        verify(reviewRepo, never()).findPageByCourseIdBefore(anyLong(), any(), anyLong(), any());
     }
 
     @Test
     @WithMockUser
     void postReview_enrolledUser_succeeds() throws Exception {
-        when(enrollmentRepo.findByUserIdAndCourseId(eq(1L), eq(10L))).thenReturn(Optional.of(enrollment));
-        when(reviewRepo.findByCourseId(eq(10L))).thenReturn(List.of(review));
+        when(enrollmentRepo.findForUpdateByUserIdAndCourseId(eq(1L), eq(10L))).thenReturn(Optional.of(enrollment));
         String body = "{\"rating\":5,\"comment\":\"This is a great course!\"}";
         ResultActions result = mockMvc.perform(post("/api/courses/10/reviews")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(body)
                 .with(csrf())
-                .principal(() -> "user@example.com"));
+                .with(authentication(userAuth())));
         result.andExpect(status().isCreated())
                 .andExpect(jsonPath("$.rating").value(5))
                 .andExpect(jsonPath("$.comment").value("This is a great course!"));
+        verify(courseRepo).addRating(10L, 5);
+        verify(cacheInvalidator).reviewsChanged(10L);
     }
 
     @Test
     @WithMockUser
     void postReview_notEnrolled_returns403() throws Exception {
-        when(enrollmentRepo.findByUserIdAndCourseId(eq(1L), eq(10L))).thenReturn(Optional.empty());
+        when(enrollmentRepo.findForUpdateByUserIdAndCourseId(eq(1L), eq(10L))).thenReturn(Optional.empty());
         String body = "{\"rating\":5,\"comment\":\"This is a great course!\"}";
         mockMvc.perform(post("/api/courses/10/reviews")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(body)
                 .with(csrf())
-                .principal(() -> "user@example.com"))
+                .with(authentication(userAuth())))
                 .andExpect(status().isForbidden());
     }
 
     @Test
     @WithMockUser
     void postReview_tooShort_returns400() throws Exception {
-        when(enrollmentRepo.findByUserIdAndCourseId(eq(1L), eq(10L))).thenReturn(Optional.of(enrollment));
+        when(enrollmentRepo.findForUpdateByUserIdAndCourseId(eq(1L), eq(10L))).thenReturn(Optional.of(enrollment));
         String body = "{\"rating\":5,\"comment\":\"Short\"}";
         mockMvc.perform(post("/api/courses/10/reviews")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(body)
                 .with(csrf())
-                .principal(() -> "user@example.com"))
+                .with(authentication(userAuth())))
                 .andExpect(status().isBadRequest());
     }
 
     @Test
     @WithMockUser
     void postReview_cooldown_returns429() throws Exception {
-        when(enrollmentRepo.findByUserIdAndCourseId(eq(1L), eq(10L))).thenReturn(Optional.of(enrollment));
-        Review recentReview = new Review();
-        setId(recentReview, 4L);
-        recentReview.setUser(user);
-        recentReview.setRating(4);
-        recentReview.setComment("Nice!");
-        recentReview.setCreatedAt(Instant.now());
-        when(reviewRepo.findByCourseId(eq(10L))).thenReturn(List.of(review, recentReview));
+        when(enrollmentRepo.findForUpdateByUserIdAndCourseId(eq(1L), eq(10L))).thenReturn(Optional.of(enrollment));
+        when(reviewRepo.existsByUserIdAndCourseIdAndCreatedAtAfter(eq(1L), eq(10L), any())).thenReturn(true);
         String body = "{\"rating\":4,\"comment\":\"Another review!\"}";
         mockMvc.perform(post("/api/courses/10/reviews")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(body)
                 .with(csrf())
-                .principal(() -> "user@example.com"))
+                .with(authentication(userAuth())))
                 .andExpect(status().isTooManyRequests());
     }
 
@@ -132,6 +178,8 @@ class ReviewControllerTest {
         mockMvc.perform(delete("/api/courses/10/reviews/3")
                 .with(csrf()))
                 .andExpect(status().isNoContent());
+        verify(courseRepo).removeRating(10L, 5);
+        verify(cacheInvalidator).reviewsChanged(10L);
     }
 
     @Test
@@ -143,6 +191,12 @@ class ReviewControllerTest {
         mockMvc.perform(delete("/api/courses/10/reviews/3")
                 .with(csrf()))
                 .andExpect(status().isNotFound());
+        verify(courseRepo, never()).removeRating(anyLong(), anyLong());
+    }
+
+    // @AuthenticationPrincipal resolves a UserPrincipal, as JwtAuthFilter sets it in production
+    private Authentication userAuth() {
+        return new UsernamePasswordAuthenticationToken(UserPrincipal.of(user), null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
     }
 
     // Helper to set private id field
@@ -0,0 +1,131 @@
+package com.example.apibackend.review;
+
+import com.example.apibackend.auth.UserPrincipal;
+import com.example.apibackend.course.CatalogCacheInvalidator;
+import com.example.apibackend.course.Course;
+import com.example.apibackend.course.CourseRepository;
+import com.example.apibackend.enrollment.Enrollment;
+import com.example.apibackend.enrollment.EnrollmentRepository;
+import com.example.apibackend.user.User;
+import com.example.apibackend.user.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The review cooldown under parallel posts, against real MySQL (Testcontainers + Flyway):
+ * - Not transactional itself, so every post commits on its own as it does in production.
+ * - All posts are released at once; the enrollment row lock must let exactly one review through.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // don't swap to H2
+@ActiveProfiles("test")
+@Testcontainers
+@Import(ReviewController.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReviewCooldownConcurrencyTest {
+
+    static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("learning")
+            .withUsername("app")
+            .withPassword("app");
+
+    static {
+        mysql.start();
+    }
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r) {
+        r.add("spring.datasource.url", mysql::getJdbcUrl);
+        r.add("spring.datasource.username", mysql::getUsername);
+        r.add("spring.datasource.password", mysql::getPassword);
+        r.add("spring.flyway.enabled", () -> true);
+    }
+
+    @Autowired
+    ReviewController controller;
+    @Autowired
+    ReviewRepository reviewRepo;
+    @Autowired
+    CourseRepository courseRepo;
+    @Autowired
+    UserRepository userRepo;
+    @Autowired
+    EnrollmentRepository enrollmentRepo;
+
+    @MockitoBean
+    CatalogCacheInvalidator cacheInvalidator;
+
+    @Test
+    @DisplayName("parallel posts by one user for one course: one review, the rest hit the cooldown")
+    void parallelPosts_onlyOneGetsThrough() throws Exception {
+        User user = new User();
+        user.setEmail("racer@example.com");
+        user.setPasswordHash("hash");
+        user.setRole("USER");
+        userRepo.save(user);
+        Course course = new Course();
+        course.setSlug("race-course");
+        course.setTitle("Race Course");
+        course.setPriceCents(1999);
+        course.setCurrency("USD");
+        course.setIsActive(true);
+        courseRepo.save(course);
+        Enrollment enrollment = new Enrollment();
+        enrollment.setUser(user);
+        enrollment.setCourse(course);
+        enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
+        enrollmentRepo.save(enrollment);
+        UserPrincipal principal = UserPrincipal.of(user);
+
+        int posts = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(posts);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try {
+            for (int i = 0; i < posts; i++) {
+                ReviewController.ReviewRequest req = new ReviewController.ReviewRequest();
+                req.rating = 4;
+                req.comment = "Parallel review number " + i;
+                statuses.add(pool.submit(() -> {
+                    start.await();
+                    return controller.postReview(course.getId(), principal, req).getStatusCode().value();
+                }));
+            }
+            start.countDown();
+            List<Integer> codes = new ArrayList<>();
+            for (Future<Integer> status : statuses) {
+                codes.add(status.get());
+            }
+            assertThat(codes).containsOnlyOnce(201);
+            assertThat(codes).filteredOn(code -> code == 429).hasSize(posts - 1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(reviewRepo.countByCourseId(course.getId())).isEqualTo(1);
+        Course reloaded = courseRepo.findById(course.getId()).orElseThrow();
+        assertThat(reloaded.getRatingCount()).isEqualTo(1);
+        assertThat(reloaded.getRatingSum()).isEqualTo(4L);
+    }
+}